@@ -0,0 +1,56 @@
+package com.semanticspace.shortestpath;
+
+import java.util.Arrays;
+
+import static org.neo4j.gds.utils.StringFormatting.formatWithLocale;
+import static org.neo4j.gds.utils.StringFormatting.toUpperCaseWithLocale;
+
+/**
+ * How the levels of a breadth first search on an unweighted graph are expanded.
+ */
+public enum BreadthFirstEngine {
+    /**
+     * {@link #MULTI_SOURCE} for batches of at least 64 distinct source nodes that only need distances, {@link #TOP_DOWN} otherwise.
+     */
+    AUTO,
+    /**
+     * Every level visits the relationships of its frontier nodes.
+     */
+    TOP_DOWN,
+    /**
+     * Levels with a large frontier are expanded bottom-up: every unreached node scans its incoming relationships
+     * until it finds a frontier node. Pays off on low-diameter graphs with skewed degrees, where a few middle levels
+     * hold most of the graph. Requires the incoming relationships, which are indexed once per named graph.
+     */
+    DIRECTION_OPTIMIZING,
+    /**
+     * Up to 64 sources share one traversal, every node keeps a bit per source that has reached it.
+     * Shares the relationship scans of sources that reach the same nodes in the same level and records the depth
+     * at which every source reaches its targets. Only answers distances, pairs that need paths are searched {@link #TOP_DOWN}.
+     */
+    MULTI_SOURCE;
+
+    public static BreadthFirstEngine parse(Object input) {
+        if (input instanceof BreadthFirstEngine) {
+            return (BreadthFirstEngine) input;
+        }
+        if (input instanceof String) {
+            // accept camel case variants like 'directionOptimizing'
+            var normalized = toUpperCaseWithLocale(((String) input).replace("_", ""));
+            for (BreadthFirstEngine engine : values()) {
+                if (engine.name().replace("_", "").equals(normalized)) {
+                    return engine;
+                }
+            }
+        }
+        throw new IllegalArgumentException(formatWithLocale(
+            "Breadth first engine `%s` is not supported. Must be one of: %s.",
+            input,
+            Arrays.toString(values())
+        ));
+    }
+
+    public static String toString(BreadthFirstEngine engine) {
+        return engine.name();
+    }
+}
@@ -0,0 +1,122 @@
+package com.semanticspace.shortestpath;
+
+import org.neo4j.gds.core.utils.mem.MemoryEstimation;
+import org.neo4j.gds.core.utils.mem.MemoryEstimations;
+import org.neo4j.gds.core.utils.paged.HugeIntArray;
+import org.neo4j.gds.core.utils.paged.HugeLongArray;
+
+/**
+ * The state of a breadth first search on an unweighted graph, reused by all searches of a worker.
+ * <p>
+ * Every node is visited at most once, in order of its depth, so the queue is a single array holding
+ * the nodes in the order they were reached. The nodes between the head and the tail form the frontier,
+ * which only ever holds nodes of two consecutive levels. Like {@link DenseSearchState}, entries of
+ * previous searches are invalidated by a generation stamp.
+ */
+final class BreadthFirstSearchState {
+
+    // generation of the search that reached the node, older generations read as unreached
+    private final HugeIntArray generations;
+    private final HugeIntArray depths;
+    // predecessors (null, if only depths are needed)
+    private final CompactLongArray predecessors;
+    // relationship ids (null, if relationships are not tracked)
+    private final CompactLongArray relationships;
+    // the reached nodes in breadth first order
+    private final HugeLongArray queue;
+
+    private int generation;
+    private long head;
+    private long tail;
+
+    BreadthFirstSearchState(long nodeCount, boolean trackPredecessors, boolean trackRelationships) {
+        this.generations = HugeIntArray.newArray(nodeCount);
+        this.depths = HugeIntArray.newArray(nodeCount);
+        this.predecessors = trackPredecessors ? CompactLongArray.forNodeIds(nodeCount) : null;
+        this.relationships = trackRelationships ? CompactLongArray.forRelationshipIds(nodeCount) : null;
+        this.queue = HugeLongArray.newArray(nodeCount);
+        this.generation = 1;
+    }
+
+    static MemoryEstimation memoryEstimation(boolean trackPredecessors, boolean trackRelationships) {
+        var builder = MemoryEstimations.builder(BreadthFirstSearchState.class)
+            .perNode("generations", HugeIntArray::memoryEstimation)
+            .perNode("depths", HugeIntArray::memoryEstimation)
+            .perNode("queue", HugeLongArray::memoryEstimation);
+        if (trackPredecessors) {
+            builder.perNode("predecessors", CompactLongArray::nodeIdsMemoryEstimation);
+        }
+        if (trackRelationships) {
+            builder.perNode("relationship ids", CompactLongArray::relationshipIdsMemoryEstimation);
+        }
+        return builder.build();
+    }
+
+    void reset() {
+        if (++generation == Integer.MAX_VALUE) {
+            generations.fill(0);
+            generation = 1;
+        }
+        head = 0;
+        tail = 0;
+    }
+
+    boolean isEmpty() {
+        return head == tail;
+    }
+
+    /**
+     * @return the number of reached nodes whose relationships have not been visited yet
+     */
+    long frontierSize() {
+        return tail - head;
+    }
+
+    /**
+     * @return the frontier node at the given position, without removing it
+     */
+    long frontierNode(long index) {
+        return queue.get(head + index);
+    }
+
+    long pop() {
+        return queue.get(head++);
+    }
+
+    boolean isReached(long node) {
+        return generations.get(node) == generation;
+    }
+
+    /**
+     * Reaches the node from its predecessor, the source of a search is its own predecessor.
+     *
+     * @return true, iff the node has not been reached before
+     */
+    boolean visit(long node, long predecessor, long relationshipId) {
+        if (isReached(node)) {
+            return false;
+        }
+        generations.set(node, generation);
+        depths.set(node, node == predecessor ? 0 : depths.get(predecessor) + 1);
+        if (predecessors != null) {
+            predecessors.set(node, predecessor);
+        }
+        if (relationships != null) {
+            relationships.set(node, relationshipId);
+        }
+        queue.set(tail++, node);
+        return true;
+    }
+
+    int depth(long node) {
+        return depths.get(node);
+    }
+
+    long predecessor(long node) {
+        return predecessors.get(node);
+    }
+
+    long relationship(long node) {
+        return relationships == null ? DijkstraMultiplePairs.NO_RELATIONSHIP : relationships.get(node);
+    }
+}
@@ -0,0 +1,63 @@
+package com.semanticspace.shortestpath;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.neo4j.gds.utils.StringFormatting.formatWithLocale;
+
+/**
+ * Counts the levels expanded by the direction-optimizing breadth first searches of one call,
+ * shared by all worker threads.
+ */
+public final class BreadthFirstStatistics {
+
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder topDownLevels = new LongAdder();
+    private final LongAdder bottomUpLevels = new LongAdder();
+    private final LongAdder switchesToBottomUp = new LongAdder();
+    private final LongAdder switchesToTopDown = new LongAdder();
+
+    void search() {
+        searches.increment();
+    }
+
+    void level(boolean bottomUp) {
+        (bottomUp ? bottomUpLevels : topDownLevels).increment();
+    }
+
+    void switchDirection(boolean toBottomUp) {
+        (toBottomUp ? switchesToBottomUp : switchesToTopDown).increment();
+    }
+
+    public long searches() {
+        return searches.sum();
+    }
+
+    public long topDownLevels() {
+        return topDownLevels.sum();
+    }
+
+    public long bottomUpLevels() {
+        return bottomUpLevels.sum();
+    }
+
+    public long switchesToBottomUp() {
+        return switchesToBottomUp.sum();
+    }
+
+    public long switchesToTopDown() {
+        return switchesToTopDown.sum();
+    }
+
+    @Override
+    public String toString() {
+        return formatWithLocale(
+            "%d breadth first searches expanded %d levels top-down and %d levels bottom-up, " +
+            "switching %d times to bottom-up and %d times to top-down",
+            searches(),
+            topDownLevels(),
+            bottomUpLevels(),
+            switchesToBottomUp(),
+            switchesToTopDown()
+        );
+    }
+}
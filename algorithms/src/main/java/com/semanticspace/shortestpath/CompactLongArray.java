@@ -0,0 +1,60 @@
+package com.semanticspace.shortestpath;
+
+import org.jetbrains.annotations.Nullable;
+import org.neo4j.gds.core.utils.paged.HugeIntArray;
+import org.neo4j.gds.core.utils.paged.HugeLongArray;
+
+/**
+ * Predecessors or relationship ids of the nodes of a search, stored as ints whenever all values fit.
+ * <p>
+ * Node ids fit as long as the graph has fewer than 2^31 nodes. Relationship ids are positions in the
+ * adjacency list of a node and always fit. Half the bytes per node keep twice as many nodes in the caches
+ * and leave room for more concurrent searches on large graphs.
+ */
+final class CompactLongArray {
+
+    // exactly one of them is set
+    @Nullable
+    private final HugeIntArray ints;
+    @Nullable
+    private final HugeLongArray longs;
+
+    private CompactLongArray(@Nullable HugeIntArray ints, @Nullable HugeLongArray longs) {
+        this.ints = ints;
+        this.longs = longs;
+    }
+
+    static CompactLongArray forNodeIds(long nodeCount) {
+        return nodeIdsFitInt(nodeCount)
+            ? new CompactLongArray(HugeIntArray.newArray(nodeCount), null)
+            : new CompactLongArray(null, HugeLongArray.newArray(nodeCount));
+    }
+
+    static CompactLongArray forRelationshipIds(long nodeCount) {
+        return new CompactLongArray(HugeIntArray.newArray(nodeCount), null);
+    }
+
+    static long nodeIdsMemoryEstimation(long nodeCount) {
+        return nodeIdsFitInt(nodeCount) ? HugeIntArray.memoryEstimation(nodeCount) : HugeLongArray.memoryEstimation(nodeCount);
+    }
+
+    static long relationshipIdsMemoryEstimation(long nodeCount) {
+        return HugeIntArray.memoryEstimation(nodeCount);
+    }
+
+    long get(long index) {
+        return ints != null ? ints.get(index) : longs.get(index);
+    }
+
+    void set(long index, long value) {
+        if (ints != null) {
+            ints.set(index, (int) value);
+        } else {
+            longs.set(index, value);
+        }
+    }
+
+    private static boolean nodeIdsFitInt(long nodeCount) {
+        return nodeCount <= Integer.MAX_VALUE;
+    }
+}
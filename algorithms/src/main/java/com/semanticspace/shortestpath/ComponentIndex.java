@@ -0,0 +1,235 @@
+package com.semanticspace.shortestpath;
+
+import com.carrotsearch.hppc.BitSet;
+import org.jetbrains.annotations.Nullable;
+import org.neo4j.gds.api.Graph;
+import org.neo4j.gds.core.concurrency.ParallelUtil;
+import org.neo4j.gds.core.utils.mem.MemoryEstimation;
+import org.neo4j.gds.core.utils.mem.MemoryEstimations;
+import org.neo4j.gds.core.utils.paged.HugeAtomicLongArray;
+import org.neo4j.gds.core.utils.paged.HugeLongArray;
+import org.neo4j.gds.core.utils.partition.PartitionUtils;
+import org.neo4j.gds.core.utils.progress.tasks.ProgressTracker;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * The weakly connected components of a graph and, for directed graphs, its strongly connected components
+ * numbered in topological order of the condensation.
+ * <p>
+ * A node can only reach nodes of its own weakly connected component. On a directed graph, every
+ * relationship between two strongly connected components points from a lower to a higher component
+ * number, so a node cannot reach any node of a lower numbered component either. Both checks take
+ * constant time and prove a pair unreachable without a search, while pairs passing them may still be
+ * unreachable.
+ * <p>
+ * Weakly connected components are found by a concurrent union-find over all relationships, strongly
+ * connected components by an iterative Tarjan search over the incoming relationships.
+ */
+final class ComponentIndex implements ReachabilityIndex {
+
+    private static final long UNVISITED = -1L;
+
+    // the smallest node id of the weakly connected component of the node
+    private final HugeLongArray weakComponents;
+    // the topological number of the strongly connected component of the node (null, if the graph is undirected)
+    @Nullable
+    private final HugeLongArray strongComponents;
+    private final long strongComponentCount;
+
+    private ComponentIndex(HugeLongArray weakComponents, @Nullable HugeLongArray strongComponents, long strongComponentCount) {
+        this.weakComponents = weakComponents;
+        this.strongComponents = strongComponents;
+        this.strongComponentCount = strongComponentCount;
+    }
+
+    /**
+     * The components themselves, the temporary arrays of the Tarjan search are about as large.
+     * Directed graphs also need their incoming relationships.
+     */
+    static MemoryEstimation memoryEstimation(boolean directed) {
+        var builder = MemoryEstimations.builder(ComponentIndex.class)
+            .perNode("weak components", HugeLongArray::memoryEstimation);
+        if (directed) {
+            builder
+                .add("inverse adjacency", InverseAdjacency.memoryEstimation(false))
+                .perNode("strong components", HugeLongArray::memoryEstimation);
+        }
+        return builder.build();
+    }
+
+    /**
+     * @param inverseAdjacency the incoming relationships of a directed graph, {@code null} for an undirected graph
+     */
+    static ComponentIndex compute(
+        Graph graph,
+        @Nullable InverseAdjacency inverseAdjacency,
+        int concurrency,
+        ExecutorService executorService,
+        ProgressTracker progressTracker
+    ) {
+        var weakComponents = weakComponents(graph, concurrency, executorService);
+        if (inverseAdjacency == null) {
+            return new ComponentIndex(weakComponents, null, 0);
+        }
+        var strongComponents = HugeLongArray.newArray(graph.nodeCount());
+        long strongComponentCount = strongComponents(graph.nodeCount(), inverseAdjacency, strongComponents);
+        progressTracker.logMessage("Found " + strongComponentCount + " strongly connected components");
+        return new ComponentIndex(weakComponents, strongComponents, strongComponentCount);
+    }
+
+    @Override
+    public boolean mayReach(long sourceNode, long targetNode) {
+        if (weakComponents.get(sourceNode) != weakComponents.get(targetNode)) {
+            return false;
+        }
+        return strongComponents == null || strongComponents.get(sourceNode) <= strongComponents.get(targetNode);
+    }
+
+    boolean isDirected() {
+        return strongComponents != null;
+    }
+
+    /**
+     * The topological number of the strongly connected component of a node of a directed graph.
+     */
+    long strongComponent(long node) {
+        return strongComponents.get(node);
+    }
+
+    long strongComponentCount() {
+        return strongComponentCount;
+    }
+
+    private static HugeLongArray weakComponents(Graph graph, int concurrency, ExecutorService executorService) {
+        long nodeCount = graph.nodeCount();
+        var parents = HugeAtomicLongArray.newArray(nodeCount);
+        ParallelUtil.run(PartitionUtils.rangePartition(concurrency, nodeCount, partition -> (Runnable) () -> {
+            long endNode = partition.startNode() + partition.nodeCount();
+            for (long node = partition.startNode(); node < endNode; node++) {
+                parents.set(node, node);
+            }
+        }, Optional.empty()), executorService);
+
+        ParallelUtil.run(PartitionUtils.rangePartition(concurrency, nodeCount, partition -> (Runnable) () -> {
+            var localGraph = graph.concurrentCopy();
+            long endNode = partition.startNode() + partition.nodeCount();
+            for (long node = partition.startNode(); node < endNode; node++) {
+                localGraph.forEachRelationship(node, (source, target) -> {
+                    union(parents, source, target);
+                    return true;
+                });
+            }
+        }, Optional.empty()), executorService);
+
+        var components = HugeLongArray.newArray(nodeCount);
+        ParallelUtil.run(PartitionUtils.rangePartition(concurrency, nodeCount, partition -> (Runnable) () -> {
+            long endNode = partition.startNode() + partition.nodeCount();
+            for (long node = partition.startNode(); node < endNode; node++) {
+                components.set(node, find(parents, node));
+            }
+        }, Optional.empty()), executorService);
+        return components;
+    }
+
+    /**
+     * Links the root with the larger id below the other one, so concurrent unions never form a cycle.
+     */
+    private static void union(HugeAtomicLongArray parents, long first, long second) {
+        while (true) {
+            long firstRoot = find(parents, first);
+            long secondRoot = find(parents, second);
+            if (firstRoot == secondRoot) {
+                return;
+            }
+            long child = Math.max(firstRoot, secondRoot);
+            long parent = Math.min(firstRoot, secondRoot);
+            if (parents.compareAndSet(child, child, parent)) {
+                return;
+            }
+        }
+    }
+
+    private static long find(HugeAtomicLongArray parents, long node) {
+        long parent = parents.get(node);
+        while (parent != node) {
+            long grandParent = parents.get(parent);
+            // path halving, a failed update only leaves a longer path
+            parents.compareAndSet(node, parent, grandParent);
+            node = parent;
+            parent = parents.get(node);
+        }
+        return node;
+    }
+
+    /**
+     * Runs Tarjan's algorithm on the inverse graph, which has the same strongly connected components.
+     * Components are completed sinks first, which on the inverse graph are the sources of the original
+     * graph, so numbering them in completion order is a topological order of the original condensation.
+     *
+     * @return the number of strongly connected components
+     */
+    private static long strongComponents(long nodeCount, InverseAdjacency inverseAdjacency, HugeLongArray components) {
+        var indices = HugeLongArray.newArray(nodeCount);
+        indices.fill(UNVISITED);
+        var lowLinks = HugeLongArray.newArray(nodeCount);
+        var onStack = new BitSet(nodeCount);
+        var stack = HugeLongArray.newArray(nodeCount);
+        // the nodes of the depth first search and the position of their next relationship
+        var callNodes = HugeLongArray.newArray(nodeCount);
+        var callPositions = HugeLongArray.newArray(nodeCount);
+
+        long index = 0;
+        long stackSize = 0;
+        long componentCount = 0;
+        for (long root = 0; root < nodeCount; root++) {
+            if (indices.get(root) != UNVISITED) {
+                continue;
+            }
+            indices.set(root, index);
+            lowLinks.set(root, index++);
+            stack.set(stackSize++, root);
+            onStack.set(root);
+            callNodes.set(0, root);
+            callPositions.set(0, inverseAdjacency.offset(root));
+            long callSize = 1;
+
+            while (callSize > 0) {
+                long node = callNodes.get(callSize - 1);
+                long position = callPositions.get(callSize - 1);
+                if (position < inverseAdjacency.offset(node + 1)) {
+                    callPositions.set(callSize - 1, position + 1);
+                    long next = inverseAdjacency.source(position);
+                    if (indices.get(next) == UNVISITED) {
+                        indices.set(next, index);
+                        lowLinks.set(next, index++);
+                        stack.set(stackSize++, next);
+                        onStack.set(next);
+                        callNodes.set(callSize, next);
+                        callPositions.set(callSize++, inverseAdjacency.offset(next));
+                    } else if (onStack.get(next)) {
+                        lowLinks.set(node, Math.min(lowLinks.get(node), indices.get(next)));
+                    }
+                    continue;
+                }
+
+                callSize--;
+                if (lowLinks.get(node) == indices.get(node)) {
+                    long member;
+                    do {
+                        member = stack.get(--stackSize);
+                        onStack.clear(member);
+                        components.set(member, componentCount);
+                    } while (member != node);
+                    componentCount++;
+                }
+                if (callSize > 0) {
+                    long caller = callNodes.get(callSize - 1);
+                    lowLinks.set(caller, Math.min(lowLinks.get(caller), lowLinks.get(node)));
+                }
+            }
+        }
+        return componentCount;
+    }
+}
@@ -0,0 +1,680 @@
+package com.semanticspace.shortestpath;
+
+import com.carrotsearch.hppc.DoubleArrayList;
+import com.carrotsearch.hppc.IntArrayDeque;
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.IntDoubleHashMap;
+import com.carrotsearch.hppc.IntIntHashMap;
+import com.carrotsearch.hppc.LongArrayList;
+import org.neo4j.gds.api.Graph;
+import org.neo4j.gds.config.AlgoBaseConfig;
+import org.neo4j.gds.config.RelationshipWeightConfig;
+import org.neo4j.gds.core.concurrency.ParallelUtil;
+import org.neo4j.gds.core.utils.mem.MemoryEstimation;
+import org.neo4j.gds.core.utils.mem.MemoryEstimations;
+import org.neo4j.gds.core.utils.mem.MemoryRange;
+import org.neo4j.gds.core.utils.progress.tasks.ProgressTracker;
+import org.neo4j.gds.mem.MemoryUsage;
+import org.neo4j.gds.paths.ImmutablePathResult;
+import org.neo4j.gds.paths.PathResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BooleanSupplier;
+
+import static org.neo4j.gds.utils.StringFormatting.formatWithLocale;
+
+/**
+ * A contraction hierarchy over the relationships of a graph.
+ * <p>
+ * Nodes are contracted in rounds. Every round picks the nodes whose priority (edge difference
+ * plus the number of contracted neighbours) is minimal in their neighbourhood, runs the witness
+ * searches of these independent nodes in parallel and then adds the shortcuts that preserve the
+ * distances between the remaining nodes. Witness searches avoid all nodes of the round, since
+ * a witness through another node of the round disappears when that node is contracted as well. A query runs two upward searches, a forward search
+ * from the source and a backward search from the target, which meet at the highest ranked node
+ * of the shortest path. Shortcuts remember the two relationships they replace, so paths are
+ * unpacked into original relationships.
+ * <p>
+ * Node and relationship counts (including shortcuts) are limited to {@link Integer#MAX_VALUE}.
+ */
+public final class ContractionHierarchy {
+
+    // witness searches give up after this many settled nodes and add the shortcut
+    private static final int WITNESS_SETTLE_LIMIT = 500;
+
+    private static final int NO_EDGE = -1;
+    private static final int NOT_CONTRACTED = -1;
+
+    private static final long[] EMPTY_ARRAY = new long[0];
+
+    // edge table, the original relationships followed by the shortcuts
+    private final int[] edgeSource;
+    private final int[] edgeTarget;
+    private final double[] edgeWeight;
+    // the two edges a shortcut replaces, NO_EDGE for original relationships
+    private final int[] edgeFirst;
+    private final int[] edgeSecond;
+    private final long[] edgeRelationshipId;
+
+    // contraction order of every node
+    private final int[] rank;
+
+    // edges leading to a higher ranked node, indexed by their source
+    private final int[] upOffsets;
+    private final int[] upEdges;
+    // edges coming from a higher ranked node, indexed by their target
+    private final int[] downOffsets;
+    private final int[] downEdges;
+
+    private ContractionHierarchy(
+        int[] edgeSource,
+        int[] edgeTarget,
+        double[] edgeWeight,
+        int[] edgeFirst,
+        int[] edgeSecond,
+        long[] edgeRelationshipId,
+        int[] rank
+    ) {
+        this.edgeSource = edgeSource;
+        this.edgeTarget = edgeTarget;
+        this.edgeWeight = edgeWeight;
+        this.edgeFirst = edgeFirst;
+        this.edgeSecond = edgeSecond;
+        this.edgeRelationshipId = edgeRelationshipId;
+        this.rank = rank;
+
+        int nodeCount = rank.length;
+        this.upOffsets = new int[nodeCount + 1];
+        this.downOffsets = new int[nodeCount + 1];
+        for (int edge = 0; edge < edgeSource.length; edge++) {
+            if (rank[edgeTarget[edge]] > rank[edgeSource[edge]]) {
+                upOffsets[edgeSource[edge] + 1]++;
+            } else {
+                downOffsets[edgeTarget[edge] + 1]++;
+            }
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            upOffsets[node + 1] += upOffsets[node];
+            downOffsets[node + 1] += downOffsets[node];
+        }
+        this.upEdges = new int[upOffsets[nodeCount]];
+        this.downEdges = new int[downOffsets[nodeCount]];
+        int[] upCursor = Arrays.copyOf(upOffsets, nodeCount);
+        int[] downCursor = Arrays.copyOf(downOffsets, nodeCount);
+        for (int edge = 0; edge < edgeSource.length; edge++) {
+            if (rank[edgeTarget[edge]] > rank[edgeSource[edge]]) {
+                upEdges[upCursor[edgeSource[edge]]++] = edge;
+            } else {
+                downEdges[downCursor[edgeTarget[edge]]++] = edge;
+            }
+        }
+    }
+
+    /**
+     * A rough estimation assuming that contraction adds as many shortcuts as there are relationships.
+     */
+    public static MemoryEstimation memoryEstimation() {
+        long bytesPerEdge = 5 * Integer.BYTES + Double.BYTES + Long.BYTES;
+        return MemoryEstimations.builder(ContractionHierarchy.class)
+            .perNode("ranks and offsets", nodeCount -> 3 * MemoryUsage.sizeOfIntArray(nodeCount + 1))
+            .perGraphDimension(
+                "edges and shortcuts",
+                (dimensions, concurrency) -> MemoryRange.of(
+                    dimensions.relCountUpperBound() * bytesPerEdge,
+                    2 * dimensions.relCountUpperBound() * bytesPerEdge
+                )
+            )
+            .build();
+    }
+
+    /**
+     * The key the hierarchy of the projection described by the configuration is stored under.
+     */
+    public static <CONFIG extends AlgoBaseConfig & RelationshipWeightConfig> String indexKey(CONFIG config) {
+        return GraphIndexes.key(config, "contractionHierarchy");
+    }
+
+    public int nodeCount() {
+        return rank.length;
+    }
+
+    public int shortcutCount() {
+        int shortcuts = 0;
+        for (int edge = 0; edge < edgeFirst.length; edge++) {
+            if (edgeFirst[edge] != NO_EDGE) {
+                shortcuts++;
+            }
+        }
+        return shortcuts;
+    }
+
+    public static ContractionHierarchy build(
+        Graph graph,
+        int concurrency,
+        ExecutorService executorService,
+        ProgressTracker progressTracker
+    ) {
+        return build(graph, concurrency, executorService, progressTracker, () -> true);
+    }
+
+    /**
+     * @param running checked before every round of contraction, the hierarchy is incomplete once it returns false
+     */
+    public static ContractionHierarchy build(
+        Graph graph,
+        int concurrency,
+        ExecutorService executorService,
+        ProgressTracker progressTracker,
+        BooleanSupplier running
+    ) {
+        if (graph.nodeCount() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(formatWithLocale(
+                "Contraction hierarchies support at most %d nodes, the graph has %d nodes.",
+                Integer.MAX_VALUE,
+                graph.nodeCount()
+            ));
+        }
+        return new Contraction(graph, concurrency, executorService, progressTracker, running).run();
+    }
+
+    /**
+     * The upward search space of a source node, reused for all of its targets.
+     */
+    public final class ForwardSearch {
+        private final int sourceNode;
+        private final IntDoubleHashMap distances = new IntDoubleHashMap();
+        private final IntIntHashMap parentEdges = new IntIntHashMap();
+
+        // the result of the last backward search
+        private int meetingNode;
+        private double meetingCost;
+
+        ForwardSearch(int sourceNode) {
+            this.sourceNode = sourceNode;
+            var heap = new IntMinHeap();
+            distances.put(sourceNode, 0.0);
+            heap.add(sourceNode, 0.0);
+            while (!heap.isEmpty()) {
+                double cost = heap.minCost();
+                int node = heap.pop();
+                if (cost > distances.get(node)) {
+                    continue;
+                }
+                for (int i = upOffsets[node]; i < upOffsets[node + 1]; i++) {
+                    int edge = upEdges[i];
+                    int target = edgeTarget[edge];
+                    double newCost = cost + edgeWeight[edge];
+                    if (!distances.containsKey(target) || newCost < distances.get(target)) {
+                        distances.put(target, newCost);
+                        parentEdges.put(target, edge);
+                        heap.add(target, newCost);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Runs the backward upward search from the target, stopping once its smallest cost
+         * exceeds the best connection found so far.
+         *
+         * @return the shortest path, empty if the target is not reachable
+         */
+        public Optional<PathResult> pathTo(int targetNode, boolean trackRelationships) {
+            var backwardParentEdges = new IntIntHashMap();
+            if (!meet(targetNode, backwardParentEdges)) {
+                return Optional.empty();
+            }
+
+            // edges of the path in hierarchy, from source to target
+            var hierarchyEdges = new IntArrayList();
+            for (int node = meetingNode; node != sourceNode; node = edgeSource[parentEdges.get(node)]) {
+                hierarchyEdges.add(parentEdges.get(node));
+            }
+            reverse(hierarchyEdges);
+            for (int node = meetingNode; node != targetNode; node = edgeTarget[backwardParentEdges.get(node)]) {
+                hierarchyEdges.add(backwardParentEdges.get(node));
+            }
+
+            return Optional.of(unpack(sourceNode, targetNode, hierarchyEdges, trackRelationships));
+        }
+
+        /**
+         * Like {@link #pathTo(int, boolean)}, without unpacking the path.
+         *
+         * @return the cost of the shortest path, infinite if the target is not reachable
+         */
+        public double distanceTo(int targetNode) {
+            return meet(targetNode, new IntIntHashMap()) ? meetingCost : Double.POSITIVE_INFINITY;
+        }
+
+        /**
+         * Searches the node where the upward searches from source and target meet on the shortest path
+         * and keeps it with the cost of that path.
+         *
+         * @return true, iff the searches meet
+         */
+        private boolean meet(int targetNode, IntIntHashMap backwardParentEdges) {
+            var backwardDistances = new IntDoubleHashMap();
+            var heap = new IntMinHeap();
+
+            meetingCost = Double.MAX_VALUE;
+            meetingNode = -1;
+
+            backwardDistances.put(targetNode, 0.0);
+            heap.add(targetNode, 0.0);
+            while (!heap.isEmpty() && heap.minCost() < meetingCost) {
+                double cost = heap.minCost();
+                int node = heap.pop();
+                if (cost > backwardDistances.get(node)) {
+                    continue;
+                }
+                if (distances.containsKey(node) && distances.get(node) + cost < meetingCost) {
+                    meetingCost = distances.get(node) + cost;
+                    meetingNode = node;
+                }
+                for (int i = downOffsets[node]; i < downOffsets[node + 1]; i++) {
+                    int edge = downEdges[i];
+                    int source = edgeSource[edge];
+                    double newCost = cost + edgeWeight[edge];
+                    if (!backwardDistances.containsKey(source) || newCost < backwardDistances.get(source)) {
+                        backwardDistances.put(source, newCost);
+                        backwardParentEdges.put(source, edge);
+                        heap.add(source, newCost);
+                    }
+                }
+            }
+            return meetingNode != -1;
+        }
+    }
+
+    public ForwardSearch forwardSearch(int sourceNode) {
+        return new ForwardSearch(sourceNode);
+    }
+
+    /**
+     * Runs a complete upward search from the node, following outgoing relationships
+     * or, if {@code backward}, incoming relationships.
+     *
+     * @return the distances of all nodes in the upward search space
+     */
+    IntDoubleHashMap upwardDistances(int node, boolean backward) {
+        var distances = new IntDoubleHashMap();
+        var heap = new IntMinHeap();
+        int[] offsets = backward ? downOffsets : upOffsets;
+        int[] edges = backward ? downEdges : upEdges;
+        int[] endpoints = backward ? edgeSource : edgeTarget;
+
+        distances.put(node, 0.0);
+        heap.add(node, 0.0);
+        while (!heap.isEmpty()) {
+            double cost = heap.minCost();
+            int current = heap.pop();
+            if (cost > distances.get(current)) {
+                continue;
+            }
+            for (int i = offsets[current]; i < offsets[current + 1]; i++) {
+                int edge = edges[i];
+                int next = endpoints[edge];
+                double newCost = cost + edgeWeight[edge];
+                if (!distances.containsKey(next) || newCost < distances.get(next)) {
+                    distances.put(next, newCost);
+                    heap.add(next, newCost);
+                }
+            }
+        }
+        return distances;
+    }
+
+    private PathResult unpack(int sourceNode, int targetNode, IntArrayList hierarchyEdges, boolean trackRelationships) {
+        var nodeIds = new LongArrayList();
+        var costs = new DoubleArrayList();
+        var relationshipIds = new LongArrayList();
+        nodeIds.add(sourceNode);
+        costs.add(0.0);
+
+        var stack = new IntArrayDeque();
+        for (int i = hierarchyEdges.size() - 1; i >= 0; i--) {
+            stack.addLast(hierarchyEdges.get(i));
+        }
+        double cost = 0.0;
+        while (!stack.isEmpty()) {
+            int edge = stack.removeLast();
+            if (edgeFirst[edge] != NO_EDGE) {
+                stack.addLast(edgeSecond[edge]);
+                stack.addLast(edgeFirst[edge]);
+                continue;
+            }
+            cost += edgeWeight[edge];
+            nodeIds.add(edgeTarget[edge]);
+            costs.add(cost);
+            relationshipIds.add(edgeRelationshipId[edge]);
+        }
+
+        return ImmutablePathResult.builder()
+            .index(0)
+            .sourceNode(sourceNode)
+            .targetNode(targetNode)
+            .nodeIds(nodeIds.toArray())
+            .relationshipIds(trackRelationships ? relationshipIds.toArray() : EMPTY_ARRAY)
+            .costs(costs.toArray())
+            .build();
+    }
+
+    private static void reverse(IntArrayList list) {
+        for (int i = 0, j = list.size() - 1; i < j; i++, j--) {
+            int tmp = list.get(i);
+            list.set(i, list.get(j));
+            list.set(j, tmp);
+        }
+    }
+
+    /**
+     * Contracts the nodes of a graph and collects the shortcuts.
+     */
+    private static final class Contraction {
+        private final Graph graph;
+        private final int concurrency;
+        private final ExecutorService executorService;
+        private final ProgressTracker progressTracker;
+        private final BooleanSupplier running;
+        private final int nodeCount;
+
+        private final IntArrayList edgeSource = new IntArrayList();
+        private final IntArrayList edgeTarget = new IntArrayList();
+        private final DoubleArrayList edgeWeight = new DoubleArrayList();
+        private final IntArrayList edgeFirst = new IntArrayList();
+        private final IntArrayList edgeSecond = new IntArrayList();
+        private final LongArrayList edgeRelationshipId = new LongArrayList();
+
+        private final IntArrayList[] outEdges;
+        private final IntArrayList[] inEdges;
+
+        private final int[] rank;
+        // the nodes contracted in the current round
+        private final boolean[] contracting;
+        private final int[] priority;
+        private final int[] contractedNeighbours;
+
+        Contraction(Graph graph, int concurrency, ExecutorService executorService, ProgressTracker progressTracker, BooleanSupplier running) {
+            this.graph = graph;
+            this.concurrency = concurrency;
+            this.executorService = executorService;
+            this.progressTracker = progressTracker;
+            this.running = running;
+            this.nodeCount = (int) graph.nodeCount();
+            this.outEdges = new IntArrayList[nodeCount];
+            this.inEdges = new IntArrayList[nodeCount];
+            this.rank = new int[nodeCount];
+            this.contracting = new boolean[nodeCount];
+            this.priority = new int[nodeCount];
+            this.contractedNeighbours = new int[nodeCount];
+            Arrays.fill(rank, NOT_CONTRACTED);
+        }
+
+        ContractionHierarchy run() {
+            for (int node = 0; node < nodeCount; node++) {
+                outEdges[node] = new IntArrayList();
+                inEdges[node] = new IntArrayList();
+            }
+            long[] relationshipId = new long[1];
+            for (int node = 0; node < nodeCount; node++) {
+                relationshipId[0] = 0;
+                graph.forEachRelationship(node, 1.0D, (source, target, weight) -> {
+                    if (source != target) {
+                        addEdge((int) source, (int) target, weight, NO_EDGE, NO_EDGE, relationshipId[0]);
+                    }
+                    relationshipId[0]++;
+                    return true;
+                });
+            }
+
+            var remaining = new IntArrayList(nodeCount);
+            for (int node = 0; node < nodeCount; node++) {
+                remaining.add(node);
+            }
+            updatePriorities(remaining);
+
+            int nextRank = 0;
+            while (!remaining.isEmpty() && running.getAsBoolean()) {
+                var independentNodes = new IntArrayList();
+                var nextRemaining = new IntArrayList();
+                for (var cursor : remaining) {
+                    if (isLocalMinimum(cursor.value)) {
+                        independentNodes.add(cursor.value);
+                    } else {
+                        nextRemaining.add(cursor.value);
+                    }
+                }
+
+                // witness searches skip the nodes of the round, shortcuts are added afterwards
+                for (var cursor : independentNodes) {
+                    contracting[cursor.value] = true;
+                }
+                List<List<double[]>> shortcuts = new ArrayList<>(independentNodes.size());
+                for (int i = 0; i < independentNodes.size(); i++) {
+                    shortcuts.add(null);
+                }
+                forEachInParallel(independentNodes, (index, node, witnessSearch) ->
+                    shortcuts.set(index, shortcuts(node, witnessSearch)));
+
+                var touchedNeighbours = new IntIntHashMap();
+                for (int i = 0; i < independentNodes.size(); i++) {
+                    int node = independentNodes.get(i);
+                    rank[node] = nextRank++;
+                    contracting[node] = false;
+                    for (double[] shortcut : shortcuts.get(i)) {
+                        addEdge((int) shortcut[0], (int) shortcut[1], shortcut[2], (int) shortcut[3], (int) shortcut[4], DijkstraMultiplePairs.NO_RELATIONSHIP);
+                    }
+                    forEachNeighbour(node, neighbour -> {
+                        contractedNeighbours[neighbour]++;
+                        touchedNeighbours.put(neighbour, neighbour);
+                    });
+                }
+
+                var neighbours = new IntArrayList(touchedNeighbours.size());
+                for (var cursor : touchedNeighbours.keys()) {
+                    neighbours.add(cursor.value);
+                }
+                updatePriorities(neighbours);
+
+                progressTracker.logMessage(formatWithLocale(
+                    "Contracted %d nodes, %d remaining",
+                    independentNodes.size(),
+                    nextRemaining.size()
+                ));
+                remaining = nextRemaining;
+            }
+
+            return new ContractionHierarchy(
+                edgeSource.toArray(),
+                edgeTarget.toArray(),
+                edgeWeight.toArray(),
+                edgeFirst.toArray(),
+                edgeSecond.toArray(),
+                edgeRelationshipId.toArray(),
+                rank
+            );
+        }
+
+        private void addEdge(int source, int target, double weight, int first, int second, long relationshipId) {
+            int edge = edgeSource.size();
+            edgeSource.add(source);
+            edgeTarget.add(target);
+            edgeWeight.add(weight);
+            edgeFirst.add(first);
+            edgeSecond.add(second);
+            edgeRelationshipId.add(relationshipId);
+            outEdges[source].add(edge);
+            inEdges[target].add(edge);
+        }
+
+        private boolean isContracted(int node) {
+            return rank[node] != NOT_CONTRACTED;
+        }
+
+        private boolean isLocalMinimum(int node) {
+            boolean[] minimum = {true};
+            forEachNeighbour(node, neighbour -> {
+                if (priority[neighbour] < priority[node] || (priority[neighbour] == priority[node] && neighbour < node)) {
+                    minimum[0] = false;
+                }
+            });
+            return minimum[0];
+        }
+
+        private void forEachNeighbour(int node, IntConsumer consumer) {
+            for (var cursor : outEdges[node]) {
+                int neighbour = edgeTarget.get(cursor.value);
+                if (!isContracted(neighbour)) {
+                    consumer.accept(neighbour);
+                }
+            }
+            for (var cursor : inEdges[node]) {
+                int neighbour = edgeSource.get(cursor.value);
+                if (!isContracted(neighbour)) {
+                    consumer.accept(neighbour);
+                }
+            }
+        }
+
+        private void updatePriorities(IntArrayList nodes) {
+            forEachInParallel(nodes, (index, node, witnessSearch) -> {
+                int degree = 0;
+                for (var cursor : outEdges[node]) {
+                    degree += isContracted(edgeTarget.get(cursor.value)) ? 0 : 1;
+                }
+                for (var cursor : inEdges[node]) {
+                    degree += isContracted(edgeSource.get(cursor.value)) ? 0 : 1;
+                }
+                priority[node] = shortcuts(node, witnessSearch).size() - degree + contractedNeighbours[node];
+            });
+        }
+
+        private void forEachInParallel(IntArrayList nodes, NodeTask nodeTask) {
+            int batchSize = Math.max(1, (nodes.size() + concurrency - 1) / concurrency);
+            List<Runnable> tasks = new ArrayList<>();
+            for (int start = 0; start < nodes.size(); start += batchSize) {
+                int batchStart = start;
+                int batchEnd = Math.min(nodes.size(), start + batchSize);
+                tasks.add(() -> {
+                    var witnessSearch = new WitnessSearch();
+                    for (int i = batchStart; i < batchEnd; i++) {
+                        nodeTask.run(i, nodes.get(i), witnessSearch);
+                    }
+                });
+            }
+            ParallelUtil.runWithConcurrency(concurrency, tasks, executorService);
+        }
+
+        /**
+         * The shortcuts needed to contract the given node,
+         * each as {@code [source, target, weight, firstEdge, secondEdge]}.
+         */
+        private List<double[]> shortcuts(int node, WitnessSearch witnessSearch) {
+            // cheapest edge per uncontracted neighbour
+            var incoming = cheapestEdges(inEdges[node], edgeSource);
+            var outgoing = cheapestEdges(outEdges[node], edgeTarget);
+
+            List<double[]> shortcuts = new ArrayList<>();
+            if (incoming.isEmpty() || outgoing.isEmpty()) {
+                return shortcuts;
+            }
+
+            double maxOutgoingWeight = 0.0;
+            for (var cursor : outgoing.values()) {
+                maxOutgoingWeight = Math.max(maxOutgoingWeight, edgeWeight.get(cursor.value));
+            }
+
+            for (var in : incoming) {
+                int source = in.key;
+                double inWeight = edgeWeight.get(in.value);
+                witnessSearch.run(source, node, inWeight + maxOutgoingWeight);
+                for (var out : outgoing) {
+                    int target = out.key;
+                    if (target == source) {
+                        continue;
+                    }
+                    double viaWeight = inWeight + edgeWeight.get(out.value);
+                    if (witnessSearch.distance(target) > viaWeight) {
+                        shortcuts.add(new double[]{source, target, viaWeight, in.value, out.value});
+                    }
+                }
+            }
+            return shortcuts;
+        }
+
+        private IntIntHashMap cheapestEdges(IntArrayList edges, IntArrayList endpoints) {
+            var cheapest = new IntIntHashMap();
+            for (var cursor : edges) {
+                int edge = cursor.value;
+                int neighbour = endpoints.get(edge);
+                if (isContracted(neighbour)) {
+                    continue;
+                }
+                int current = cheapest.getOrDefault(neighbour, NO_EDGE);
+                if (current == NO_EDGE || edgeWeight.get(edge) < edgeWeight.get(current)) {
+                    cheapest.put(neighbour, edge);
+                }
+            }
+            return cheapest;
+        }
+
+        /**
+         * A local Dijkstra search over uncontracted nodes that ignores the node being contracted
+         * and all other nodes of the current round.
+         */
+        private final class WitnessSearch {
+            private final IntDoubleHashMap distances = new IntDoubleHashMap();
+            private final IntMinHeap heap = new IntMinHeap();
+
+            void run(int source, int ignoredNode, double maxCost) {
+                distances.clear();
+                heap.clear();
+                distances.put(source, 0.0);
+                heap.add(source, 0.0);
+                int settled = 0;
+                while (!heap.isEmpty() && settled < WITNESS_SETTLE_LIMIT) {
+                    double cost = heap.minCost();
+                    int node = heap.pop();
+                    if (cost > distances.get(node)) {
+                        continue;
+                    }
+                    if (cost > maxCost) {
+                        break;
+                    }
+                    settled++;
+                    for (var cursor : outEdges[node]) {
+                        int edge = cursor.value;
+                        int target = edgeTarget.get(edge);
+                        if (target == ignoredNode || isContracted(target) || contracting[target]) {
+                            continue;
+                        }
+                        double newCost = cost + edgeWeight.get(edge);
+                        if (!distances.containsKey(target) || newCost < distances.get(target)) {
+                            distances.put(target, newCost);
+                            heap.add(target, newCost);
+                        }
+                    }
+                }
+            }
+
+            double distance(int node) {
+                return distances.containsKey(node) ? distances.get(node) : Double.MAX_VALUE;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface IntConsumer {
+        void accept(int value);
+    }
+
+    @FunctionalInterface
+    private interface NodeTask {
+        void run(int index, int node, Contraction.WitnessSearch witnessSearch);
+    }
+}
@@ -0,0 +1,39 @@
+package com.semanticspace.shortestpath;
+
+import org.neo4j.gds.Algorithm;
+import org.neo4j.gds.api.Graph;
+import org.neo4j.gds.core.utils.progress.tasks.ProgressTracker;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Builds the contraction hierarchy of a graph ahead of the queries of the
+ * {@link SearchMode#CONTRACTION_HIERARCHY} search mode. Terminating the build discards the hierarchy.
+ */
+public final class ContractionHierarchyBuild extends Algorithm<ContractionHierarchy> {
+
+    private final Graph graph;
+    private final int concurrency;
+    private final ExecutorService executorService;
+
+    public ContractionHierarchyBuild(Graph graph, ProgressTracker progressTracker, ExecutorService executorService, int concurrency) {
+        super(progressTracker);
+        this.graph = graph;
+        this.concurrency = concurrency;
+        this.executorService = executorService;
+    }
+
+    @Override
+    public ContractionHierarchy compute() {
+        progressTracker.beginSubTask();
+        var hierarchy = ContractionHierarchy.build(graph, concurrency, executorService, progressTracker, this::running);
+        progressTracker.endSubTask();
+        // an interrupted contraction leaves nodes without rank
+        terminationFlag.assertRunning();
+        return hierarchy;
+    }
+
+    @Override
+    public void release() {
+    }
+}
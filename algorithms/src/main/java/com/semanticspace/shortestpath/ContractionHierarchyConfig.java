@@ -0,0 +1,16 @@
+package com.semanticspace.shortestpath;
+
+import org.neo4j.gds.annotation.Configuration;
+import org.neo4j.gds.annotation.ValueClass;
+import org.neo4j.gds.config.AlgoBaseConfig;
+import org.neo4j.gds.config.RelationshipWeightConfig;
+import org.neo4j.gds.core.CypherMapWrapper;
+
+@ValueClass
+@Configuration
+public interface ContractionHierarchyConfig extends AlgoBaseConfig, RelationshipWeightConfig {
+
+    static ContractionHierarchyConfig of(CypherMapWrapper userInput) {
+        return new ContractionHierarchyConfigImpl(userInput);
+    }
+}
@@ -0,0 +1,36 @@
+package com.semanticspace.shortestpath;
+
+import org.neo4j.gds.GraphAlgorithmFactory;
+import org.neo4j.gds.api.Graph;
+import org.neo4j.gds.core.concurrency.Pools;
+import org.neo4j.gds.core.utils.mem.MemoryEstimation;
+import org.neo4j.gds.core.utils.progress.tasks.ProgressTracker;
+import org.neo4j.gds.core.utils.progress.tasks.Task;
+import org.neo4j.gds.core.utils.progress.tasks.Tasks;
+
+public class ContractionHierarchyFactory extends GraphAlgorithmFactory<ContractionHierarchyBuild, ContractionHierarchyConfig> {
+
+    @Override
+    public MemoryEstimation memoryEstimation(ContractionHierarchyConfig configuration) {
+        return ContractionHierarchy.memoryEstimation();
+    }
+
+    @Override
+    public String taskName() {
+        return "ContractionHierarchy";
+    }
+
+    @Override
+    public Task progressTask(Graph graph, ContractionHierarchyConfig config) {
+        return Tasks.leaf(taskName());
+    }
+
+    @Override
+    public ContractionHierarchyBuild build(
+            Graph graph,
+            ContractionHierarchyConfig configuration,
+            ProgressTracker progressTracker
+    ) {
+        return new ContractionHierarchyBuild(graph, progressTracker, Pools.DEFAULT, configuration.concurrency());
+    }
+}
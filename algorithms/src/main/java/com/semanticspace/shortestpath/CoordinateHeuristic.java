@@ -0,0 +1,88 @@
+package com.semanticspace.shortestpath;
+
+import org.neo4j.gds.api.Graph;
+import org.neo4j.gds.api.NodeProperties;
+
+import java.util.Optional;
+
+import static org.neo4j.gds.utils.StringFormatting.formatWithLocale;
+
+/**
+ * Distance lower bounds computed from node coordinates.
+ * <p>
+ * With latitude and longitude properties the heuristic is the haversine distance
+ * in nautical miles, as in {@code gds.shortestPath.astar}. With x and y properties
+ * it is the euclidean distance in the unit of the coordinates. In both cases the
+ * relationship weights need to be given in the same unit and must not be smaller
+ * than the distance between their end nodes, otherwise paths may not be shortest.
+ */
+final class CoordinateHeuristic implements DijkstraMultiplePairs.Heuristic {
+
+    static final double EARTH_RADIUS_IN_NM = 3440.065;
+
+    private final NodeProperties first;
+    private final NodeProperties second;
+    private final boolean haversine;
+
+    private CoordinateHeuristic(NodeProperties first, NodeProperties second, boolean haversine) {
+        this.first = first;
+        this.second = second;
+        this.haversine = haversine;
+    }
+
+    static Optional<DijkstraMultiplePairs.Heuristic> of(Graph graph, DijkstraMultiplePairsConfig config) {
+        if (config.latitudeProperty().isPresent() && config.longitudeProperty().isPresent()) {
+            return Optional.of(new CoordinateHeuristic(
+                nodeProperties(graph, config.latitudeProperty().get()),
+                nodeProperties(graph, config.longitudeProperty().get()),
+                true
+            ));
+        }
+        if (config.xProperty().isPresent() && config.yProperty().isPresent()) {
+            return Optional.of(new CoordinateHeuristic(
+                nodeProperties(graph, config.xProperty().get()),
+                nodeProperties(graph, config.yProperty().get()),
+                false
+            ));
+        }
+        return Optional.empty();
+    }
+
+    private static NodeProperties nodeProperties(Graph graph, String propertyKey) {
+        if (!graph.availableNodeProperties().contains(propertyKey)) {
+            throw new IllegalArgumentException(formatWithLocale(
+                "Node property `%s` not found in graph with node properties: %s",
+                propertyKey,
+                graph.availableNodeProperties()
+            ));
+        }
+        return graph.nodeProperties(propertyKey);
+    }
+
+    @Override
+    public DijkstraMultiplePairs.HeuristicFunction towards(long targetNode) {
+        double targetFirst = first.doubleValue(targetNode);
+        double targetSecond = second.doubleValue(targetNode);
+
+        if (haversine) {
+            double targetLatitude = Math.toRadians(targetFirst);
+            double targetLongitude = Math.toRadians(targetSecond);
+            double cosTargetLatitude = Math.cos(targetLatitude);
+            return node -> {
+                double latitude = Math.toRadians(first.doubleValue(node));
+                double longitude = Math.toRadians(second.doubleValue(node));
+                double sinLatitude = Math.sin((targetLatitude - latitude) / 2);
+                double sinLongitude = Math.sin((targetLongitude - longitude) / 2);
+                double a = sinLatitude * sinLatitude +
+                           Math.cos(latitude) * cosTargetLatitude * sinLongitude * sinLongitude;
+                return 2 * EARTH_RADIUS_IN_NM * Math.asin(Math.sqrt(Math.min(1.0, a)));
+            };
+        }
+
+        return node -> {
+            double dx = targetFirst - first.doubleValue(node);
+            double dy = targetSecond - second.doubleValue(node);
+            return Math.sqrt(dx * dx + dy * dy);
+        };
+    }
+}
@@ -0,0 +1,268 @@
+package com.semanticspace.shortestpath;
+
+import com.carrotsearch.hppc.LongArrayList;
+import com.carrotsearch.hppc.LongObjectHashMap;
+import org.neo4j.gds.api.Graph;
+import org.neo4j.gds.api.RelationshipWithPropertyConsumer;
+import org.neo4j.gds.core.concurrency.ParallelUtil;
+import org.neo4j.gds.core.utils.mem.MemoryEstimation;
+import org.neo4j.gds.core.utils.mem.MemoryEstimations;
+import org.neo4j.gds.core.utils.paged.HugeAtomicLongArray;
+import org.neo4j.gds.core.utils.paged.HugeLongArray;
+import org.neo4j.gds.core.utils.partition.PartitionUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A single source search that relaxes the relationships of many nodes in parallel (delta-stepping).
+ * <p>
+ * Nodes are grouped into buckets of width {@code delta} by their tentative cost. The nodes of the
+ * smallest non-empty bucket form the frontier, whose relationships are relaxed by all threads at once.
+ * Nodes that improve into the current bucket are processed again until the bucket stays empty, after
+ * which all of its nodes are final. The search stops once every target lies in a finished bucket.
+ * <p>
+ * The arrays of a search are sized by the node count and reused by all sources of a call.
+ */
+final class DeltaSteppingSearch {
+
+    private static final long UNREACHED = Double.doubleToLongBits(Double.POSITIVE_INFINITY);
+    // updates of cost and predecessor are guarded by one of these locks, chosen by node id
+    private static final int LOCK_COUNT = 1 << 10;
+
+    private final Graph graph;
+    private final double delta;
+    private final DijkstraMultiplePairs.RelationshipFilter relationshipFilter;
+    private final int concurrency;
+    private final ExecutorService executorService;
+
+    // costs as double bits, which order like longs for non-negative costs
+    private final HugeAtomicLongArray costs;
+    // predecessors (null, if only costs are needed)
+    private final CompactLongArray predecessors;
+    // relationship ids (null, if relationships are not tracked)
+    private final CompactLongArray relationships;
+    private final Object[] locks;
+
+    // per thread graph copies and buckets of nodes waiting to be processed, keyed by bucket index
+    private final Graph[] localGraphs;
+    private final List<LongObjectHashMap<LongArrayList>> localBuckets;
+    private final LocalRelaxation[] localRelaxations;
+
+    DeltaSteppingSearch(
+        Graph graph,
+        double delta,
+        boolean trackPredecessors,
+        boolean trackRelationships,
+        DijkstraMultiplePairs.RelationshipFilter relationshipFilter,
+        int concurrency,
+        ExecutorService executorService
+    ) {
+        this.graph = graph;
+        this.delta = delta;
+        this.relationshipFilter = relationshipFilter;
+        this.concurrency = concurrency;
+        this.executorService = executorService;
+        this.costs = HugeAtomicLongArray.newArray(graph.nodeCount());
+        this.predecessors = trackPredecessors ? CompactLongArray.forNodeIds(graph.nodeCount()) : null;
+        this.relationships = trackRelationships ? CompactLongArray.forRelationshipIds(graph.nodeCount()) : null;
+        this.locks = new Object[LOCK_COUNT];
+        for (int i = 0; i < LOCK_COUNT; i++) {
+            locks[i] = new Object();
+        }
+        this.localGraphs = new Graph[concurrency];
+        this.localBuckets = new ArrayList<>(concurrency);
+        this.localRelaxations = new LocalRelaxation[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            localGraphs[i] = graph.concurrentCopy();
+            localBuckets.add(new LongObjectHashMap<>());
+            localRelaxations[i] = new LocalRelaxation(localBuckets.get(i));
+        }
+    }
+
+    static MemoryEstimation memoryEstimation(boolean trackPredecessors, boolean trackRelationships) {
+        var builder = MemoryEstimations.builder(DeltaSteppingSearch.class)
+            .perNode("costs", HugeAtomicLongArray::memoryEstimation);
+        if (trackPredecessors) {
+            builder.perNode("predecessors", CompactLongArray::nodeIdsMemoryEstimation);
+        }
+        if (trackRelationships) {
+            builder.perNode("relationship ids", CompactLongArray::relationshipIdsMemoryEstimation);
+        }
+        return builder
+            .perNode("frontier", HugeLongArray::memoryEstimation)
+            .build();
+    }
+
+    /**
+     * Computes the costs from the source until all targets are final, the remaining buckets
+     * only hold nodes above the maximum cost or the search space is exhausted.
+     */
+    void search(long sourceNode, long[] targetNodes, double maxCost, BooleanSupplier running) {
+        reset();
+        update(sourceNode, 0.0, sourceNode, DijkstraMultiplePairs.NO_RELATIONSHIP);
+
+        var frontier = new LongArrayList();
+        frontier.add(sourceNode);
+        long bucket = 0;
+        while (running.getAsBoolean()) {
+            relaxFrontier(frontier, bucket);
+
+            var currentBucket = collect(bucket);
+            if (!currentBucket.isEmpty()) {
+                frontier = currentBucket;
+                continue;
+            }
+
+            // the current bucket is done, all nodes cheaper than the next one are final
+            long nextBucket = nextBucket();
+            if (nextBucket == Long.MAX_VALUE || nextBucket * delta > maxCost || allFinal(targetNodes, nextBucket * delta)) {
+                break;
+            }
+            bucket = nextBucket;
+            frontier = collect(bucket);
+        }
+        for (var buckets : localBuckets) {
+            buckets.clear();
+        }
+    }
+
+    boolean isReached(long node) {
+        return costs.get(node) != UNREACHED;
+    }
+
+    double cost(long node) {
+        return Double.longBitsToDouble(costs.get(node));
+    }
+
+    long predecessor(long node) {
+        return predecessors.get(node);
+    }
+
+    long relationship(long node) {
+        return relationships == null ? DijkstraMultiplePairs.NO_RELATIONSHIP : relationships.get(node);
+    }
+
+    private void reset() {
+        long nodeCount = graph.nodeCount();
+        var tasks = PartitionUtils.rangePartition(concurrency, nodeCount, partition -> (Runnable) () -> {
+            long endNode = partition.startNode() + partition.nodeCount();
+            for (long node = partition.startNode(); node < endNode; node++) {
+                costs.set(node, UNREACHED);
+            }
+        }, Optional.empty());
+        ParallelUtil.run(tasks, executorService);
+    }
+
+    private void relaxFrontier(LongArrayList frontier, long bucket) {
+        int batchSize = Math.max(1, (frontier.size() + concurrency - 1) / concurrency);
+        List<Runnable> tasks = new ArrayList<>();
+        for (int start = 0, slot = 0; start < frontier.size(); start += batchSize, slot++) {
+            int batchStart = start;
+            int batchEnd = Math.min(frontier.size(), start + batchSize);
+            var localGraph = localGraphs[slot];
+            var relaxation = localRelaxations[slot];
+            tasks.add(() -> {
+                for (int i = batchStart; i < batchEnd; i++) {
+                    long node = frontier.get(i);
+                    double cost = cost(node);
+                    // the node improved into an earlier bucket and has been processed there
+                    if (bucketOf(cost) != bucket) {
+                        continue;
+                    }
+                    relaxation.cost = cost;
+                    relaxation.relationshipId = 0;
+                    localGraph.forEachRelationship(node, 1.0D, relaxation);
+                }
+            });
+        }
+        ParallelUtil.runWithConcurrency(concurrency, tasks, executorService);
+    }
+
+    private boolean update(long node, double cost, long predecessor, long relationshipId) {
+        if (cost >= cost(node)) {
+            return false;
+        }
+        synchronized (locks[(int) (node & (LOCK_COUNT - 1))]) {
+            if (cost >= cost(node)) {
+                return false;
+            }
+            costs.set(node, Double.doubleToLongBits(cost));
+            if (predecessors != null) {
+                predecessors.set(node, predecessor);
+            }
+            if (relationships != null) {
+                relationships.set(node, relationshipId);
+            }
+        }
+        return true;
+    }
+
+    private long bucketOf(double cost) {
+        return (long) (cost / delta);
+    }
+
+    private static LongArrayList bucketFor(LongObjectHashMap<LongArrayList> buckets, long bucket) {
+        var nodes = buckets.get(bucket);
+        if (nodes == null) {
+            nodes = new LongArrayList();
+            buckets.put(bucket, nodes);
+        }
+        return nodes;
+    }
+
+    /**
+     * Relaxes the relationships of a frontier node into the buckets of one thread, reused for all of its nodes.
+     */
+    private final class LocalRelaxation implements RelationshipWithPropertyConsumer {
+        private final LongObjectHashMap<LongArrayList> buckets;
+        private double cost;
+        private long relationshipId;
+
+        LocalRelaxation(LongObjectHashMap<LongArrayList> buckets) {
+            this.buckets = buckets;
+        }
+
+        @Override
+        public boolean accept(long source, long target, double weight) {
+            long id = relationshipId++;
+            if (relationshipFilter.test(source, target, id) && update(target, cost + weight, source, id)) {
+                bucketFor(buckets, bucketOf(cost + weight)).add(target);
+            }
+            return true;
+        }
+    }
+
+    private LongArrayList collect(long bucket) {
+        var nodes = new LongArrayList();
+        for (var buckets : localBuckets) {
+            var localNodes = buckets.remove(bucket);
+            if (localNodes != null) {
+                nodes.addAll(localNodes);
+            }
+        }
+        return nodes;
+    }
+
+    private long nextBucket() {
+        long next = Long.MAX_VALUE;
+        for (var buckets : localBuckets) {
+            for (var cursor : buckets.keys()) {
+                next = Math.min(next, cursor.value);
+            }
+        }
+        return next;
+    }
+
+    private boolean allFinal(long[] targetNodes, double finalCostBound) {
+        for (long target : targetNodes) {
+            if (cost(target) >= finalCostBound) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,218 @@
+package com.semanticspace.shortestpath;
+
+import org.jetbrains.annotations.Nullable;
+import org.neo4j.gds.core.utils.mem.MemoryEstimation;
+import org.neo4j.gds.core.utils.mem.MemoryEstimations;
+import org.neo4j.gds.core.utils.paged.HugeDoubleArray;
+import org.neo4j.gds.core.utils.paged.HugeIntArray;
+
+import java.util.Arrays;
+
+/**
+ * A search state backed by arrays sized by the node count of the graph, reused by all searches of a worker.
+ * <p>
+ * Every node carries the generation of the search that reached it last. Resetting the state starts a new
+ * generation, which turns all entries of previous searches into unreached nodes without touching them.
+ * <p>
+ * Heap positions are ints, and so are predecessors on graphs with fewer than 2^31 nodes. With float costs,
+ * the cost of every reached node is rounded to float precision, which halves the remaining per node array.
+ */
+final class DenseSearchState implements SearchState {
+
+    private static final int SETTLED = -1;
+
+    // generation of the search that reached the node, older generations read as unreached
+    private final HugeIntArray generations;
+    // costs as doubles or as float bits, exactly one of them is set
+    @Nullable
+    private final HugeDoubleArray costs;
+    @Nullable
+    private final HugeIntArray floatCosts;
+    // heap position of queued nodes, SETTLED for settled nodes
+    private final HugeIntArray positions;
+    // predecessors (null, if only costs are needed)
+    private final CompactLongArray predecessors;
+    // relationship ids (null, if relationships are not tracked)
+    private final CompactLongArray relationships;
+
+    private int generation;
+    @Nullable
+    private DijkstraMultiplePairs.HeuristicFunction heuristicFunction;
+
+    // queued nodes ordered by their cost plus heuristic
+    private long[] heap = new long[16];
+    private double[] keys = new double[16];
+    private int size;
+
+    DenseSearchState(long nodeCount, boolean trackPredecessors, boolean trackRelationships) {
+        this(nodeCount, trackPredecessors, trackRelationships, false);
+    }
+
+    DenseSearchState(long nodeCount, boolean trackPredecessors, boolean trackRelationships, boolean floatCosts) {
+        this.generations = HugeIntArray.newArray(nodeCount);
+        this.costs = floatCosts ? null : HugeDoubleArray.newArray(nodeCount);
+        this.floatCosts = floatCosts ? HugeIntArray.newArray(nodeCount) : null;
+        this.positions = HugeIntArray.newArray(nodeCount);
+        this.predecessors = trackPredecessors ? CompactLongArray.forNodeIds(nodeCount) : null;
+        this.relationships = trackRelationships ? CompactLongArray.forRelationshipIds(nodeCount) : null;
+        this.generation = 1;
+    }
+
+    static MemoryEstimation memoryEstimation(boolean trackPredecessors, boolean trackRelationships) {
+        return memoryEstimation(trackPredecessors, trackRelationships, false);
+    }
+
+    static MemoryEstimation memoryEstimation(boolean trackPredecessors, boolean trackRelationships, boolean floatCosts) {
+        var builder = MemoryEstimations.builder(DenseSearchState.class)
+            .perNode("generations", HugeIntArray::memoryEstimation)
+            .perNode("costs", nodeCount -> floatCosts
+                ? HugeIntArray.memoryEstimation(nodeCount)
+                : HugeDoubleArray.memoryEstimation(nodeCount))
+            .perNode("heap positions", HugeIntArray::memoryEstimation);
+        if (trackPredecessors) {
+            builder.perNode("predecessors", CompactLongArray::nodeIdsMemoryEstimation);
+        }
+        if (trackRelationships) {
+            builder.perNode("relationship ids", CompactLongArray::relationshipIdsMemoryEstimation);
+        }
+        return builder.build();
+    }
+
+    @Override
+    public void reset(@Nullable DijkstraMultiplePairs.HeuristicFunction heuristicFunction) {
+        if (++generation == Integer.MAX_VALUE) {
+            generations.fill(0);
+            generation = 1;
+        }
+        this.heuristicFunction = heuristicFunction;
+        this.size = 0;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public double minCost() {
+        return cost(heap[0]);
+    }
+
+    @Override
+    public long pop() {
+        long node = heap[0];
+        positions.set(node, SETTLED);
+        size--;
+        if (size > 0) {
+            place(heap[size], keys[size], 0);
+            siftDown(0);
+        }
+        return node;
+    }
+
+    @Override
+    public double cost(long node) {
+        return costs != null ? costs.get(node) : Float.intBitsToFloat(floatCosts.get(node));
+    }
+
+    @Override
+    public boolean isSettled(long node) {
+        return isReached(node) && positions.get(node) == SETTLED;
+    }
+
+    @Override
+    public boolean isReached(long node) {
+        return generations.get(node) == generation;
+    }
+
+    @Override
+    public void relax(long node, double cost, long predecessor, long relationshipId) {
+        int position;
+        if (!isReached(node)) {
+            generations.set(node, generation);
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            position = size++;
+        } else if (positions.get(node) == SETTLED || cost >= cost(node)) {
+            return;
+        } else {
+            position = positions.get(node);
+        }
+
+        if (costs != null) {
+            costs.set(node, cost);
+        } else {
+            // later relaxations compare against and extend the rounded cost
+            floatCosts.set(node, Float.floatToIntBits((float) cost));
+            cost = cost(node);
+        }
+        if (predecessors != null) {
+            predecessors.set(node, predecessor);
+        }
+        if (relationships != null) {
+            relationships.set(node, relationshipId);
+        }
+        double key = heuristicFunction == null ? cost : cost + heuristicFunction.applyAsDouble(node);
+        place(node, key, position);
+        siftUp(position);
+    }
+
+    @Override
+    public long predecessor(long node, long defaultValue) {
+        return predecessors != null && isReached(node) ? predecessors.get(node) : defaultValue;
+    }
+
+    @Override
+    public long relationship(long node) {
+        return relationships == null || !isReached(node)
+            ? DijkstraMultiplePairs.NO_RELATIONSHIP
+            : relationships.get(node);
+    }
+
+    private void place(long node, double key, int position) {
+        heap[position] = node;
+        keys[position] = key;
+        positions.set(node, position);
+    }
+
+    private void siftUp(int position) {
+        long node = heap[position];
+        double key = keys[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (keys[parent] <= key) {
+                break;
+            }
+            place(heap[parent], keys[parent], position);
+            position = parent;
+        }
+        place(node, key, position);
+    }
+
+    private void siftDown(int position) {
+        long node = heap[position];
+        double key = keys[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && keys[child + 1] < keys[child]) {
+                child++;
+            }
+            if (keys[child] >= key) {
+                break;
+            }
+            place(heap[child], keys[child], position);
+            position = child;
+        }
+        place(node, key, position);
+    }
+}
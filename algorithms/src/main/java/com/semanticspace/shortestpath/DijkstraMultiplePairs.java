@@ -1,11 +1,19 @@
 package com.semanticspace.shortestpath;
 
-import com.carrotsearch.hppc.BitSet;
 import com.carrotsearch.hppc.DoubleArrayDeque;
+import com.carrotsearch.hppc.DoubleArrayList;
+import com.carrotsearch.hppc.IntArrayList;
 import com.carrotsearch.hppc.LongArrayDeque;
-import org.apache.commons.lang3.mutable.MutableInt;
+import com.carrotsearch.hppc.LongArrayList;
+import com.carrotsearch.hppc.LongHashSet;
+import com.carrotsearch.hppc.LongIntHashMap;
+import com.carrotsearch.hppc.LongLongHashMap;
+import com.carrotsearch.hppc.LongObjectHashMap;
+import org.jetbrains.annotations.Nullable;
 import org.neo4j.gds.Algorithm;
 import org.neo4j.gds.api.Graph;
+import org.neo4j.gds.api.RelationshipConsumer;
+import org.neo4j.gds.api.RelationshipWithPropertyConsumer;
 import org.neo4j.gds.core.concurrency.ParallelUtil;
 import org.neo4j.gds.core.utils.mem.MemoryEstimation;
 import org.neo4j.gds.core.utils.mem.MemoryEstimations;
@@ -18,41 +26,103 @@ import org.neo4j.gds.paths.PathResult;
 import org.neo4j.gds.paths.dijkstra.DijkstraResult;
 
 import java.util.*;
+import java.util.function.IntConsumer;
 import java.util.function.LongToDoubleFunction;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.semanticspace.shortestpath.DijkstraMultiplePairs.TraversalState.CONTINUE;
+import static com.semanticspace.shortestpath.DijkstraMultiplePairs.TraversalState.EMIT_AND_CONTINUE;
 import static com.semanticspace.shortestpath.DijkstraMultiplePairs.TraversalState.EMIT_AND_STOP;
 import static java.util.concurrent.TimeUnit.*;
+import static org.neo4j.gds.utils.StringFormatting.formatWithLocale;
 
 public class DijkstraMultiplePairs extends Algorithm<DijkstraResult> {
     public static final String DESCRIPTION_SOURCE_TARGET = "The Dijkstra shortest path algorithm computes the shortest (weighted) path between one node and any other node in the graph.";
 
-    private static final long NO_RELATIONSHIP = -1;
+    static final long NO_RELATIONSHIP = -1;
+
+    // The heuristic of a source group is the minimum over its targets and is
+    // evaluated on every queue comparison. Larger groups settle most of their
+    // neighbourhood anyway and are searched without heuristic.
+    private static final int MAX_HEURISTIC_TARGETS = 32;
+
+    static final long NO_TARGET = -1;
+
+    // below this size a single search settles too few nodes per bucket to keep all threads busy
+    private static final long DELTA_STEPPING_MIN_NODE_COUNT = 100_000;
 
     private final Graph graph;
 
-    private static List<Long> sourceNodes;
+    private final DijkstraMultiplePairsConfig config;
+
+    private final List<Long> sourceNodes;
 
-    private static List<Long> targetNodes;
+    private final List<Long> targetNodes;
 
-    private final List<PathResult> allPaths = new ArrayList<>();
+    // the paths of pair i in slots i * k to i * k + k - 1 in the order of their cost, written without locks
+    // since every pair is answered by a single task, null if a pair has fewer paths or paths are streamed unordered
+    private final PathResult[] results;
+    private final ResultStreaming resultStreaming;
+    // hands results to the consumer while pairs are searched, null unless results are streamed
+    private ResultQueue resultQueue;
 
     // True, iff the algo should track relationship ids.org.neo4
     // A relationship id is the index of a relationship
     // in the adjacency list of a single node.
     private final boolean trackRelationships;
-    // relationship ids (null, if trackRelationships is false)
-    private final HugeLongLongMap relationships;
+    // false, iff only distances are returned, searches then keep costs without predecessors
+    private final boolean trackPredecessors;
+    // dense search states round costs to floats
+    private final boolean floatCosts;
+
+    // paths above either bound are dropped, searches stop once they cannot find a path within them
+    private final double maxCost;
+    private final int maxHops;
+
+    private SearchMode searchMode;
+    // unweighted graphs are searched breadth first instead of by Dijkstra
+    private boolean breadthFirst;
+    private BreadthFirstEngine breadthFirstEngine;
+    private final BreadthFirstStatistics breadthFirstStatistics = new BreadthFirstStatistics();
+
+    // searchers for the spur paths of Yen's algorithm, taken by the thread running a spur search
+    private final Queue<SpurSearcher> spurSearchers = new ConcurrentLinkedQueue<>();
+    // true, iff pairs are answered one after another and their spur searches run in parallel
+    private boolean parallelSpurSearches;
+
+    // the search state of every worker and the weight unit of radix heap keys
+    private SearchStateType searchStateType;
+    private double weightQuantum;
+    // incoming relationships, only built for the bidirectional search
+    private InverseAdjacency inverseAdjacency;
+
+    // lower bounds on the remaining cost towards a target, turns the search into A*
+    private Optional<Heuristic> heuristic;
+
+    // indices derived from the graph, shared between calls on the same named graph
+    private final GraphIndexes graphIndexes;
+
+    // proves pairs unreachable before they are searched and nodes unable to reach a target, null if pairs are not filtered
+    @Nullable
+    private ReachabilityIndex reachabilityIndex;
 
-    // path id increasing in order of exploration
-    private long pathIndex;
     // returns true if the given relationship should be traversed
     private RelationshipFilter relationshipFilter = (sourceId, targetId, relationshipId) -> true;
+    private boolean hasRelationshipFilter;
+
+    // pairs answered by the search of their reverse pair, their paths are reversed once all pairs are answered
+    private final BitSet reversedPairs = new BitSet();
 
     private final ExecutorService executorService;
     private final int concurrency;
 
+    // runs the single worker of streamed searches that occupy the executor themselves, at most one thread per core,
+    // further streaming calls wait for a thread
+    private static final ExecutorService SEQUENTIAL_STREAMING_POOL = sequentialStreamingPool();
 
     /**
      * Configure Dijkstra to compute at most one source-target shortest path.
@@ -60,19 +130,32 @@ public class DijkstraMultiplePairs extends Algorithm<DijkstraResult> {
     public static DijkstraMultiplePairs createInstance(
             Graph graph,
             DijkstraMultiplePairsConfig config,
-            Optional<HeuristicFunction> heuristicFunction,
+            Optional<Heuristic> heuristic,
             ProgressTracker progressTracker,
             ExecutorService executorService,
             int concurrency
     ) {
-        sourceNodes = config.sourceNodes();
-        targetNodes = config.targetNodes();
+        return createInstance(graph, config, heuristic, GraphIndexes.NONE, progressTracker, executorService, concurrency);
+    }
 
+    /**
+     * Configure Dijkstra to compute at most one source-target shortest path,
+     * reusing the search indices of the graph the pairs are computed on.
+     */
+    public static DijkstraMultiplePairs createInstance(
+            Graph graph,
+            DijkstraMultiplePairsConfig config,
+            Optional<Heuristic> heuristic,
+            GraphIndexes graphIndexes,
+            ProgressTracker progressTracker,
+            ExecutorService executorService,
+            int concurrency
+    ) {
         return new DijkstraMultiplePairs(
                 graph,
-                sourceNodes,
-                config.trackRelationships(),
-                heuristicFunction,
+                config,
+                heuristic,
+                graphIndexes,
                 progressTracker,
                 executorService,
                 concurrency
@@ -91,237 +174,2166 @@ public class DijkstraMultiplePairs extends Algorithm<DijkstraResult> {
                 .build();
     }
 
+    public static MemoryEstimation memoryEstimation(DijkstraMultiplePairsConfig config) {
+        var builder = MemoryEstimations.builder(DijkstraMultiplePairs.class);
+        // the orientation is not known here, directed graphs also keep their strong components
+        if (config.reachabilityFilter() == ReachabilityFilter.COMPONENTS) {
+            builder.add("components", ComponentIndex.memoryEstimation(true));
+        }
+        if (config.reachabilityFilter() == ReachabilityFilter.INTERVALS) {
+            builder.add("interval labels", IntervalIndex.memoryEstimation());
+        }
+        if (config.k() > 1) {
+            return builder
+                    .add("inverse adjacency", InverseAdjacency.memoryEstimation(true))
+                    .perThread("shortest path tree", DenseSearchState.memoryEstimation(true, true))
+                    .perThread("spur search", DenseSearchState.memoryEstimation(true, true))
+                    .build();
+        }
+        if (config.maxHops() != Integer.MAX_VALUE && config.relationshipWeightProperty() != null) {
+            // the search mode is ignored for cheapest paths within the hop limit
+            return builder
+                    .perThread("hop bounded search", HopBoundedSearch.memoryEstimation())
+                    .build();
+        }
+        if (config.searchMode() == SearchMode.BIDIRECTIONAL) {
+            builder
+                    .add("inverse adjacency", InverseAdjacency.memoryEstimation(config.trackRelationships()))
+                    .add("backward search", searchStateEstimation(config));
+        }
+        if (config.searchMode() == SearchMode.ALT) {
+            builder
+                    .add("inverse adjacency", InverseAdjacency.memoryEstimation(false))
+                    .add("landmarks", LandmarkIndex.memoryEstimation(config.landmarkCount()));
+        }
+        if (config.searchMode() == SearchMode.HUB_LABELS) {
+            builder.add("hub labels", HubLabelIndex.memoryEstimation());
+            if (config.distanceOnly()) {
+                return builder
+                        .add("inverse adjacency", InverseAdjacency.memoryEstimation(false))
+                        .build();
+            }
+        }
+        if (config.searchMode() == SearchMode.DELTA_STEPPING) {
+            return builder
+                    .add("delta-stepping", DeltaSteppingSearch.memoryEstimation(tracksPredecessors(config), config.trackRelationships()))
+                    .build();
+        }
+        if (config.searchMode() == SearchMode.AUTO
+            && config.k() == 1
+            && config.relationshipWeightProperty() != null
+            && config.latitudeProperty().isEmpty()
+            && config.xProperty().isEmpty()
+            && new HashSet<>(config.sourceNodes()).size() < config.concurrency()) {
+            // the node count is not known here, the graph may be large enough for delta-stepping
+            builder.add("delta-stepping", DeltaSteppingSearch.memoryEstimation(tracksPredecessors(config), config.trackRelationships()));
+        }
+        if (config.searchMode() == SearchMode.CONTRACTION_HIERARCHY) {
+            // the hierarchy searches only touch the upward search spaces
+            return builder
+                    .add("contraction hierarchy", ContractionHierarchy.memoryEstimation())
+                    .build();
+        }
+        if (usesBreadthFirstSearch(config) && config.searchMode() != SearchMode.BIDIRECTIONAL) {
+            var engine = config.breadthFirstEngine();
+            // multi-source searches only answer distances, paths fall back to top-down searches
+            if (!tracksPredecessors(config) && (engine == BreadthFirstEngine.MULTI_SOURCE ||
+                (engine == BreadthFirstEngine.AUTO && new HashSet<>(config.sourceNodes()).size() >= MultiSourceBreadthFirstSearch.LANES))) {
+                return builder
+                        .perThread("multi-source search", MultiSourceBreadthFirstSearch.memoryEstimation())
+                        .build();
+            }
+        }
+        if (config.breadthFirstEngine() == BreadthFirstEngine.DIRECTION_OPTIMIZING
+            && config.searchMode() != SearchMode.BIDIRECTIONAL
+            && usesBreadthFirstSearch(config)) {
+            builder
+                    .add("inverse adjacency", InverseAdjacency.memoryEstimation(config.trackRelationships()))
+                    .perThread("bottom-up frontier", DirectionOptimizingSearch.memoryEstimation());
+        }
+        return builder
+                .add("forward search", searchStateEstimation(config))
+                .build();
+    }
+
+    private static MemoryEstimation searchStateEstimation(DijkstraMultiplePairsConfig config) {
+        MemoryEstimation searchState;
+        boolean trackPredecessors = tracksPredecessors(config);
+        if (usesBreadthFirstSearch(config)) {
+            return MemoryEstimations.builder(BreadthFirstSearchState.class)
+                    .perThread("search state", BreadthFirstSearchState.memoryEstimation(trackPredecessors, config.trackRelationships()))
+                    .build();
+        }
+        switch (config.searchState()) {
+            case SPARSE:
+                searchState = SparseSearchState.memoryEstimation(trackPredecessors, config.trackRelationships());
+                break;
+            case RADIX:
+                searchState = RadixSearchState.memoryEstimation(trackPredecessors, config.trackRelationships());
+                break;
+            default:
+                searchState = DenseSearchState.memoryEstimation(trackPredecessors, config.trackRelationships(), usesFloatCosts(config));
+        }
+        // every worker keeps its own search state
+        return MemoryEstimations.builder(SearchState.class)
+                .perThread("search state", searchState)
+                .build();
+    }
+
+    /**
+     * Paths are only unpacked if they are returned, counted by their hops or compared by Yen's algorithm.
+     */
+    private static boolean tracksPredecessors(DijkstraMultiplePairsConfig config) {
+        return !config.distanceOnly() || config.k() > 1 || config.maxHops() < Integer.MAX_VALUE;
+    }
+
+    /**
+     * Yen's algorithm compares the costs of spur paths against the exact shortest path tree.
+     */
+    private static boolean usesFloatCosts(DijkstraMultiplePairsConfig config) {
+        return config.floatCosts() && config.k() == 1;
+    }
+
     private DijkstraMultiplePairs(
             Graph graph,
-            List<Long> sourceNodes,
-            boolean trackRelationships,
-            Optional<HeuristicFunction> heuristicFunction,
+            DijkstraMultiplePairsConfig config,
+            Optional<Heuristic> heuristic,
+            GraphIndexes graphIndexes,
             ProgressTracker progressTracker,
             ExecutorService executorService,
             int concurrency
     ) {
         super(progressTracker);
         this.graph = graph;
-        this.trackRelationships = trackRelationships;
-        this.relationships = trackRelationships ? new HugeLongLongMap() : null;
-        this.pathIndex = 0L;
+        this.config = config;
+        this.sourceNodes = config.sourceNodes();
+        this.targetNodes = config.targetNodes();
+        // Yen's algorithm tells paths apart by their relationships
+        this.trackRelationships = config.trackRelationships() || config.k() > 1;
+        this.trackPredecessors = tracksPredecessors(config);
+        this.floatCosts = usesFloatCosts(config);
+        this.maxCost = config.maxCost();
+        this.maxHops = config.maxHops();
+        this.resultStreaming = config.resultStreaming();
+        this.results = resultStreaming == ResultStreaming.UNORDERED
+                ? null
+                : new PathResult[Math.multiplyExact(sourceNodes.size(), config.k())];
+        this.searchMode = config.searchMode();
+        this.heuristic = heuristic;
+        this.graphIndexes = graphIndexes;
         this.concurrency = concurrency;
         this.executorService = executorService;
     }
 
-    int counter = 0;
+    /**
+     * The levels expanded by direction-optimizing breadth first searches, filled by {@link #compute()}.
+     */
+    public BreadthFirstStatistics breadthFirstStatistics() {
+        return breadthFirstStatistics;
+    }
 
     public DijkstraMultiplePairs withRelationshipFilter(RelationshipFilter relationshipFilter) {
         this.relationshipFilter = this.relationshipFilter.and(relationshipFilter);
+        this.hasRelationshipFilter = true;
         return this;
     }
 
 
     public DijkstraResult compute() {
-        int index = 0;
-
         List<PairTask> taskList = new ArrayList<>();
+        var taskBySource = new LongIntHashMap();
+        // relationship ids and filters depend on the direction a relationship is traversed in
+        boolean symmetricPairs = graph.isUndirected() && !trackRelationships && !hasRelationshipFilter;
+        reachabilityIndex = reachabilityIndex();
+        var unreachablePairs = new IntArrayList();
         for (int i = 0; i < sourceNodes.size(); i++) {
-            PairTask task = new PairTask(i, graph.toMappedNodeId(sourceNodes.get(i)), graph.toMappedNodeId(targetNodes.get(i)));
-            taskList.add(task);
-        }
+            long sourceNode = graph.toMappedNodeId(sourceNodes.get(i));
+            long targetNode = graph.toMappedNodeId(targetNodes.get(i));
 
-        progressTracker.beginSubTask();
-        ParallelUtil.runWithConcurrency(concurrency, taskList, 1, MICROSECONDS, terminationFlag, executorService);
+            // pairs proven unreachable get no task and thus no path, relationship filters only remove paths
+            if (reachabilityIndex != null && !reachabilityIndex.mayReach(sourceNode, targetNode)) {
+                unreachablePairs.add(i);
+                continue;
+            }
 
-        allPaths.sort((o1, o2) -> o1.index() > o2.index() ? 1 : -1);
-        return new DijkstraResult(allPaths.stream(), progressTracker::endSubTask);
-    }
+            // on undirected graphs, a pair whose reverse has been requested before is answered by its search
+            if (symmetricPairs && !isRequested(taskList, taskBySource, sourceNode, targetNode)
+                && isRequested(taskList, taskBySource, targetNode, sourceNode)) {
+                reversedPairs.set(i);
+                sourceNode = targetNode;
+                targetNode = graph.toMappedNodeId(sourceNodes.get(i));
+            }
 
-    private static final long[] EMPTY_ARRAY = new long[0];
+            // pairs sharing a source are answered by a single search
+            int taskIndex = taskBySource.getOrDefault(sourceNode, -1);
+            if (taskIndex == -1) {
+                taskIndex = taskList.size();
+                taskBySource.put(sourceNode, taskIndex);
+                taskList.add(new PairTask(sourceNode));
+            }
+            taskList.get(taskIndex).addTarget(targetNode, i);
+        }
 
+        searchMode = resolveSearchMode(taskList.size());
+        if (searchMode == SearchMode.ALT) {
+            heuristic = Optional.of(landmarkIndex());
+        }
 
-    class PairTask implements Runnable {
-        private final int pairIndex;
+        searchStateType = resolveSearchStateType();
+        breadthFirst = usesBreadthFirstSearch();
+        breadthFirstEngine = resolveBreadthFirstEngine(taskList.size());
 
-        private final TraversalPredicate traversalPredicate;
+        // ordered streams answer the first pairs first
+        var tasks = resultStreaming == ResultStreaming.ORDERED ? tasks(taskList) : longestExpectedFirst(tasks(taskList), concurrency);
+        var nextTask = new AtomicInteger();
 
-        private TraversalState traversalState;
-        private final HugeLongLongMap predecessors;
+        progressTracker.beginSubTask();
+        if (resultStreaming != ResultStreaming.NONE) {
+            return streamingResult(tasks, nextTask, unreachablePairs.toArray());
+        }
+        if (searchMode == SearchMode.DELTA_STEPPING || parallelSpurSearches) {
+            // every search uses all threads, sources are searched one after another
+            new Worker(tasks, nextTask).run();
+        } else {
+            List<Worker> workers = new ArrayList<>();
+            for (int i = 0; i < Math.min(concurrency, tasks.size()); i++) {
+                workers.add(new Worker(tasks, nextTask));
+            }
+            ParallelUtil.runWithConcurrency(concurrency, workers, 1, MICROSECONDS, terminationFlag, executorService);
+        }
+
+        if (usesDirectionOptimizingSearch()) {
+            progressTracker.logMessage(breadthFirstStatistics.toString());
+        }
 
-        private final HugeLongPriorityQueue queue;
+        // the slots are ordered by pair index, no sorting needed
+        var paths = Arrays.stream(results).filter(Objects::nonNull).map(this::output).filter(Objects::nonNull);
+        return new DijkstraResult(paths, progressTracker::endSubTask);
+    }
 
-        private final BitSet visited;
+    /**
+     * Starts the workers without waiting for them, the returned stream yields the paths as the workers
+     * hand them over. Closing the stream stops the workers.
+     */
+    private DijkstraResult streamingResult(List<? extends WorkerTask> tasks, AtomicInteger nextTask, int[] unreachablePairs) {
+        resultQueue = new ResultQueue();
+        if (resultStreaming == ResultStreaming.ORDERED && unreachablePairs.length > 0) {
+            // pairs without a task are answered already, later pairs must not wait for them
+            resultQueue.complete(unreachablePairs);
+        }
+        boolean sequential = searchMode == SearchMode.DELTA_STEPPING || parallelSpurSearches;
+        int workerCount = sequential ? Math.min(1, tasks.size()) : Math.min(concurrency, tasks.size());
+        if (workerCount == 0) {
+            resultQueue.finish();
+        }
 
-        private final long sourceNode;
+        var activeWorkers = new AtomicInteger(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            var worker = new Worker(tasks, nextTask);
+            Runnable streamingWorker = () -> {
+                try {
+                    worker.run();
+                } catch (RuntimeException | Error e) {
+                    resultQueue.fail(e);
+                } finally {
+                    if (activeWorkers.decrementAndGet() == 0) {
+                        if (usesDirectionOptimizingSearch()) {
+                            progressTracker.logMessage(breadthFirstStatistics.toString());
+                        }
+                        resultQueue.finish();
+                    }
+                }
+            };
+            if (sequential) {
+                // the search runs its parallel phases on the executor and waits for them,
+                // occupying one of its threads could starve them on a small pool
+                SEQUENTIAL_STREAMING_POOL.execute(streamingWorker);
+            } else {
+                executorService.execute(streamingWorker);
+            }
+        }
 
-        private final Graph localRelationshipIterator;
+        var paths = resultStreaming == ResultStreaming.ORDERED
+                ? resultQueue.ordered(results, config.k()).map(this::output).filter(Objects::nonNull)
+                : resultQueue.unordered();
+        return new DijkstraResult(paths, progressTracker::endSubTask);
+    }
 
-        public PairTask(int pairIndex, long sourceNode, long targetNode) {
-            this.pairIndex = pairIndex;
-            this.traversalPredicate = (node) -> node == targetNode ? EMIT_AND_STOP : CONTINUE;
-            this.traversalState = CONTINUE;
-            this.predecessors = new HugeLongLongMap();
-            this.localRelationshipIterator = graph.concurrentCopy();
-            this.queue = HugeLongPriorityQueue.min(graph.nodeCount());
-            this.visited = new BitSet();
-            this.sourceNode = sourceNode;
+    private static ExecutorService sequentialStreamingPool() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        var threadCount = new AtomicInteger();
+        var pool = new ThreadPoolExecutor(threads, threads, 60, SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            var thread = new Thread(runnable, "semanticspace-dijkstraMultiplePairs-stream-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // idle threads do not outlive the streams they served
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
 
-            queue.add(sourceNode, 0.0);
+    /**
+     * Applies the bounds and the output options to a path found by a task.
+     *
+     * @return the path to return or {@code null} if it exceeds the bounds
+     */
+    @Nullable
+    private PathResult output(PathResult path) {
+        // searches stop at the bounds, but may still have found paths beyond them,
+        // only the k shortest paths of Yen's algorithm are filtered by their hops
+        if (path.totalCost() > maxCost || path.nodeIds().length - 1 > maxHops) {
+            return null;
         }
+        if (reversedPairs.get((int) path.index())) {
+            path = reversed(path);
+        }
+        // paths of searches without predecessors are in the distance only form already
+        return config.distanceOnly() && trackPredecessors ? distanceOnlyPath(path) : path;
+    }
 
-        @Override
-        public void run() {
-            progressTracker.logMessage("Running task for pair " + this.pairIndex);
+    /**
+     * A search towards a single target skips nodes the reachability index proves unable to reach it.
+     * With more targets, a node would have to be checked against each of them.
+     *
+     * @return the target to prune the search towards or {@link #NO_TARGET}
+     */
+    private long prunedTarget(LongObjectHashMap<?> targets) {
+        if (reachabilityIndex == null || targets.size() != 1) {
+            return NO_TARGET;
+        }
+        return targets.keys().iterator().next().value;
+    }
 
-            var pathResultBuilder = ImmutablePathResult.builder();
+    private boolean mayReach(long node, long prunedTarget) {
+        return prunedTarget == NO_TARGET || reachabilityIndex.mayReach(node, prunedTarget);
+    }
 
-            List<PathResult> paths = new ArrayList<>();
+    private boolean streamClosed() {
+        return resultQueue != null && resultQueue.isClosed();
+    }
 
-            PathResult path = next(this.pairIndex, traversalPredicate, pathResultBuilder);
-            while (path != PathResult.EMPTY) {
-                paths.add(path);
-                path = next(this.pairIndex, traversalPredicate, pathResultBuilder);
-            }
+    private static boolean isRequested(List<PairTask> taskList, LongIntHashMap taskBySource, long sourceNode, long targetNode) {
+        int taskIndex = taskBySource.getOrDefault(sourceNode, -1);
+        return taskIndex != -1 && taskList.get(taskIndex).pairIndicesByTarget.containsKey(targetNode);
+    }
+
+    /**
+     * The same path walked from its target to its source, which costs the same on an undirected graph.
+     * Relationship ids are not tracked for reversed pairs.
+     */
+    private static PathResult reversed(PathResult path) {
+        var nodeIds = path.nodeIds();
+        var costs = path.costs();
+        var reversedNodeIds = new long[nodeIds.length];
+        var reversedCosts = new double[costs.length];
+        double totalCost = path.totalCost();
+        for (int i = 0; i < nodeIds.length; i++) {
+            reversedNodeIds[i] = nodeIds[nodeIds.length - 1 - i];
+            reversedCosts[i] = totalCost - costs[costs.length - 1 - i];
+        }
+        return ImmutablePathResult.copyOf(path)
+                .withSourceNode(path.targetNode())
+                .withTargetNode(path.sourceNode())
+                .withNodeIds(reversedNodeIds)
+                .withCosts(reversedCosts);
+    }
 
-            synchronized (allPaths) {
-                allPaths.addAll(paths);
+    /**
+     * Resolves {@link SearchMode#AUTO}. Unweighted graphs are searched breadth first. When there are fewer
+     * sources than threads on a large weighted graph, every search is parallelized by delta-stepping instead
+     * of running the sources in parallel. Keep in sync with {@link #memoryEstimation(DijkstraMultiplePairsConfig)}.
+     */
+    private SearchMode resolveSearchMode(int sourceCount) {
+        if (config.k() > 1) {
+            // Yen's algorithm runs its own searches
+            return SearchMode.DIJKSTRA;
+        }
+        if (boundsHops()) {
+            if (config.searchMode() != SearchMode.AUTO && config.searchMode() != SearchMode.DIJKSTRA) {
+                progressTracker.logMessage(formatWithLocale(
+                        "Searching the cheapest paths within %d hops, the `%s` search mode is ignored",
+                        maxHops,
+                        SearchMode.toString(config.searchMode())
+                ));
             }
+            return SearchMode.DIJKSTRA;
+        }
+        if (hasRelationshipFilter && (config.searchMode() == SearchMode.CONTRACTION_HIERARCHY || answersByHubLabels())) {
+            // the index covers all relationships of the projection, its distances would ignore the filter
+            throw new IllegalArgumentException(formatWithLocale(
+                    "The `%s` search mode does not support relationship filters.",
+                    SearchMode.toString(config.searchMode())
+            ));
+        }
+        if (config.searchMode() != SearchMode.AUTO) {
+            return config.searchMode();
+        }
+        if (!graph.hasRelationshipProperty()) {
+            // searched breadth first, which needs no buckets
+            return SearchMode.DIJKSTRA;
         }
+        if (sourceCount < concurrency && graph.nodeCount() >= DELTA_STEPPING_MIN_NODE_COUNT && heuristic.isEmpty()) {
+            return SearchMode.DELTA_STEPPING;
+        }
+        return SearchMode.DIJKSTRA;
+    }
 
-        private PathResult next(int pairIndex, TraversalPredicate traversalPredicate, ImmutablePathResult.Builder pathResultBuilder) {
-            var relationshipId = new MutableInt();
+    /**
+     * The cheapest path of a weighted graph may exceed the hop limit while a costlier one stays within it,
+     * such pairs are answered by a search over (node, hops) labels. On unweighted graphs, the cheapest
+     * paths are the ones with the fewest hops and searches simply stop at the hop limit.
+     */
+    private boolean boundsHops() {
+        return config.k() == 1 && maxHops != Integer.MAX_VALUE && graph.hasRelationshipProperty();
+    }
 
-            while (!queue.isEmpty() && running() && traversalState != EMIT_AND_STOP) {
-                var node = queue.pop();
-                var cost = queue.cost(node);
-                visited.set(node);
+    private boolean answersByHubLabels() {
+        return config.searchMode() == SearchMode.HUB_LABELS && config.distanceOnly() && maxHops == Integer.MAX_VALUE;
+    }
 
-                progressTracker.logProgress(graph.degree(node));
+    /**
+     * Every relationship of an unweighted graph costs 1.0, so the shortest paths are the ones with
+     * the fewest hops and a breadth first search finds them without a priority queue.
+     */
+    private boolean usesBreadthFirstSearch() {
+        return config.k() == 1
+               && !graph.hasRelationshipProperty()
+               && heuristic.isEmpty()
+               && config.searchState() != SearchStateType.SPARSE
+               && (searchMode == SearchMode.DIJKSTRA || searchMode == SearchMode.BIDIRECTIONAL);
+    }
 
-                localRelationshipIterator.forEachRelationship(
-                        node,
-                        1.0D,
-                        (source, target, weight) -> {
-                            if (relationshipFilter.test(source, target, relationshipId.longValue())) {
-                                updateCost(pairIndex, source, target, relationshipId.intValue(), weight + cost);
-                            }
-                            relationshipId.increment();
-                            return true;
-                        }
-                );
+    /**
+     * The deepest level a breadth first search needs to reach, every relationship costs 1.0.
+     */
+    private int maxDepth() {
+        return (int) Math.min(maxHops, Math.floor(maxCost));
+    }
 
-                traversalState = traversalPredicate.apply(node);
-                if (traversalState == EMIT_AND_STOP) {
-                    return pathResult(pairIndex, node, pathResultBuilder);
-                }
-            }
+    private boolean usesDirectionOptimizingSearch() {
+        return breadthFirst
+               && searchMode != SearchMode.BIDIRECTIONAL
+               && breadthFirstEngine == BreadthFirstEngine.DIRECTION_OPTIMIZING;
+    }
 
-            return PathResult.EMPTY;
+    /**
+     * Resolves {@link BreadthFirstEngine#AUTO}, batches with enough sources to fill
+     * all lanes of a multi-source search share their traversals. Multi-source searches
+     * only record depths, so pairs that need their paths are searched top-down.
+     */
+    private BreadthFirstEngine resolveBreadthFirstEngine(int sourceCount) {
+        var engine = config.breadthFirstEngine();
+        if (engine == BreadthFirstEngine.MULTI_SOURCE && trackPredecessors) {
+            progressTracker.logMessage("Multi-source breadth first searches only answer distances, searching paths top-down");
+            return BreadthFirstEngine.TOP_DOWN;
+        }
+        if (engine != BreadthFirstEngine.AUTO) {
+            return engine;
         }
+        return sourceCount >= MultiSourceBreadthFirstSearch.LANES && !trackPredecessors
+                ? BreadthFirstEngine.MULTI_SOURCE
+                : BreadthFirstEngine.TOP_DOWN;
+    }
 
-        private void updateCost(int pairIndex, long source, long target, long relationshipId, double newCost) {
-            // target has been visited, we already have a shortest path
-            if (visited.get(target)) {
-                return;
-            }
+    private static boolean usesBreadthFirstSearch(DijkstraMultiplePairsConfig config) {
+        var searchMode = config.searchMode();
+        return config.k() == 1
+               && config.relationshipWeightProperty() == null
+               && config.latitudeProperty().isEmpty()
+               && config.xProperty().isEmpty()
+               && config.searchState() != SearchStateType.SPARSE
+               && (searchMode == SearchMode.AUTO || searchMode == SearchMode.DIJKSTRA || searchMode == SearchMode.BIDIRECTIONAL);
+    }
 
-            if (!queue.containsElement(target)) {
-                // we see target for the first time
-                queue.add(target, newCost);
-                predecessors.put(target, source);
-                if (trackRelationships) {
-                    relationships.put(target, relationshipId);
-                }
-            } else if (newCost < queue.cost(target)) {
-                // we see target again and found a shorter path to target
-                queue.set(target, newCost);
-                predecessors.put(target, source);
-                if (trackRelationships) {
-                    relationships.put(target, relationshipId);
+    private List<? extends WorkerTask> tasks(List<PairTask> sourceTasks) {
+        if (config.k() > 1) {
+            // the shortest path trees are searched backwards, spur paths are identified by relationship ids
+            inverseAdjacency = inverseAdjacency(true);
+            List<KShortestPairTask> kShortestTasks = new ArrayList<>();
+            for (var sourceTask : sourceTasks) {
+                for (var target : sourceTask.pairIndicesByTarget) {
+                    kShortestTasks.add(new KShortestPairTask(sourceTask.sourceNode, target.key, target.value));
                 }
             }
+            parallelSpurSearches = kShortestTasks.size() < concurrency;
+            return kShortestTasks;
+        }
+        if (boundsHops()) {
+            List<HopBoundedPairTask> hopBoundedTasks = new ArrayList<>();
+            for (var sourceTask : sourceTasks) {
+                hopBoundedTasks.add(new HopBoundedPairTask(sourceTask));
+            }
+            return hopBoundedTasks;
+        }
+        if (searchMode == SearchMode.DELTA_STEPPING) {
+            var search = new DeltaSteppingSearch(graph, config.delta(), trackPredecessors, trackRelationships, relationshipFilter, concurrency, executorService);
+            List<DeltaSteppingPairTask> deltaSteppingTasks = new ArrayList<>();
+            for (var sourceTask : sourceTasks) {
+                deltaSteppingTasks.add(new DeltaSteppingPairTask(search, sourceTask));
+            }
+            return deltaSteppingTasks;
+        }
+        if (searchMode == SearchMode.HUB_LABELS) {
+            if (!answersByHubLabels()) {
+                // the labels only know distances, paths are searched
+                return sourceTasks;
+            }
+            var hubLabels = hubLabelIndex();
+            List<HubLabelPairTask> hubLabelTasks = new ArrayList<>();
+            for (var sourceTask : sourceTasks) {
+                hubLabelTasks.add(new HubLabelPairTask(hubLabels, sourceTask));
+            }
+            return hubLabelTasks;
+        }
+        if (searchMode == SearchMode.CONTRACTION_HIERARCHY) {
+            var hierarchy = contractionHierarchy();
+            List<ContractionHierarchyPairTask> hierarchyTasks = new ArrayList<>();
+            for (var sourceTask : sourceTasks) {
+                hierarchyTasks.add(new ContractionHierarchyPairTask(hierarchy, sourceTask));
+            }
+            return hierarchyTasks;
+        }
+        if (searchMode != SearchMode.BIDIRECTIONAL) {
+            if (!breadthFirst) {
+                return sourceTasks;
+            }
+            if (breadthFirstEngine == BreadthFirstEngine.MULTI_SOURCE) {
+                return multiSourceTasks(sourceTasks);
+            }
+            if (usesDirectionOptimizingSearch()) {
+                // bottom-up levels scan the incoming relationships
+                inverseAdjacency = inverseAdjacency(trackRelationships);
+            }
+            List<BreadthFirstPairTask> breadthFirstTasks = new ArrayList<>();
+            for (var sourceTask : sourceTasks) {
+                breadthFirstTasks.add(new BreadthFirstPairTask(sourceTask));
+            }
+            return breadthFirstTasks;
         }
 
+        inverseAdjacency = inverseAdjacency(trackRelationships);
 
-        private PathResult pathResult(int pairIndex, long target, ImmutablePathResult.Builder pathResultBuilder) {
-            // TODO: use LongArrayList and then ArrayUtils.reverse
-            var pathNodeIds = new LongArrayDeque();
-            var relationshipIds = trackRelationships ? new LongArrayDeque() : null;
-            var costs = new DoubleArrayDeque();
+        List<WorkerTask> pairTasks = new ArrayList<>();
+        for (var sourceTask : sourceTasks) {
+            for (var target : sourceTask.pairIndicesByTarget) {
+                pairTasks.add(breadthFirst
+                        ? new BidirectionalBreadthFirstPairTask(sourceTask.sourceNode, target.key, target.value)
+                        : new BidirectionalPairTask(sourceTask.sourceNode, target.key, target.value));
+            }
+        }
+        return pairTasks;
+    }
 
-            // We backtrack until we reach the source node.
-            // The source node is either given by Dijkstra
-            // or adjusted by Yen's algorithm.
-            var pathStart = sourceNode;
-            var lastNode = target;
-            var prevNode = lastNode;
+    /**
+     * Orders the tasks by their expected cost, most expensive first. Workers pull the next task whenever
+     * they finish one, so starting with the long tasks leaves the short ones to balance the threads at the end
+     * instead of a long task starting last and running alone. Tasks of the same expected cost keep their order.
+     * <p>
+     * The expected costs are only known from the degrees and target counts of the tasks, the costs of
+     * earlier calls are not recorded, and a task is never split, so one expensive source still runs on a single worker.
+     */
+    static List<? extends WorkerTask> longestExpectedFirst(List<? extends WorkerTask> tasks, int concurrency) {
+        if (tasks.size() <= concurrency) {
+            return tasks;
+        }
+        var costs = new long[tasks.size()];
+        var order = new Integer[tasks.size()];
+        for (int i = 0; i < costs.length; i++) {
+            costs[i] = tasks.get(i).expectedCost();
+            order[i] = i;
+        }
+        Arrays.sort(order, (i, j) -> Long.compare(costs[j], costs[i]));
 
-            while (true) {
-                pathNodeIds.addFirst(lastNode);
-                costs.addFirst(queue.cost(lastNode));
+        List<WorkerTask> orderedTasks = new ArrayList<>(tasks.size());
+        for (var i : order) {
+            orderedTasks.add(tasks.get(i));
+        }
+        return orderedTasks;
+    }
 
-                // Break if we reach the end by hitting the source node.
-                // This happens either by not having a predecessor or by
-                // arriving at the predecessor if we are a spur path from
-                // Yen's algorithm.
-                if (lastNode == pathStart) {
-                    break;
-                }
+    private List<MultiSourcePairTask> multiSourceTasks(List<PairTask> sourceTasks) {
+        // fill the lanes, but not at the cost of idle workers
+        int batchSize = Math.max(1, Math.min(
+                MultiSourceBreadthFirstSearch.LANES,
+                (sourceTasks.size() + concurrency - 1) / concurrency
+        ));
+        List<MultiSourcePairTask> batches = new ArrayList<>();
+        for (int start = 0; start < sourceTasks.size(); start += batchSize) {
+            batches.add(new MultiSourcePairTask(sourceTasks.subList(start, Math.min(sourceTasks.size(), start + batchSize))));
+        }
+        return batches;
+    }
 
-                prevNode = lastNode;
-                lastNode = predecessors.getOrDefault(lastNode, pathStart);
-                if (trackRelationships) {
-                    relationshipIds.addFirst(relationships.getOrDefault(prevNode, NO_RELATIONSHIP));
-                }
-            }
+    private InverseAdjacency inverseAdjacency(boolean withRelationshipIds) {
+        // GDS 2.0 projections are not inverse indexed, the backward searches need their own index
+        return graphIndexes.getOrCompute(indexKey("inverseAdjacency", withRelationshipIds), () -> {
+            progressTracker.logMessage("Building inverse adjacency");
+            return InverseAdjacency.of(graph, withRelationshipIds, concurrency, executorService);
+        });
+    }
 
-            return pathResultBuilder
-                    .index(pairIndex)
-                    .sourceNode(pathStart)
-                    .targetNode(target)
-                    .nodeIds(pathNodeIds.toArray())
-                    .relationshipIds(trackRelationships ? relationshipIds.toArray() : EMPTY_ARRAY)
-                    .costs(costs.toArray())
-                    .build();
+    private LandmarkIndex landmarkIndex() {
+        var key = indexKey("landmarks", config.landmarkCount(), config.landmarkSelection());
+        return graphIndexes.getOrCompute(key, () -> {
+            progressTracker.logMessage("Computing " + config.landmarkCount() + " landmarks");
+            return LandmarkIndex.compute(
+                    graph,
+                    graph.isUndirected() ? null : inverseAdjacency(false),
+                    config.landmarkCount(),
+                    config.landmarkSelection(),
+                    concurrency,
+                    executorService
+            );
+        });
+    }
+
+    private SearchState searchState(SearchStateType type) {
+        switch (type) {
+            case SPARSE:
+                return new SparseSearchState(trackPredecessors, trackRelationships);
+            case RADIX:
+                return new RadixSearchState(graph.nodeCount(), trackPredecessors, trackRelationships, weightQuantum);
+            default:
+                return new DenseSearchState(graph.nodeCount(), trackPredecessors, trackRelationships, floatCosts);
         }
+    }
 
+    /**
+     * Resolves {@link SearchStateType#AUTO} to a radix heap whenever keys are integral,
+     * either because all weights are non-negative integers or because they are quantized.
+     */
+    private SearchStateType resolveSearchStateType() {
+        var type = config.searchState();
+        if (config.k() > 1) {
+            // the shortest path trees of Yen's algorithm serve as A* heuristic, radix keys cannot order it
+            return type == SearchStateType.SPARSE ? SearchStateType.SPARSE : SearchStateType.DENSE;
+        }
+        if (type != SearchStateType.AUTO && type != SearchStateType.RADIX) {
+            return type;
+        }
+        if (config.weightQuantum() > 0) {
+            weightQuantum = config.weightQuantum();
+            progressTracker.logMessage(formatWithLocale(
+                    "Rounding relationship weights to multiples of %f. The cost of a returned path exceeds the shortest " +
+                    "by at most %f times the number of relationships on both paths.",
+                    weightQuantum,
+                    weightQuantum / 2
+            ));
+            return SearchStateType.RADIX;
+        }
+        boolean integralWeights = graphIndexes.getOrCompute(
+                indexKey("integralWeights"),
+                () -> RelationshipWeights.areNonNegativeIntegers(graph, concurrency, executorService)
+        );
+        if (integralWeights) {
+            weightQuantum = 1.0;
+            return SearchStateType.RADIX;
+        }
+        if (type == SearchStateType.RADIX) {
+            throw new IllegalArgumentException(
+                    "The `radix` search state requires non-negative integral relationship weights or a `weightQuantum`.");
+        }
+        return SearchStateType.DENSE;
     }
 
+    private HubLabelIndex hubLabelIndex() {
+        return graphIndexes.getOrCompute(indexKey("hubLabels"), () -> {
+            progressTracker.logMessage("Computing hub labels");
+            return HubLabelIndex.compute(graph, graph.isUndirected() ? null : inverseAdjacency(false), progressTracker);
+        });
+    }
 
-    @Override
-    public void release() {
-        // We do not release, since the result
-        // is lazily computed when the consumer
-        // iterates over the stream.
+    @Nullable
+    private ReachabilityIndex reachabilityIndex() {
+        switch (config.reachabilityFilter()) {
+            case COMPONENTS:
+                return componentIndex();
+            case INTERVALS:
+                if (graph.isUndirected()) {
+                    // every component reaches all of its nodes, there is nothing to label
+                    return componentIndex();
+                }
+                return graphIndexes.getOrCompute(indexKey("intervals", IntervalIndex.DIMENSIONS), () -> {
+                    progressTracker.logMessage("Computing interval labels");
+                    return IntervalIndex.compute(componentIndex(), inverseAdjacency(false), graph.nodeCount(), concurrency, executorService);
+                });
+            default:
+                return null;
+        }
     }
 
-    enum TraversalState {
-        EMIT_AND_STOP,
-        CONTINUE,
+    private ComponentIndex componentIndex() {
+        return graphIndexes.getOrCompute(indexKey("components"), () -> {
+            progressTracker.logMessage("Computing connected components");
+            return ComponentIndex.compute(
+                    graph,
+                    graph.isUndirected() ? null : inverseAdjacency(false),
+                    concurrency,
+                    executorService,
+                    progressTracker
+            );
+        });
     }
 
-    @FunctionalInterface
-    public interface TraversalPredicate {
-        TraversalState apply(long nodeId);
+    private ContractionHierarchy contractionHierarchy() {
+        // usually built ahead by the contractionHierarchy.build procedure
+        return graphIndexes.getOrCompute(ContractionHierarchy.indexKey(config), () -> {
+            progressTracker.logMessage("Building contraction hierarchy");
+            // a terminated query releases the lock of the index early, without caching the incomplete hierarchy
+            var hierarchy = ContractionHierarchy.build(graph, concurrency, executorService, progressTracker, this::running);
+            terminationFlag.assertRunning();
+            return hierarchy;
+        });
     }
 
-    @FunctionalInterface
-    public interface RelationshipFilter {
-        boolean test(long source, long target, long relationshipId);
+    private String indexKey(String kind, Object... parameters) {
+        return GraphIndexes.key(config, kind, parameters);
+    }
 
-        default RelationshipFilter and(RelationshipFilter after) {
-            return (sourceNodeId, targetNodeId, relationshipId) ->
-                    this.test(sourceNodeId, targetNodeId, relationshipId) &&
-                            after.test(sourceNodeId, targetNodeId, relationshipId);
-        }
+    private static final long[] EMPTY_ARRAY = new long[0];
+
+    /**
+     * Stores the shortest path of its pair.
+     */
+    private void emit(PathResult path) {
+        emit(path, 0);
     }
 
-    private static HugeLongPriorityQueue minPriorityQueue(long capacity, HeuristicFunction heuristicFunction) {
-        return new HugeLongPriorityQueue(capacity) {
-            @Override
-            protected boolean lessThan(long a, long b) {
-                return heuristicFunction.applyAsDouble(a) + costValues.get(a) < heuristicFunction.applyAsDouble(b) + costValues.get(b);
+    /**
+     * Stores a path of its pair with the given rank among the k shortest paths.
+     * Results are read once all workers have finished or the pair has been passed through the result queue,
+     * either of which publishes the writes. Unordered streams hand the path to the consumer right away.
+     */
+    private void emit(PathResult path, int rank) {
+        if (resultStreaming == ResultStreaming.UNORDERED) {
+            var output = output(path);
+            if (output != null) {
+                resultQueue.add(output);
             }
-        };
+            return;
+        }
+        results[(int) path.index() * config.k() + rank] = path;
     }
 
-    @FunctionalInterface
-    public interface HeuristicFunction extends LongToDoubleFunction {
+    /**
+     * Reduces a path to its source and target node and its total cost.
+     */
+    private static PathResult distanceOnlyPath(PathResult path) {
+        return ImmutablePathResult.copyOf(distancePath(path.sourceNode(), path.targetNode(), path.totalCost()))
+                .withIndex(path.index());
+    }
+
+    /**
+     * The distance only form of a path: its source and target node and its total cost.
+     * Its node ids are no path of the graph, the stream procedure returns neither them nor the costs.
+     */
+    private static PathResult distancePath(long sourceNode, long targetNode, double cost) {
+        var builder = ImmutablePathResult.builder()
+                .index(0)
+                .sourceNode(sourceNode)
+                .targetNode(targetNode)
+                .relationshipIds(EMPTY_ARRAY);
+        if (sourceNode == targetNode) {
+            return builder.nodeIds(sourceNode).costs(0.0).build();
+        }
+        return builder.nodeIds(sourceNode, targetNode).costs(0.0, cost).build();
+    }
+
+
+    /**
+     * A unit of work answering one or more pairs with the graph and search states of a worker.
+     */
+    interface WorkerTask {
+        void run(Worker worker);
+
+        /**
+         * Calls the consumer for the index of every pair answered by the task.
+         */
+        void forEachPairIndex(IntConsumer consumer);
+
+        /**
+         * A relative estimate of the work of the task, only used to schedule expensive tasks first.
+         */
+        default long expectedCost() {
+            return 1;
+        }
+    }
+
+    /**
+     * Runs tasks on a single thread until none is left. The graph copy and the search states
+     * are allocated once per worker and reused by all of its tasks.
+     */
+    final class Worker implements Runnable {
+        private final List<? extends WorkerTask> tasks;
+        private final AtomicInteger nextTask;
+
+        private final Graph localGraph;
+        private SearchState forwardState;
+        private SearchState backwardState;
+        // A* keys are not integral, radix heap workers use a dense state for them
+        private SearchState heuristicState;
+        private BreadthFirstSearchState breadthFirstState;
+        private BreadthFirstSearchState backwardBreadthFirstState;
+        private DirectionOptimizingSearch directionOptimizingSearch;
+        private MultiSourceBreadthFirstSearch multiSourceSearch;
+        private HopBoundedSearch hopBoundedSearch;
+        private Relaxation plainRelaxation;
+        private Relaxation.FilteredRelaxation filteredRelaxation;
+
+        Worker(List<? extends WorkerTask> tasks, AtomicInteger nextTask) {
+            this.tasks = tasks;
+            this.nextTask = nextTask;
+            this.localGraph = graph.concurrentCopy();
+        }
+
+        @Override
+        public void run() {
+            int taskIndex;
+            while (running() && !streamClosed() && (taskIndex = nextTask.getAndIncrement()) < tasks.size()) {
+                var task = tasks.get(taskIndex);
+                task.run(this);
+                if (resultStreaming == ResultStreaming.ORDERED) {
+                    var pairIndices = new IntArrayList();
+                    task.forEachPairIndex(pairIndices::add);
+                    resultQueue.complete(pairIndices.toArray());
+                }
+            }
+        }
+
+        SearchState forwardState(@Nullable HeuristicFunction heuristicFunction) {
+            if (heuristicFunction != null && searchStateType == SearchStateType.RADIX) {
+                if (heuristicState == null) {
+                    heuristicState = searchState(SearchStateType.DENSE);
+                }
+                heuristicState.reset(heuristicFunction);
+                return heuristicState;
+            }
+            if (forwardState == null) {
+                forwardState = searchState(searchStateType);
+            }
+            forwardState.reset(heuristicFunction);
+            return forwardState;
+        }
+
+        SearchState backwardState() {
+            if (backwardState == null) {
+                backwardState = searchState(searchStateType);
+            }
+            backwardState.reset(null);
+            return backwardState;
+        }
+
+        BreadthFirstSearchState breadthFirstState() {
+            if (breadthFirstState == null) {
+                breadthFirstState = new BreadthFirstSearchState(graph.nodeCount(), trackPredecessors, trackRelationships);
+            }
+            breadthFirstState.reset();
+            return breadthFirstState;
+        }
+
+        DirectionOptimizingSearch directionOptimizingSearch() {
+            if (directionOptimizingSearch == null) {
+                directionOptimizingSearch = new DirectionOptimizingSearch(
+                        localGraph,
+                        inverseAdjacency,
+                        relationshipFilter,
+                        breadthFirstStatistics,
+                        progressTracker
+                );
+            }
+            return directionOptimizingSearch;
+        }
+
+        MultiSourceBreadthFirstSearch multiSourceSearch() {
+            if (multiSourceSearch == null) {
+                multiSourceSearch = new MultiSourceBreadthFirstSearch(localGraph, relationshipFilter, progressTracker);
+            }
+            return multiSourceSearch;
+        }
+
+        HopBoundedSearch hopBoundedSearch() {
+            if (hopBoundedSearch == null) {
+                hopBoundedSearch = new HopBoundedSearch(graph.nodeCount(), relationshipFilter, progressTracker);
+            }
+            return hopBoundedSearch;
+        }
+
+        /**
+         * Relaxes relationships without numbering or filtering them if nothing depends on their ids.
+         */
+        Relaxation relaxation(long prunedTarget) {
+            if (!hasRelationshipFilter && !trackRelationships && prunedTarget == NO_TARGET) {
+                if (plainRelaxation == null) {
+                    plainRelaxation = Relaxation.plain();
+                }
+                return plainRelaxation;
+            }
+            if (filteredRelaxation == null) {
+                filteredRelaxation = Relaxation.filtered(relationshipFilter, reachabilityIndex);
+            }
+            return filteredRelaxation.towards(prunedTarget);
+        }
+
+        BreadthFirstSearchState backwardBreadthFirstState() {
+            if (backwardBreadthFirstState == null) {
+                backwardBreadthFirstState = new BreadthFirstSearchState(graph.nodeCount(), trackPredecessors, trackRelationships);
+            }
+            backwardBreadthFirstState.reset();
+            return backwardBreadthFirstState;
+        }
+    }
+
+    /**
+     * Computes the shortest paths of all pairs sharing one source node.
+     * The search settles nodes until every target of the group is reached
+     * and emits one path per original pair index.
+     */
+    class PairTask implements WorkerTask {
+        // pair indices by target node, a target may be requested by more than one pair
+        private final LongObjectHashMap<IntArrayList> pairIndicesByTarget;
+
+        private final long sourceNode;
+
+        private int settledTargets;
+        // the only target of the search if nodes unable to reach it are skipped, NO_TARGET otherwise
+        private long prunedTarget;
+
+        private TraversalState traversalState;
+
+        private SearchState state;
+
+        PairTask(long sourceNode) {
+            this.sourceNode = sourceNode;
+            this.pairIndicesByTarget = new LongObjectHashMap<>();
+        }
+
+        @Override
+        public void forEachPairIndex(IntConsumer consumer) {
+            for (var pairIndices : pairIndicesByTarget.values()) {
+                for (var pairIndex : pairIndices.value) {
+                    consumer.accept(pairIndex.value);
+                }
+            }
+        }
+
+        /**
+         * The minimum of the target heuristics, which stays consistent
+         * if each of the target heuristics is consistent.
+         */
+        private HeuristicFunction heuristicFunction(Heuristic heuristic) {
+            var targetHeuristics = new HeuristicFunction[pairIndicesByTarget.size()];
+            int i = 0;
+            for (var target : pairIndicesByTarget.keys()) {
+                targetHeuristics[i++] = heuristic.towards(target.value);
+            }
+            if (targetHeuristics.length == 1) {
+                return targetHeuristics[0];
+            }
+            return node -> {
+                double min = Double.MAX_VALUE;
+                for (var targetHeuristic : targetHeuristics) {
+                    min = Math.min(min, targetHeuristic.applyAsDouble(node));
+                }
+                return min;
+            };
+        }
+
+        /**
+         * A search settles nodes until its farthest target, sources with more relationships
+         * and more targets tend to search further.
+         */
+        @Override
+        public long expectedCost() {
+            return (1 + graph.degree(sourceNode)) * (long) pairIndicesByTarget.size();
+        }
+
+        void addTarget(long targetNode, int pairIndex) {
+            var pairIndices = pairIndicesByTarget.get(targetNode);
+            if (pairIndices == null) {
+                pairIndices = new IntArrayList();
+                pairIndicesByTarget.put(targetNode, pairIndices);
+            }
+            pairIndices.add(pairIndex);
+        }
+
+        @Override
+        public void run(Worker worker) {
+            progressTracker.logMessage("Running task for source " + graph.toOriginalNodeId(sourceNode) +
+                                       " with " + pairIndicesByTarget.size() + " targets");
+
+            this.traversalState = CONTINUE;
+            this.settledTargets = 0;
+            this.prunedTarget = prunedTarget(pairIndicesByTarget);
+            this.state = worker.forwardState(heuristic.isPresent() && pairIndicesByTarget.size() <= MAX_HEURISTIC_TARGETS
+                    ? heuristicFunction(heuristic.get())
+                    : null);
+
+            state.relax(sourceNode, 0.0, sourceNode, NO_RELATIONSHIP);
+
+            var localRelationshipIterator = worker.localGraph;
+            var relaxation = worker.relaxation(prunedTarget);
+            var pathResultBuilder = ImmutablePathResult.builder();
+
+            TraversalPredicate traversalPredicate = (node) -> {
+                if (!pairIndicesByTarget.containsKey(node)) {
+                    return CONTINUE;
+                }
+                return ++settledTargets == pairIndicesByTarget.size() ? EMIT_AND_STOP : EMIT_AND_CONTINUE;
+            };
+
+            long target = next(localRelationshipIterator, relaxation, traversalPredicate);
+            while (target != NO_TARGET) {
+                var path = pathResult(target, pathResultBuilder);
+                for (var pairIndex : pairIndicesByTarget.get(target)) {
+                    emit(ImmutablePathResult.copyOf(path).withIndex(pairIndex.value));
+                }
+                target = next(localRelationshipIterator, relaxation, traversalPredicate);
+            }
+        }
+
+        /**
+         * Settles nodes until the next target is reached.
+         *
+         * @return the settled target or {@link #NO_TARGET} if there is none left
+         */
+        private long next(Graph localRelationshipIterator, Relaxation relaxation, TraversalPredicate traversalPredicate) {
+            // remaining targets cost at least as much as the head of the queue, even for A*
+            while (!state.isEmpty() && state.minCost() <= maxCost && running() && traversalState != EMIT_AND_STOP) {
+                var node = state.pop();
+                var cost = state.cost(node);
+
+                progressTracker.logProgress(graph.degree(node));
+                relaxation.relax(localRelationshipIterator, state, node, cost);
+
+                traversalState = traversalPredicate.apply(node);
+                if (traversalState != CONTINUE) {
+                    return node;
+                }
+            }
+
+            return NO_TARGET;
+        }
+
+        private PathResult pathResult(long target, ImmutablePathResult.Builder pathResultBuilder) {
+            if (!trackPredecessors) {
+                return distancePath(sourceNode, target, state.cost(target));
+            }
+            // TODO: use LongArrayList and then ArrayUtils.reverse
+            var pathNodeIds = new LongArrayDeque();
+            var relationshipIds = trackRelationships ? new LongArrayDeque() : null;
+            var costs = new DoubleArrayDeque();
+
+            // We backtrack until we reach the source node.
+            // The source node is either given by Dijkstra
+            // or adjusted by Yen's algorithm.
+            var pathStart = sourceNode;
+            var lastNode = target;
+            var prevNode = lastNode;
+
+            while (true) {
+                pathNodeIds.addFirst(lastNode);
+                costs.addFirst(state.cost(lastNode));
+
+                // Break if we reach the end by hitting the source node.
+                // This happens either by not having a predecessor or by
+                // arriving at the predecessor if we are a spur path from
+                // Yen's algorithm.
+                if (lastNode == pathStart) {
+                    break;
+                }
+
+                prevNode = lastNode;
+                lastNode = state.predecessor(lastNode, pathStart);
+                if (trackRelationships) {
+                    relationshipIds.addFirst(state.relationship(prevNode));
+                }
+            }
+
+            return pathResultBuilder
+                    .index(0)
+                    .sourceNode(pathStart)
+                    .targetNode(target)
+                    .nodeIds(pathNodeIds.toArray())
+                    .relationshipIds(trackRelationships ? relationshipIds.toArray() : EMPTY_ARRAY)
+                    .costs(costs.toArray())
+                    .build();
+        }
+
+    }
+
+
+    /**
+     * Computes the shortest path of a single source-target pair by running a forward search
+     * from the source and a backward search from the target over the inverse adjacency.
+     * The search stops as soon as the sum of the smallest costs in both queues is not lower
+     * than the best path seen so far, which proves that path to be optimal.
+     */
+    class BidirectionalPairTask implements WorkerTask, RelationshipWithPropertyConsumer, InverseAdjacency.InverseRelationshipConsumer {
+        private final long sourceNode;
+        private final long targetNode;
+        private final IntArrayList pairIndices;
+
+        private SearchState forward;
+        // the predecessors of the backward search are the successors on the path towards the target
+        private SearchState backward;
+
+        // cost of the best path seen so far and the node where its forward and backward parts meet
+        private double bestCost;
+        private long meetingNode;
+
+        // the node being relaxed, the task is its own relationship consumer in both directions
+        private double relaxedCost;
+        private long relationshipId;
+
+        BidirectionalPairTask(long sourceNode, long targetNode, IntArrayList pairIndices) {
+            this.sourceNode = sourceNode;
+            this.targetNode = targetNode;
+            this.pairIndices = pairIndices;
+        }
+
+        @Override
+        public void forEachPairIndex(IntConsumer consumer) {
+            for (var pairIndex : pairIndices) {
+                consumer.accept(pairIndex.value);
+            }
+        }
+
+        @Override
+        public long expectedCost() {
+            return 1 + graph.degree(sourceNode) + graph.degree(targetNode);
+        }
+
+        @Override
+        public void run(Worker worker) {
+            progressTracker.logMessage("Running bidirectional task for source " + graph.toOriginalNodeId(sourceNode) +
+                                       " and target " + graph.toOriginalNodeId(targetNode));
+
+            this.forward = worker.forwardState(null);
+            this.backward = worker.backwardState();
+            this.bestCost = Double.MAX_VALUE;
+            this.meetingNode = NO_TARGET;
+
+            forward.relax(sourceNode, 0.0, sourceNode, NO_RELATIONSHIP);
+            backward.relax(targetNode, 0.0, targetNode, NO_RELATIONSHIP);
+            if (sourceNode == targetNode) {
+                bestCost = 0.0;
+                meetingNode = sourceNode;
+            }
+
+            var localRelationshipIterator = worker.localGraph;
+
+            while (!forward.isEmpty() && !backward.isEmpty() && running()) {
+                double forwardMin = forward.minCost();
+                double backwardMin = backward.minCost();
+                if (forwardMin + backwardMin >= bestCost || forwardMin + backwardMin > maxCost) {
+                    break;
+                }
+
+                // expand the side with the smaller frontier
+                if (forward.size() <= backward.size()) {
+                    var node = forward.pop();
+                    relaxedCost = forward.cost(node);
+                    progressTracker.logProgress(graph.degree(node));
+
+                    relationshipId = 0;
+                    localRelationshipIterator.forEachRelationship(node, 1.0D, this);
+                } else {
+                    var node = backward.pop();
+                    relaxedCost = backward.cost(node);
+                    progressTracker.logProgress(inverseAdjacency.degree(node));
+
+                    inverseAdjacency.forEachInverseRelationship(node, this);
+                }
+            }
+
+            if (meetingNode == NO_TARGET) {
+                return;
+            }
+
+            var path = pathResult();
+            for (var pairIndex : pairIndices) {
+                emit(ImmutablePathResult.copyOf(path).withIndex(pairIndex.value));
+            }
+        }
+
+        /**
+         * Relaxes an outgoing relationship of the node settled by the forward search.
+         */
+        @Override
+        public boolean accept(long source, long target, double weight) {
+            long id = relationshipId++;
+            if (relationshipFilter.test(source, target, id)) {
+                relaxForward(source, target, id, relaxedCost + weight);
+            }
+            return true;
+        }
+
+        /**
+         * Relaxes an incoming relationship of the node settled by the backward search.
+         */
+        @Override
+        public boolean accept(long source, long target, double weight, long inverseRelationshipId) {
+            if (relationshipFilter.test(source, target, inverseRelationshipId)) {
+                relaxBackward(source, target, inverseRelationshipId, relaxedCost + weight);
+            }
+            return true;
+        }
+
+        private void relaxForward(long source, long target, long relationshipId, double newCost) {
+            forward.relax(target, newCost, source, relationshipId);
+
+            // the backward search has already reached target, both parts form a path
+            if (backward.isReached(target)) {
+                updateMeetingNode(target);
+            }
+        }
+
+        private void relaxBackward(long source, long target, long relationshipId, double newCost) {
+            backward.relax(source, newCost, target, relationshipId);
+
+            // the forward search has already reached source, both parts form a path
+            if (forward.isReached(source)) {
+                updateMeetingNode(source);
+            }
+        }
+
+        private void updateMeetingNode(long node) {
+            double cost = forward.cost(node) + backward.cost(node);
+            if (cost < bestCost) {
+                bestCost = cost;
+                meetingNode = node;
+            }
+        }
+
+        /**
+         * Stitches the forward path from the source to the meeting node
+         * and the backward path from the meeting node to the target.
+         */
+        private PathResult pathResult() {
+            if (!trackPredecessors) {
+                return distancePath(sourceNode, targetNode, bestCost);
+            }
+            var pathNodeIds = new LongArrayDeque();
+            var relationshipIds = trackRelationships ? new LongArrayDeque() : null;
+            var costs = new DoubleArrayDeque();
+
+            var lastNode = meetingNode;
+            while (true) {
+                pathNodeIds.addFirst(lastNode);
+                costs.addFirst(forward.cost(lastNode));
+                if (lastNode == sourceNode) {
+                    break;
+                }
+                if (trackRelationships) {
+                    relationshipIds.addFirst(forward.relationship(lastNode));
+                }
+                lastNode = forward.predecessor(lastNode, sourceNode);
+            }
+
+            double totalCost = forward.cost(meetingNode) + backward.cost(meetingNode);
+            var nextNode = meetingNode;
+            while (nextNode != targetNode) {
+                if (trackRelationships) {
+                    relationshipIds.addLast(backward.relationship(nextNode));
+                }
+                nextNode = backward.predecessor(nextNode, targetNode);
+                pathNodeIds.addLast(nextNode);
+                costs.addLast(totalCost - backward.cost(nextNode));
+            }
+
+            return ImmutablePathResult.builder()
+                    .index(0)
+                    .sourceNode(sourceNode)
+                    .targetNode(targetNode)
+                    .nodeIds(pathNodeIds.toArray())
+                    .relationshipIds(trackRelationships ? relationshipIds.toArray() : EMPTY_ARRAY)
+                    .costs(costs.toArray())
+                    .build();
+        }
+    }
+
+    /**
+     * Computes the paths with the fewest relationships of all pairs sharing one source node on an
+     * unweighted graph. Nodes are final once they are reached, so the search stops as soon as
+     * the last target is reached instead of when it is taken from the queue.
+     */
+    class BreadthFirstPairTask implements WorkerTask, RelationshipConsumer {
+        private final PairTask sourceTask;
+
+        // the node being expanded by the top-down search, the task is its own relationship consumer
+        private BreadthFirstSearchState state;
+        private long prunedTarget;
+        private int reachedTargets;
+        private long relationshipId;
+
+        BreadthFirstPairTask(PairTask sourceTask) {
+            this.sourceTask = sourceTask;
+        }
+
+        @Override
+        public void forEachPairIndex(IntConsumer consumer) {
+            sourceTask.forEachPairIndex(consumer);
+        }
+
+        @Override
+        public long expectedCost() {
+            return sourceTask.expectedCost();
+        }
+
+        @Override
+        public void run(Worker worker) {
+            long sourceNode = sourceTask.sourceNode;
+            var targets = sourceTask.pairIndicesByTarget;
+            progressTracker.logMessage("Running breadth first task for source " + graph.toOriginalNodeId(sourceNode) +
+                                       " with " + targets.size() + " targets");
+
+            var state = worker.breadthFirstState();
+            if (usesDirectionOptimizingSearch()) {
+                worker.directionOptimizingSearch().search(state, sourceNode, targets, maxDepth(), DijkstraMultiplePairs.this::running);
+            } else {
+                topDownSearch(worker.localGraph, state, sourceNode);
+            }
+
+            for (var target : targets) {
+                if (!state.isReached(target.key)) {
+                    continue;
+                }
+                var path = pathResult(state, sourceNode, target.key);
+                for (var pairIndex : target.value) {
+                    emit(ImmutablePathResult.copyOf(path).withIndex(pairIndex.value));
+                }
+            }
+        }
+
+        private void topDownSearch(Graph localRelationshipIterator, BreadthFirstSearchState state, long sourceNode) {
+            var targets = sourceTask.pairIndicesByTarget;
+            this.state = state;
+            this.prunedTarget = prunedTarget(targets);
+            state.visit(sourceNode, sourceNode, NO_RELATIONSHIP);
+            this.reachedTargets = targets.containsKey(sourceNode) ? 1 : 0;
+
+            int maxDepth = maxDepth();
+            while (reachedTargets < targets.size() && !state.isEmpty() && running()) {
+                var node = state.pop();
+                if (state.depth(node) >= maxDepth) {
+                    // nodes are popped by depth, the remaining ones only reach nodes beyond the bound
+                    break;
+                }
+                progressTracker.logProgress(graph.degree(node));
+
+                relationshipId = 0;
+                localRelationshipIterator.forEachRelationship(node, this);
+            }
+        }
+
+        @Override
+        public boolean accept(long source, long target) {
+            long id = relationshipId++;
+            var targets = sourceTask.pairIndicesByTarget;
+            if (relationshipFilter.test(source, target, id) && mayReach(target, prunedTarget)
+                && state.visit(target, source, id) && targets.containsKey(target)) {
+                reachedTargets++;
+            }
+            return reachedTargets < targets.size();
+        }
+
+        private PathResult pathResult(BreadthFirstSearchState state, long sourceNode, long targetNode) {
+            if (!trackPredecessors) {
+                return distancePath(sourceNode, targetNode, state.depth(targetNode));
+            }
+            var pathNodeIds = new LongArrayDeque();
+            var relationshipIds = trackRelationships ? new LongArrayDeque() : null;
+            var costs = new DoubleArrayDeque();
+
+            var lastNode = targetNode;
+            while (true) {
+                pathNodeIds.addFirst(lastNode);
+                costs.addFirst(state.depth(lastNode));
+                if (lastNode == sourceNode) {
+                    break;
+                }
+                if (trackRelationships) {
+                    relationshipIds.addFirst(state.relationship(lastNode));
+                }
+                lastNode = state.predecessor(lastNode);
+            }
+
+            return ImmutablePathResult.builder()
+                    .index(0)
+                    .sourceNode(sourceNode)
+                    .targetNode(targetNode)
+                    .nodeIds(pathNodeIds.toArray())
+                    .relationshipIds(trackRelationships ? relationshipIds.toArray() : EMPTY_ARRAY)
+                    .costs(costs.toArray())
+                    .build();
+        }
+    }
+
+    /**
+     * Computes the {@code k} shortest loopless paths of a single pair with Yen's algorithm.
+     * <p>
+     * A backward search from the target settles every node reaching it, which forms the shortest path
+     * tree towards the target. The tree yields the first path and, as exact costs in the unrestricted graph,
+     * a consistent A* heuristic for every spur search, so spur searches only explore the nodes around their
+     * deviation. The spur searches of one iteration are independent and run in parallel if there are fewer
+     * pairs than threads.
+     */
+    class KShortestPairTask implements WorkerTask, InverseAdjacency.InverseRelationshipConsumer {
+        private final long sourceNode;
+        private final long targetNode;
+        private final IntArrayList pairIndices;
+
+        // the node of the shortest path tree being relaxed, the task is its own relationship consumer
+        private SearchState tree;
+        private double treeCost;
+
+        KShortestPairTask(long sourceNode, long targetNode, IntArrayList pairIndices) {
+            this.sourceNode = sourceNode;
+            this.targetNode = targetNode;
+            this.pairIndices = pairIndices;
+        }
+
+        @Override
+        public void forEachPairIndex(IntConsumer consumer) {
+            for (var pairIndex : pairIndices) {
+                consumer.accept(pairIndex.value);
+            }
+        }
+
+        /**
+         * Every further path runs a spur search per node of the previous path.
+         */
+        @Override
+        public long expectedCost() {
+            return (1 + graph.degree(sourceNode) + graph.degree(targetNode)) * (long) config.k();
+        }
+
+        @Override
+        public void run(Worker worker) {
+            progressTracker.logMessage("Running k shortest paths task for source " + graph.toOriginalNodeId(sourceNode) +
+                                       " and target " + graph.toOriginalNodeId(targetNode));
+
+            var tree = worker.backwardState();
+            shortestPathTree(tree);
+            if (!tree.isSettled(sourceNode)) {
+                return;
+            }
+            HeuristicFunction towardsTarget = node -> tree.isSettled(node) ? tree.cost(node) : Double.POSITIVE_INFINITY;
+
+            List<YenPath> shortestPaths = new ArrayList<>();
+            shortestPaths.add(treePath(tree));
+            var candidates = new PriorityQueue<YenPath>(Comparator.comparingDouble(YenPath::totalCost));
+            var knownPaths = new HashSet<YenPath>(shortestPaths);
+
+            while (shortestPaths.size() < config.k() && running()) {
+                var previous = shortestPaths.get(shortestPaths.size() - 1);
+                var spurPaths = new YenPath[previous.nodeIds.length - 1];
+                List<Runnable> spurSearches = new ArrayList<>();
+                for (int i = 0; i < spurPaths.length; i++) {
+                    int spurIndex = i;
+                    spurSearches.add(() -> spurPaths[spurIndex] = spurPath(previous, spurIndex, shortestPaths, towardsTarget));
+                }
+                if (parallelSpurSearches) {
+                    ParallelUtil.runWithConcurrency(concurrency, spurSearches, executorService);
+                } else {
+                    spurSearches.forEach(Runnable::run);
+                }
+
+                for (var spurPath : spurPaths) {
+                    if (spurPath != null && spurPath.totalCost() <= maxCost && knownPaths.add(spurPath)) {
+                        candidates.add(spurPath);
+                    }
+                }
+                if (candidates.isEmpty()) {
+                    break;
+                }
+                shortestPaths.add(candidates.poll());
+            }
+
+            for (var pairIndex : pairIndices) {
+                for (int rank = 0; rank < shortestPaths.size(); rank++) {
+                    var path = shortestPaths.get(rank);
+                    emit(ImmutablePathResult.builder()
+                            .index(pairIndex.value)
+                            .sourceNode(sourceNode)
+                            .targetNode(targetNode)
+                            .nodeIds(path.nodeIds)
+                            .relationshipIds(config.trackRelationships() ? path.relationshipIds : EMPTY_ARRAY)
+                            .costs(path.costs)
+                            .build(), rank);
+                }
+            }
+        }
+
+        private void shortestPathTree(SearchState tree) {
+            this.tree = tree;
+            tree.relax(targetNode, 0.0, targetNode, NO_RELATIONSHIP);
+            // nodes beyond the bound stay unsettled and are never part of a path within it
+            while (!tree.isEmpty() && tree.minCost() <= maxCost && running()) {
+                var node = tree.pop();
+                treeCost = tree.cost(node);
+                progressTracker.logProgress(inverseAdjacency.degree(node));
+
+                inverseAdjacency.forEachInverseRelationship(node, this);
+            }
+        }
+
+        /**
+         * Relaxes an incoming relationship of the node settled by the backward search of the shortest path tree.
+         */
+        @Override
+        public boolean accept(long source, long target, double weight, long relationshipId) {
+            if (relationshipFilter.test(source, target, relationshipId)) {
+                tree.relax(source, treeCost + weight, target, relationshipId);
+            }
+            return true;
+        }
+
+        /**
+         * Follows the tree from the source, the predecessors of the backward search lead towards the target.
+         */
+        private YenPath treePath(SearchState tree) {
+            var nodeIds = new LongArrayList();
+            var relationshipIds = new LongArrayList();
+            var costs = new DoubleArrayList();
+
+            double totalCost = tree.cost(sourceNode);
+            var node = sourceNode;
+            nodeIds.add(node);
+            costs.add(0.0);
+            while (node != targetNode) {
+                relationshipIds.add(tree.relationship(node));
+                node = tree.predecessor(node, targetNode);
+                nodeIds.add(node);
+                costs.add(totalCost - tree.cost(node));
+            }
+            return new YenPath(nodeIds.toArray(), relationshipIds.toArray(), costs.toArray());
+        }
+
+        /**
+         * Searches the cheapest path that deviates from the previous path at the given index. Relationships
+         * leaving the spur node on already known paths with the same root are excluded, as are the nodes of
+         * the root, which keeps paths loopless.
+         *
+         * @return the root followed by the spur path, {@code null} if there is no deviation
+         */
+        @Nullable
+        private YenPath spurPath(YenPath previous, int spurIndex, List<YenPath> shortestPaths, HeuristicFunction towardsTarget) {
+            long spurNode = previous.nodeIds[spurIndex];
+            var excludedRelationships = new LongHashSet();
+            for (var path : shortestPaths) {
+                if (path.hasRoot(previous, spurIndex)) {
+                    excludedRelationships.add(path.relationshipIds[spurIndex]);
+                }
+            }
+            var excludedNodes = new LongHashSet();
+            for (int i = 0; i < spurIndex; i++) {
+                excludedNodes.add(previous.nodeIds[i]);
+            }
+
+            var searcher = spurSearchers.poll();
+            if (searcher == null) {
+                searcher = new SpurSearcher();
+            }
+            try {
+                var state = searcher.state;
+                state.reset(towardsTarget);
+                state.relax(spurNode, 0.0, spurNode, NO_RELATIONSHIP);
+                searcher.spurNode = spurNode;
+                searcher.excludedNodes = excludedNodes;
+                searcher.excludedRelationships = excludedRelationships;
+                searcher.towardsTarget = towardsTarget;
+
+                double maxSpurCost = maxCost - previous.costs[spurIndex];
+                while (!state.isEmpty() && state.minCost() <= maxSpurCost && running()) {
+                    var node = state.pop();
+                    if (node == targetNode) {
+                        return previous.withSpurPath(spurIndex, state, targetNode);
+                    }
+                    searcher.cost = state.cost(node);
+                    searcher.relationshipId = 0;
+                    searcher.localGraph.forEachRelationship(node, 1.0D, searcher);
+                }
+                return null;
+            } finally {
+                spurSearchers.add(searcher);
+            }
+        }
+    }
+
+    /**
+     * A graph copy and a search state for spur searches, used by one thread at a time.
+     * The searcher relaxes the relationships of the node settled by its current spur search.
+     */
+    final class SpurSearcher implements RelationshipWithPropertyConsumer {
+        private final Graph localGraph = graph.concurrentCopy();
+        private final SearchState state = searchState(searchStateType);
+
+        private long spurNode;
+        private LongHashSet excludedNodes;
+        private LongHashSet excludedRelationships;
+        private HeuristicFunction towardsTarget;
+        private double cost;
+        private long relationshipId;
+
+        @Override
+        public boolean accept(long source, long target, double weight) {
+            long id = relationshipId++;
+            boolean excluded = excludedNodes.contains(target)
+                               || (source == spurNode && excludedRelationships.contains(id))
+                               || towardsTarget.applyAsDouble(target) == Double.POSITIVE_INFINITY;
+            if (!excluded && relationshipFilter.test(source, target, id)) {
+                state.relax(target, cost + weight, source, id);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * A path found by Yen's algorithm, equal to other paths with the same nodes and relationships.
+     */
+    static final class YenPath {
+        private final long[] nodeIds;
+        private final long[] relationshipIds;
+        private final double[] costs;
+
+        YenPath(long[] nodeIds, long[] relationshipIds, double[] costs) {
+            this.nodeIds = nodeIds;
+            this.relationshipIds = relationshipIds;
+            this.costs = costs;
+        }
+
+        double totalCost() {
+            return costs[costs.length - 1];
+        }
+
+        /**
+         * @return true, iff this path starts with the same nodes and relationships as the other path up to the given index
+         */
+        boolean hasRoot(YenPath other, int index) {
+            if (nodeIds.length <= index + 1) {
+                return false;
+            }
+            return Arrays.equals(nodeIds, 0, index + 1, other.nodeIds, 0, index + 1)
+                   && Arrays.equals(relationshipIds, 0, index, other.relationshipIds, 0, index);
+        }
+
+        /**
+         * @return the root of this path up to the spur index followed by the spur path found by the search
+         */
+        YenPath withSpurPath(int spurIndex, SearchState state, long targetNode) {
+            var spurNodeIds = new LongArrayDeque();
+            var spurRelationshipIds = new LongArrayDeque();
+            var spurCosts = new DoubleArrayDeque();
+            long spurNode = nodeIds[spurIndex];
+            for (long node = targetNode; node != spurNode; node = state.predecessor(node, spurNode)) {
+                spurNodeIds.addFirst(node);
+                spurRelationshipIds.addFirst(state.relationship(node));
+                spurCosts.addFirst(costs[spurIndex] + state.cost(node));
+            }
+
+            int length = spurIndex + 1 + spurNodeIds.size();
+            var pathNodeIds = Arrays.copyOf(nodeIds, length);
+            var pathRelationshipIds = Arrays.copyOf(relationshipIds, length - 1);
+            var pathCosts = Arrays.copyOf(costs, length);
+            System.arraycopy(spurNodeIds.toArray(), 0, pathNodeIds, spurIndex + 1, spurNodeIds.size());
+            System.arraycopy(spurRelationshipIds.toArray(), 0, pathRelationshipIds, spurIndex, spurRelationshipIds.size());
+            System.arraycopy(spurCosts.toArray(), 0, pathCosts, spurIndex + 1, spurCosts.size());
+            return new YenPath(pathNodeIds, pathRelationshipIds, pathCosts);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof YenPath)) {
+                return false;
+            }
+            var other = (YenPath) o;
+            return Arrays.equals(nodeIds, other.nodeIds) && Arrays.equals(relationshipIds, other.relationshipIds);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(nodeIds) + Arrays.hashCode(relationshipIds);
+        }
+    }
+
+    /**
+     * Computes the distances of a batch of up to 64 source groups on an unweighted graph
+     * by a single multi-source breadth first search.
+     */
+    class MultiSourcePairTask implements WorkerTask {
+        private final List<PairTask> sourceTasks;
+
+        MultiSourcePairTask(List<PairTask> sourceTasks) {
+            this.sourceTasks = sourceTasks;
+        }
+
+        @Override
+        public void forEachPairIndex(IntConsumer consumer) {
+            for (var sourceTask : sourceTasks) {
+                sourceTask.forEachPairIndex(consumer);
+            }
+        }
+
+        @Override
+        public long expectedCost() {
+            long cost = 0;
+            for (var sourceTask : sourceTasks) {
+                cost += sourceTask.expectedCost();
+            }
+            return cost;
+        }
+
+        @Override
+        public void run(Worker worker) {
+            progressTracker.logMessage("Running multi-source breadth first task for " + sourceTasks.size() + " sources");
+
+            var sourceNodes = new long[sourceTasks.size()];
+            var targetLanes = new LongLongHashMap();
+            for (int lane = 0; lane < sourceNodes.length; lane++) {
+                var sourceTask = sourceTasks.get(lane);
+                sourceNodes[lane] = sourceTask.sourceNode;
+                for (var target : sourceTask.pairIndicesByTarget.keys()) {
+                    targetLanes.put(target.value, targetLanes.getOrDefault(target.value, 0L) | (1L << lane));
+                }
+            }
+
+            var search = worker.multiSourceSearch();
+            search.search(sourceNodes, targetLanes, maxDepth(), DijkstraMultiplePairs.this::running);
+
+            for (int lane = 0; lane < sourceNodes.length; lane++) {
+                for (var target : sourceTasks.get(lane).pairIndicesByTarget) {
+                    int depth = search.depthTo(lane, target.key);
+                    if (depth == -1) {
+                        continue;
+                    }
+                    var path = distancePath(sourceNodes[lane], target.key, depth);
+                    for (var pairIndex : target.value) {
+                        emit(ImmutablePathResult.copyOf(path).withIndex(pairIndex.value));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the path with the fewest relationships of a single pair on an unweighted graph by
+     * expanding whole levels of a forward and a backward breadth first search, always on the side
+     * with the smaller frontier. Once a level connects both searches, the shortest connection
+     * found while expanding that level is a shortest path.
+     */
+    class BidirectionalBreadthFirstPairTask implements WorkerTask, RelationshipConsumer, InverseAdjacency.InverseRelationshipConsumer {
+        private final long sourceNode;
+        private final long targetNode;
+        private final IntArrayList pairIndices;
+
+        private BreadthFirstSearchState forward;
+        // the predecessors of the backward search are the successors on the path towards the target
+        private BreadthFirstSearchState backward;
+
+        private int bestDepth;
+        private long meetingNode;
+
+        // numbers the relationships of the forward node being expanded, the task is its own relationship consumer
+        private long relationshipId;
+
+        BidirectionalBreadthFirstPairTask(long sourceNode, long targetNode, IntArrayList pairIndices) {
+            this.sourceNode = sourceNode;
+            this.targetNode = targetNode;
+            this.pairIndices = pairIndices;
+        }
+
+        @Override
+        public void forEachPairIndex(IntConsumer consumer) {
+            for (var pairIndex : pairIndices) {
+                consumer.accept(pairIndex.value);
+            }
+        }
+
+        @Override
+        public long expectedCost() {
+            return 1 + graph.degree(sourceNode) + graph.degree(targetNode);
+        }
+
+        @Override
+        public void run(Worker worker) {
+            progressTracker.logMessage("Running bidirectional breadth first task for source " + graph.toOriginalNodeId(sourceNode) +
+                                       " and target " + graph.toOriginalNodeId(targetNode));
+
+            this.forward = worker.breadthFirstState();
+            this.backward = worker.backwardBreadthFirstState();
+            this.bestDepth = Integer.MAX_VALUE;
+            this.meetingNode = sourceNode == targetNode ? sourceNode : NO_TARGET;
+
+            forward.visit(sourceNode, sourceNode, NO_RELATIONSHIP);
+            backward.visit(targetNode, targetNode, NO_RELATIONSHIP);
+
+            var localRelationshipIterator = worker.localGraph;
+            int maxDepth = maxDepth();
+
+            // every expanded level adds one relationship to the paths that can still be found
+            int expandedLevels = 0;
+            while (meetingNode == NO_TARGET && expandedLevels < maxDepth && !forward.isEmpty() && !backward.isEmpty() && running()) {
+                expandedLevels++;
+                // the frontier of each side holds exactly one level
+                if (forward.frontierSize() <= backward.frontierSize()) {
+                    for (long remaining = forward.frontierSize(); remaining > 0; remaining--) {
+                        var node = forward.pop();
+                        progressTracker.logProgress(graph.degree(node));
+
+                        relationshipId = 0;
+                        localRelationshipIterator.forEachRelationship(node, this);
+                    }
+                } else {
+                    for (long remaining = backward.frontierSize(); remaining > 0; remaining--) {
+                        var node = backward.pop();
+                        progressTracker.logProgress(inverseAdjacency.degree(node));
+
+                        inverseAdjacency.forEachInverseRelationship(node, this);
+                    }
+                }
+            }
+
+            if (meetingNode == NO_TARGET) {
+                return;
+            }
+
+            var path = pathResult();
+            for (var pairIndex : pairIndices) {
+                emit(ImmutablePathResult.copyOf(path).withIndex(pairIndex.value));
+            }
+        }
+
+        /**
+         * Visits the target of an outgoing relationship of a node of the forward frontier.
+         */
+        @Override
+        public boolean accept(long source, long target) {
+            long id = relationshipId++;
+            if (relationshipFilter.test(source, target, id) && forward.visit(target, source, id) && backward.isReached(target)) {
+                updateMeetingNode(target);
+            }
+            return true;
+        }
+
+        /**
+         * Visits the source of an incoming relationship of a node of the backward frontier.
+         */
+        @Override
+        public boolean accept(long source, long target, double weight, long inverseRelationshipId) {
+            if (relationshipFilter.test(source, target, inverseRelationshipId) && backward.visit(source, target, inverseRelationshipId) && forward.isReached(source)) {
+                updateMeetingNode(source);
+            }
+            return true;
+        }
+
+        private void updateMeetingNode(long node) {
+            int depth = forward.depth(node) + backward.depth(node);
+            if (depth < bestDepth) {
+                bestDepth = depth;
+                meetingNode = node;
+            }
+        }
+
+        /**
+         * Stitches the forward path from the source to the meeting node
+         * and the backward path from the meeting node to the target.
+         */
+        private PathResult pathResult() {
+            if (!trackPredecessors) {
+                return distancePath(sourceNode, targetNode, forward.depth(meetingNode) + backward.depth(meetingNode));
+            }
+            var pathNodeIds = new LongArrayDeque();
+            var relationshipIds = trackRelationships ? new LongArrayDeque() : null;
+            var costs = new DoubleArrayDeque();
+
+            var lastNode = meetingNode;
+            while (true) {
+                pathNodeIds.addFirst(lastNode);
+                costs.addFirst(forward.depth(lastNode));
+                if (lastNode == sourceNode) {
+                    break;
+                }
+                if (trackRelationships) {
+                    relationshipIds.addFirst(forward.relationship(lastNode));
+                }
+                lastNode = forward.predecessor(lastNode);
+            }
+
+            int totalDepth = forward.depth(meetingNode) + backward.depth(meetingNode);
+            var nextNode = meetingNode;
+            while (nextNode != targetNode) {
+                if (trackRelationships) {
+                    relationshipIds.addLast(backward.relationship(nextNode));
+                }
+                nextNode = backward.predecessor(nextNode);
+                pathNodeIds.addLast(nextNode);
+                costs.addLast(totalDepth - backward.depth(nextNode));
+            }
+
+            return ImmutablePathResult.builder()
+                    .index(0)
+                    .sourceNode(sourceNode)
+                    .targetNode(targetNode)
+                    .nodeIds(pathNodeIds.toArray())
+                    .relationshipIds(trackRelationships ? relationshipIds.toArray() : EMPTY_ARRAY)
+                    .costs(costs.toArray())
+                    .build();
+        }
+    }
+
+    /**
+     * Answers the pairs of one source node on a weighted graph with the cheapest paths that have
+     * at most {@code maxHops} relationships.
+     */
+    class HopBoundedPairTask implements WorkerTask {
+        private final PairTask sourceTask;
+
+        HopBoundedPairTask(PairTask sourceTask) {
+            this.sourceTask = sourceTask;
+        }
+
+        @Override
+        public void forEachPairIndex(IntConsumer consumer) {
+            sourceTask.forEachPairIndex(consumer);
+        }
+
+        @Override
+        public long expectedCost() {
+            return sourceTask.expectedCost();
+        }
+
+        @Override
+        public void run(Worker worker) {
+            long sourceNode = sourceTask.sourceNode;
+            progressTracker.logMessage("Running hop bounded task for source " + graph.toOriginalNodeId(sourceNode) +
+                                       " with " + sourceTask.pairIndicesByTarget.size() + " targets");
+
+            var search = worker.hopBoundedSearch();
+            search.search(
+                    worker.localGraph,
+                    sourceNode,
+                    sourceTask.pairIndicesByTarget.keys().toArray(),
+                    maxHops,
+                    maxCost,
+                    DijkstraMultiplePairs.this::running
+            );
+
+            for (var target : sourceTask.pairIndicesByTarget) {
+                var path = search.pathTo(sourceNode, target.key, trackRelationships);
+                if (path == null) {
+                    continue;
+                }
+                for (var pairIndex : target.value) {
+                    emit(ImmutablePathResult.copyOf(path).withIndex(pairIndex.value));
+                }
+            }
+        }
+    }
+
+    /**
+     * Answers the pairs of one source node by a delta-stepping search that relaxes
+     * the relationships of each bucket on all threads.
+     */
+    class DeltaSteppingPairTask implements WorkerTask {
+        private final DeltaSteppingSearch search;
+        private final PairTask sourceTask;
+
+        DeltaSteppingPairTask(DeltaSteppingSearch search, PairTask sourceTask) {
+            this.search = search;
+            this.sourceTask = sourceTask;
+        }
+
+        @Override
+        public void forEachPairIndex(IntConsumer consumer) {
+            sourceTask.forEachPairIndex(consumer);
+        }
+
+        @Override
+        public void run(Worker worker) {
+            long sourceNode = sourceTask.sourceNode;
+            progressTracker.logMessage("Running delta-stepping task for source " + graph.toOriginalNodeId(sourceNode) +
+                                       " with " + sourceTask.pairIndicesByTarget.size() + " targets");
+
+            search.search(sourceNode, sourceTask.pairIndicesByTarget.keys().toArray(), maxCost, DijkstraMultiplePairs.this::running);
+
+            for (var target : sourceTask.pairIndicesByTarget) {
+                if (!search.isReached(target.key)) {
+                    continue;
+                }
+                var path = pathResult(sourceNode, target.key);
+                for (var pairIndex : target.value) {
+                    emit(ImmutablePathResult.copyOf(path).withIndex(pairIndex.value));
+                }
+            }
+        }
+
+        private PathResult pathResult(long sourceNode, long targetNode) {
+            if (!trackPredecessors) {
+                return distancePath(sourceNode, targetNode, search.cost(targetNode));
+            }
+            var pathNodeIds = new LongArrayDeque();
+            var relationshipIds = trackRelationships ? new LongArrayDeque() : null;
+            var costs = new DoubleArrayDeque();
+
+            var lastNode = targetNode;
+            while (true) {
+                pathNodeIds.addFirst(lastNode);
+                costs.addFirst(search.cost(lastNode));
+                if (lastNode == sourceNode) {
+                    break;
+                }
+                if (trackRelationships) {
+                    relationshipIds.addFirst(search.relationship(lastNode));
+                }
+                lastNode = search.predecessor(lastNode);
+            }
+
+            return ImmutablePathResult.builder()
+                    .index(0)
+                    .sourceNode(sourceNode)
+                    .targetNode(targetNode)
+                    .nodeIds(pathNodeIds.toArray())
+                    .relationshipIds(trackRelationships ? relationshipIds.toArray() : EMPTY_ARRAY)
+                    .costs(costs.toArray())
+                    .build();
+        }
+    }
+
+    /**
+     * Answers the distances of the pairs of one source node by merging hub labels.
+     */
+    class HubLabelPairTask implements WorkerTask {
+        private final HubLabelIndex hubLabels;
+        private final PairTask sourceTask;
+
+        HubLabelPairTask(HubLabelIndex hubLabels, PairTask sourceTask) {
+            this.hubLabels = hubLabels;
+            this.sourceTask = sourceTask;
+        }
+
+        @Override
+        public void forEachPairIndex(IntConsumer consumer) {
+            sourceTask.forEachPairIndex(consumer);
+        }
+
+        @Override
+        public long expectedCost() {
+            return sourceTask.pairIndicesByTarget.size();
+        }
+
+        @Override
+        public void run(Worker worker) {
+            long sourceNode = sourceTask.sourceNode;
+
+            for (var target : sourceTask.pairIndicesByTarget) {
+                double distance = hubLabels.distance(sourceNode, target.key);
+                if (distance == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                var path = distancePath(sourceNode, target.key, distance);
+                for (var pairIndex : target.value) {
+                    emit(ImmutablePathResult.copyOf(path).withIndex(pairIndex.value));
+                }
+            }
+        }
+    }
+
+    /**
+     * Answers the pairs of one source node on a contraction hierarchy. The upward search
+     * from the source is run once and shared by the backward searches of all targets.
+     * The hierarchy covers the whole projection, relationship filters are rejected up front.
+     */
+    class ContractionHierarchyPairTask implements WorkerTask {
+        private final ContractionHierarchy hierarchy;
+        private final PairTask sourceTask;
+
+        ContractionHierarchyPairTask(ContractionHierarchy hierarchy, PairTask sourceTask) {
+            this.hierarchy = hierarchy;
+            this.sourceTask = sourceTask;
+        }
+
+        @Override
+        public void forEachPairIndex(IntConsumer consumer) {
+            sourceTask.forEachPairIndex(consumer);
+        }
+
+        @Override
+        public long expectedCost() {
+            return sourceTask.pairIndicesByTarget.size();
+        }
+
+        @Override
+        public void run(Worker worker) {
+            var forwardSearch = hierarchy.forwardSearch((int) sourceTask.sourceNode);
+
+            for (var target : sourceTask.pairIndicesByTarget) {
+                if (!running()) {
+                    break;
+                }
+                Optional<PathResult> path;
+                if (trackPredecessors) {
+                    path = forwardSearch.pathTo((int) target.key, trackRelationships);
+                } else {
+                    // the meeting node alone yields the distance, neither half is unpacked
+                    double distance = forwardSearch.distanceTo((int) target.key);
+                    path = distance == Double.POSITIVE_INFINITY
+                            ? Optional.empty()
+                            : Optional.of(distancePath(sourceTask.sourceNode, target.key, distance));
+                }
+                path.ifPresent(found -> {
+                    for (var pairIndex : target.value) {
+                        emit(ImmutablePathResult.copyOf(found).withIndex(pairIndex.value));
+                    }
+                });
+            }
+        }
+    }
+
+
+    @Override
+    public void release() {
+        // We do not release, since the result
+        // is lazily computed when the consumer
+        // iterates over the stream.
+    }
+
+    enum TraversalState {
+        EMIT_AND_STOP,
+        EMIT_AND_CONTINUE,
+        CONTINUE,
+    }
+
+    @FunctionalInterface
+    public interface TraversalPredicate {
+        TraversalState apply(long nodeId);
+    }
+
+    @FunctionalInterface
+    public interface RelationshipFilter {
+        boolean test(long source, long target, long relationshipId);
+
+        default RelationshipFilter and(RelationshipFilter after) {
+            return (sourceNodeId, targetNodeId, relationshipId) ->
+                    this.test(sourceNodeId, targetNodeId, relationshipId) &&
+                            after.test(sourceNodeId, targetNodeId, relationshipId);
+        }
+    }
+
+    @FunctionalInterface
+    public interface HeuristicFunction extends LongToDoubleFunction {
+    }
+
+    /**
+     * Creates admissible heuristics for a given target node.
+     * The heuristics need to be consistent, i.e. never overestimate the cost
+     * of a relationship, since settled nodes are never reopened.
+     */
+    @FunctionalInterface
+    public interface Heuristic {
+        HeuristicFunction towards(long targetNode);
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.semanticspace.shortestpath;
 
+import org.immutables.value.Value;
 import org.neo4j.gds.annotation.Configuration;
 import org.neo4j.gds.annotation.ValueClass;
 import org.neo4j.gds.config.AlgoBaseConfig;
@@ -11,11 +12,162 @@ import org.neo4j.gds.paths.ShortestPathBaseConfig;
 import org.neo4j.gds.paths.TrackRelationshipsConfig;
 
 import java.util.List;
+import java.util.Optional;
 
 @ValueClass
 @Configuration
 public interface DijkstraMultiplePairsConfig extends SourceNodesConfig, TargetNodesConfig, AlgoBaseConfig, RelationshipWeightConfig, TrackRelationshipsConfig {
 
+    @Value.Default
+    @Configuration.ConvertWith("com.semanticspace.shortestpath.SearchMode#parse")
+    @Configuration.ToMapValue("com.semanticspace.shortestpath.SearchMode#toString")
+    default SearchMode searchMode() {
+        return SearchMode.AUTO;
+    }
+
+    /**
+     * Pairs whose shortest path costs more are reported as unreachable, searches stop at this cost.
+     * The default is the largest finite double, range checks of Cypher maps reject infinity.
+     */
+    @Value.Default
+    @Configuration.DoubleRange(min = 0)
+    default double maxCost() {
+        return Double.MAX_VALUE;
+    }
+
+    /**
+     * Pairs are answered by the cheapest path with at most this many relationships,
+     * pairs without such a path are reported as unreachable. For {@code k > 1}, the k shortest paths are filtered instead.
+     */
+    @Value.Default
+    @Configuration.IntegerRange(min = 0)
+    default int maxHops() {
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * Bucket width of the {@link SearchMode#DELTA_STEPPING} search mode.
+     */
+    @Value.Default
+    @Configuration.DoubleRange(min = 0, minInclusive = false)
+    default double delta() {
+        return 2.0;
+    }
+
+    /**
+     * How unweighted graphs are searched breadth first.
+     */
+    @Value.Default
+    @Configuration.ConvertWith("com.semanticspace.shortestpath.BreadthFirstEngine#parse")
+    @Configuration.ToMapValue("com.semanticspace.shortestpath.BreadthFirstEngine#toString")
+    default BreadthFirstEngine breadthFirstEngine() {
+        return BreadthFirstEngine.AUTO;
+    }
+
+    /**
+     * Whether paths are handed out while the pairs are searched, in the order of the pairs or as they are found.
+     */
+    @Value.Default
+    @Configuration.ConvertWith("com.semanticspace.shortestpath.ResultStreaming#parse")
+    @Configuration.ToMapValue("com.semanticspace.shortestpath.ResultStreaming#toString")
+    default ResultStreaming resultStreaming() {
+        return ResultStreaming.NONE;
+    }
+
+    /**
+     * Whether pairs are checked against an index of the graph before they are searched.
+     */
+    @Value.Default
+    @Configuration.ConvertWith("com.semanticspace.shortestpath.ReachabilityFilter#parse")
+    @Configuration.ToMapValue("com.semanticspace.shortestpath.ReachabilityFilter#toString")
+    default ReachabilityFilter reachabilityFilter() {
+        return ReachabilityFilter.NONE;
+    }
+
+    @Value.Default
+    @Configuration.ConvertWith("com.semanticspace.shortestpath.SearchStateType#parse")
+    @Configuration.ToMapValue("com.semanticspace.shortestpath.SearchStateType#toString")
+    default SearchStateType searchState() {
+        return SearchStateType.AUTO;
+    }
+
+    /**
+     * Rounds relationship weights to multiples of this value to order nodes in a radix heap, 0 disables rounding.
+     */
+    @Value.Default
+    @Configuration.DoubleRange(min = 0)
+    default double weightQuantum() {
+        return 0.0;
+    }
+
+    /**
+     * Dense search states keep costs as floats, which halves their largest array. Costs are rounded at every node.
+     */
+    @Value.Default
+    default boolean floatCosts() {
+        return false;
+    }
+
+    /**
+     * Number of shortest loopless paths computed for every pair by Yen's algorithm.
+     */
+    @Value.Default
+    @Configuration.IntegerRange(min = 1)
+    default int k() {
+        return 1;
+    }
+
+    /**
+     * Only the total cost of every pair is returned, paths consist of their source and target node.
+     */
+    @Value.Default
+    default boolean distanceOnly() {
+        return false;
+    }
+
+    /**
+     * Number of landmarks used by the {@link SearchMode#ALT} search mode.
+     */
+    @Value.Default
+    @Configuration.IntegerRange(min = 1)
+    default int landmarkCount() {
+        return 8;
+    }
+
+    @Value.Default
+    @Configuration.ConvertWith("com.semanticspace.shortestpath.LandmarkSelection#parse")
+    @Configuration.ToMapValue("com.semanticspace.shortestpath.LandmarkSelection#toString")
+    default LandmarkSelection landmarkSelection() {
+        return LandmarkSelection.FARTHEST;
+    }
+
+    /**
+     * Latitude and longitude node properties, the search runs A* using the haversine distance in nautical miles.
+     */
+    Optional<String> latitudeProperty();
+
+    Optional<String> longitudeProperty();
+
+    /**
+     * Cartesian coordinate node properties, the search runs A* using the euclidean distance.
+     */
+    Optional<String> xProperty();
+
+    Optional<String> yProperty();
+
+    @Value.Check
+    default void validateCoordinateProperties() {
+        if (latitudeProperty().isPresent() != longitudeProperty().isPresent()) {
+            throw new IllegalArgumentException("Both `latitudeProperty` and `longitudeProperty` need to be specified.");
+        }
+        if (xProperty().isPresent() != yProperty().isPresent()) {
+            throw new IllegalArgumentException("Both `xProperty` and `yProperty` need to be specified.");
+        }
+        if (latitudeProperty().isPresent() && xProperty().isPresent()) {
+            throw new IllegalArgumentException("Only one of geographic or cartesian coordinates can be specified.");
+        }
+    }
+
     static DijkstraMultiplePairsConfig of(CypherMapWrapper userInput) {
         return new DijkstraMultiplePairsConfigImpl(userInput);
     }
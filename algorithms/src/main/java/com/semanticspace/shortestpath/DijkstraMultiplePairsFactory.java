@@ -13,8 +13,6 @@ import org.neo4j.gds.core.utils.progress.tasks.Tasks;
 import org.neo4j.gds.paths.AllShortestPathsBaseConfig;
 import org.neo4j.gds.paths.ShortestPathBaseConfig;
 
-import java.util.Optional;
-
 public abstract class DijkstraMultiplePairsFactory<T extends AlgoBaseConfig & RelationshipWeightConfig> extends GraphAlgorithmFactory<DijkstraMultiplePairs, T> {
 
     @Override
@@ -42,6 +40,22 @@ public abstract class DijkstraMultiplePairsFactory<T extends AlgoBaseConfig & Re
     }
 
     public static class MultipleSourceDijkstraFactory<T extends DijkstraMultiplePairsConfig> extends DijkstraMultiplePairsFactory<T> {
+
+        private final GraphIndexes graphIndexes;
+
+        public MultipleSourceDijkstraFactory() {
+            this(GraphIndexes.NONE);
+        }
+
+        public MultipleSourceDijkstraFactory(GraphIndexes graphIndexes) {
+            this.graphIndexes = graphIndexes;
+        }
+
+        @Override
+        public MemoryEstimation memoryEstimation(T configuration) {
+            return DijkstraMultiplePairs.memoryEstimation(configuration);
+        }
+
         @Override
         public DijkstraMultiplePairs build(
                 Graph graph,
@@ -51,7 +65,8 @@ public abstract class DijkstraMultiplePairsFactory<T extends AlgoBaseConfig & Re
             return DijkstraMultiplePairs.createInstance(
                     graph,
                     configuration,
-                    Optional.empty(),
+                    CoordinateHeuristic.of(graph, configuration),
+                    graphIndexes,
                     progressTracker,
                     Pools.DEFAULT,
                     configuration.concurrency()
@@ -0,0 +1,194 @@
+package com.semanticspace.shortestpath;
+
+import com.carrotsearch.hppc.BitSet;
+import com.carrotsearch.hppc.LongObjectHashMap;
+import org.neo4j.gds.api.Graph;
+import org.neo4j.gds.api.RelationshipConsumer;
+import org.neo4j.gds.core.utils.mem.MemoryEstimation;
+import org.neo4j.gds.core.utils.mem.MemoryEstimations;
+import org.neo4j.gds.core.utils.progress.tasks.ProgressTracker;
+import org.neo4j.gds.mem.MemoryUsage;
+
+import java.util.function.BooleanSupplier;
+
+import static org.neo4j.gds.utils.StringFormatting.formatWithLocale;
+
+/**
+ * A breadth first search that expands every level either top-down or bottom-up (Beamer et al.).
+ * <p>
+ * Top-down levels visit the relationships of all frontier nodes. Bottom-up levels mark the frontier
+ * in a bitmap and let every unreached node scan its incoming relationships until one of them starts
+ * at a frontier node, which skips most relationship checks once the frontier covers a large part of
+ * the graph. The search turns bottom-up when the relationships of the frontier exceed a fraction of
+ * the relationships not explored yet and turns top-down again when the frontier shrinks below a
+ * fraction of the nodes.
+ * <p>
+ * One instance is used by a single worker, the frontier bitmap is reused by all of its searches.
+ */
+final class DirectionOptimizingSearch {
+
+    // switch to bottom-up once the frontier has more than 1 / ALPHA of the unexplored relationships
+    private static final long ALPHA = 14;
+    // switch to top-down once the frontier has less than 1 / BETA of the nodes
+    private static final long BETA = 24;
+
+    private final Graph graph;
+    private final InverseAdjacency inverseAdjacency;
+    private final DijkstraMultiplePairs.RelationshipFilter relationshipFilter;
+    private final BreadthFirstStatistics statistics;
+    private final ProgressTracker progressTracker;
+
+    private final BitSet frontier;
+
+    // the state and targets of the current search and how many of the targets are reached
+    private BreadthFirstSearchState state;
+    private LongObjectHashMap<?> targets;
+    private int reachedTargets;
+
+    // the relationship consumers of both directions, reused for every node
+    private final TopDownRelaxation topDownRelaxation = new TopDownRelaxation();
+    private final BottomUpRelaxation bottomUpRelaxation = new BottomUpRelaxation();
+
+    /**
+     * @param graph a graph copy owned by the calling thread
+     */
+    DirectionOptimizingSearch(
+        Graph graph,
+        InverseAdjacency inverseAdjacency,
+        DijkstraMultiplePairs.RelationshipFilter relationshipFilter,
+        BreadthFirstStatistics statistics,
+        ProgressTracker progressTracker
+    ) {
+        this.graph = graph;
+        this.inverseAdjacency = inverseAdjacency;
+        this.relationshipFilter = relationshipFilter;
+        this.statistics = statistics;
+        this.progressTracker = progressTracker;
+        this.frontier = new BitSet(graph.nodeCount());
+    }
+
+    static MemoryEstimation memoryEstimation() {
+        return MemoryEstimations.builder(DirectionOptimizingSearch.class)
+            .perNode("frontier", MemoryUsage::sizeOfBitset)
+            .build();
+    }
+
+    /**
+     * Searches from the source until all targets are reached, the maximum depth is reached or the search
+     * space is exhausted. The reached nodes, their depths and predecessors are kept in the given state.
+     */
+    void search(BreadthFirstSearchState state, long sourceNode, LongObjectHashMap<?> targets, int maxDepth, BooleanSupplier running) {
+        this.state = state;
+        this.targets = targets;
+        this.reachedTargets = 0;
+        statistics.search();
+        visit(state, sourceNode, sourceNode, DijkstraMultiplePairs.NO_RELATIONSHIP);
+
+        long nodeCount = graph.nodeCount();
+        // relationships of nodes that have not been a frontier node yet, an upper bound for bottom-up scans
+        long unexploredRelationships = graph.relationshipCount();
+        boolean bottomUp = false;
+        int level = 0;
+        while (reachedTargets < targets.size() && level < maxDepth && !state.isEmpty() && running.getAsBoolean()) {
+            long frontierSize = state.frontierSize();
+            long frontierRelationships = 0;
+            for (long i = 0; i < frontierSize; i++) {
+                frontierRelationships += graph.degree(state.frontierNode(i));
+            }
+            unexploredRelationships -= frontierRelationships;
+
+            if (!bottomUp && frontierRelationships > unexploredRelationships / ALPHA) {
+                bottomUp = true;
+                switchDirection(sourceNode, level, frontierSize, true);
+            } else if (bottomUp && frontierSize < nodeCount / BETA) {
+                bottomUp = false;
+                switchDirection(sourceNode, level, frontierSize, false);
+            }
+
+            if (bottomUp) {
+                bottomUpLevel(state, nodeCount);
+            } else {
+                topDownLevel(state);
+            }
+            statistics.level(bottomUp);
+            level++;
+        }
+        this.state = null;
+        this.targets = null;
+    }
+
+    private void topDownLevel(BreadthFirstSearchState state) {
+        for (long remaining = state.frontierSize(); remaining > 0 && reachedTargets < targets.size(); remaining--) {
+            var node = state.pop();
+            progressTracker.logProgress(graph.degree(node));
+
+            topDownRelaxation.relationshipId = 0;
+            graph.forEachRelationship(node, topDownRelaxation);
+        }
+    }
+
+    private void bottomUpLevel(BreadthFirstSearchState state, long nodeCount) {
+        frontier.clear();
+        for (long remaining = state.frontierSize(); remaining > 0; remaining--) {
+            frontier.set(state.pop());
+        }
+
+        for (long node = 0; node < nodeCount && reachedTargets < targets.size(); node++) {
+            if (state.isReached(node)) {
+                continue;
+            }
+            progressTracker.logProgress(inverseAdjacency.degree(node));
+
+            // nodes reached in this level are not in the bitmap and cannot become predecessors
+            inverseAdjacency.forEachInverseRelationship(node, bottomUpRelaxation);
+        }
+    }
+
+    private void visit(BreadthFirstSearchState state, long node, long predecessor, long relationshipId) {
+        if (state.visit(node, predecessor, relationshipId) && targets.containsKey(node)) {
+            reachedTargets++;
+        }
+    }
+
+    private void switchDirection(long sourceNode, int level, long frontierSize, boolean toBottomUp) {
+        statistics.switchDirection(toBottomUp);
+        progressTracker.logMessage(formatWithLocale(
+            "Search from node %d switched to %s at level %d with %d frontier nodes",
+            graph.toOriginalNodeId(sourceNode),
+            toBottomUp ? "bottom-up" : "top-down",
+            level,
+            frontierSize
+        ));
+    }
+
+    /**
+     * Visits the neighbours of a frontier node, stopping once all targets are reached.
+     */
+    private final class TopDownRelaxation implements RelationshipConsumer {
+        private long relationshipId;
+
+        @Override
+        public boolean accept(long source, long target) {
+            long id = relationshipId++;
+            if (relationshipFilter.test(source, target, id)) {
+                visit(state, target, source, id);
+            }
+            return reachedTargets < targets.size();
+        }
+    }
+
+    /**
+     * Visits an unreached node from the first frontier node among its incoming relationships.
+     */
+    private final class BottomUpRelaxation implements InverseAdjacency.InverseRelationshipConsumer {
+
+        @Override
+        public boolean accept(long source, long target, double weight, long relationshipId) {
+            if (frontier.get(source) && relationshipFilter.test(source, target, relationshipId)) {
+                visit(state, target, source, relationshipId);
+                return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package com.semanticspace.shortestpath;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.IntDoubleHashMap;
+import com.carrotsearch.hppc.LongIntHashMap;
+import org.jetbrains.annotations.Nullable;
+import org.neo4j.gds.Algorithm;
+import org.neo4j.gds.api.Graph;
+import org.neo4j.gds.api.RelationshipConsumer;
+import org.neo4j.gds.core.concurrency.ParallelUtil;
+import org.neo4j.gds.core.utils.mem.MemoryEstimation;
+import org.neo4j.gds.core.utils.mem.MemoryEstimations;
+import org.neo4j.gds.core.utils.mem.MemoryRange;
+import org.neo4j.gds.core.utils.progress.tasks.ProgressTracker;
+import org.neo4j.gds.mem.MemoryUsage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * The costs of the shortest paths from every source to every target, one row per source.
+ * <p>
+ * Without a contraction hierarchy, every distinct source runs a single search that stops once all
+ * distinct targets are settled. With a contraction hierarchy, the matrix is computed bucket-based
+ * (Knopp et al.): every target runs one backward upward search and leaves its distances in buckets at
+ * the nodes it reaches, then every source runs one forward upward search and combines its distances
+ * with the buckets of the nodes it reaches. Both phases run in parallel.
+ */
+public final class DistanceMatrix extends Algorithm<Stream<DistanceMatrix.Row>> {
+
+    private final Graph graph;
+    private final List<Long> sourceNodes;
+    private final List<Long> targetNodes;
+    @Nullable
+    private final ContractionHierarchy hierarchy;
+    private final int concurrency;
+    private final ExecutorService executorService;
+
+    // distinct mapped targets and the columns requesting them
+    private long[] targets;
+    private IntArrayList[] columnsByTarget;
+    // distinct mapped sources
+    private long[] sources;
+    // the costs of every distinct source to every distinct target
+    private double[][] costs;
+
+    /**
+     * @param hierarchy a contraction hierarchy of the graph, {@code null} to search the graph itself
+     */
+    public DistanceMatrix(
+        Graph graph,
+        List<Long> sourceNodes,
+        List<Long> targetNodes,
+        @Nullable ContractionHierarchy hierarchy,
+        ProgressTracker progressTracker,
+        ExecutorService executorService,
+        int concurrency
+    ) {
+        super(progressTracker);
+        this.graph = graph;
+        this.sourceNodes = sourceNodes;
+        this.targetNodes = targetNodes;
+        this.hierarchy = hierarchy;
+        this.concurrency = concurrency;
+        this.executorService = executorService;
+    }
+
+    /**
+     * The costs of all distinct pairs and one search state per thread. On a contraction hierarchy, the search states
+     * are replaced by the upward search spaces: the backward ones of all targets are kept in buckets, the forward ones
+     * live as long as the search of a source. Each ranges from the search node alone to every node of the graph.
+     */
+    public static MemoryEstimation memoryEstimation(DistanceMatrixConfig config, boolean onHierarchy) {
+        long distinctSources = new HashSet<>(config.sourceNodes()).size();
+        long distinctTargets = new HashSet<>(config.targetNodes()).size();
+        var builder = MemoryEstimations.builder(DistanceMatrix.class)
+            .fixed("costs", distinctSources * MemoryUsage.sizeOfDoubleArray(distinctTargets));
+        if (!onHierarchy) {
+            var searchState = config.relationshipWeightProperty() == null
+                ? BreadthFirstSearchState.memoryEstimation(false, false)
+                : DenseSearchState.memoryEstimation(false, false);
+            return builder.perThread("search state", searchState).build();
+        }
+
+        // keys and values of the upward distances at their default load factor
+        long bytesPerReachedNode = (long) ((Integer.BYTES + Double.BYTES) / 0.75);
+        // every backward entry is copied into a bucket of the node it reached
+        long bytesPerBucketEntry = bytesPerReachedNode + Integer.BYTES + Double.BYTES;
+        var forwardSearch = MemoryEstimations.builder("forward search")
+            .rangePerNode("reached nodes", nodeCount -> MemoryRange.of(bytesPerReachedNode, nodeCount * bytesPerReachedNode))
+            .build();
+        return builder
+            .perNode("bucket offsets", nodeCount -> 2 * MemoryUsage.sizeOfIntArray(nodeCount + 1))
+            .rangePerNode("buckets", nodeCount -> MemoryRange.of(
+                distinctTargets * bytesPerBucketEntry,
+                distinctTargets * nodeCount * bytesPerBucketEntry
+            ))
+            .perThread("forward search", forwardSearch)
+            .build();
+    }
+
+    @Override
+    public Stream<Row> compute() {
+        var targetIndices = new LongIntHashMap();
+        var targetList = new ArrayList<Long>();
+        var columns = new ArrayList<IntArrayList>();
+        for (int column = 0; column < targetNodes.size(); column++) {
+            long target = graph.toMappedNodeId(targetNodes.get(column));
+            int index = targetIndices.getOrDefault(target, -1);
+            if (index == -1) {
+                index = targetList.size();
+                targetIndices.put(target, index);
+                targetList.add(target);
+                columns.add(new IntArrayList());
+            }
+            columns.get(index).add(column);
+        }
+        targets = targetList.stream().mapToLong(Long::longValue).toArray();
+        columnsByTarget = columns.toArray(new IntArrayList[0]);
+
+        var sourceIndices = new LongIntHashMap();
+        var sourceList = new ArrayList<Long>();
+        int[] rowSources = new int[sourceNodes.size()];
+        for (int row = 0; row < sourceNodes.size(); row++) {
+            long source = graph.toMappedNodeId(sourceNodes.get(row));
+            int index = sourceIndices.getOrDefault(source, -1);
+            if (index == -1) {
+                index = sourceList.size();
+                sourceIndices.put(source, index);
+                sourceList.add(source);
+            }
+            rowSources[row] = index;
+        }
+        sources = sourceList.stream().mapToLong(Long::longValue).toArray();
+        costs = new double[sources.length][];
+
+        progressTracker.beginSubTask();
+        if (hierarchy != null) {
+            progressTracker.logMessage("Computing distance matrix on contraction hierarchy");
+            computeOnHierarchy(hierarchy);
+        } else if (graph.hasRelationshipProperty()) {
+            forEachInParallel(sources.length, this::dijkstraWorker);
+        } else {
+            forEachInParallel(sources.length, this::breadthFirstWorker);
+        }
+        progressTracker.endSubTask();
+        // rows of sources not searched before termination would be missing
+        terminationFlag.assertRunning();
+
+        return IntStream.range(0, sourceNodes.size()).mapToObj(row -> new Row(sourceNodes.get(row), columns(costs[rowSources[row]])));
+    }
+
+    @Override
+    public void release() {
+    }
+
+    /**
+     * A source node and the costs to all targets, in the order of the targets.
+     * Unreachable targets have an infinite cost.
+     */
+    public static final class Row {
+        public final long sourceNode;
+        public final double[] costs;
+
+        Row(long sourceNode, double[] costs) {
+            this.sourceNode = sourceNode;
+            this.costs = costs;
+        }
+    }
+
+    /**
+     * Expands the costs of the distinct targets to the requested columns.
+     */
+    private double[] columns(@Nullable double[] targetCosts) {
+        var row = new double[targetNodes.size()];
+        if (targetCosts == null) {
+            // the computation has been terminated before reaching this source
+            Arrays.fill(row, Double.POSITIVE_INFINITY);
+            return row;
+        }
+        for (int target = 0; target < targets.length; target++) {
+            for (var column : columnsByTarget[target]) {
+                row[column.value] = targetCosts[target];
+            }
+        }
+        return row;
+    }
+
+    private void computeOnHierarchy(ContractionHierarchy hierarchy) {
+        var backwardDistances = new IntDoubleHashMap[targets.length];
+        forEachInParallel(targets.length, () -> target -> backwardDistances[target] = hierarchy.upwardDistances((int) targets[target], true));
+
+        // buckets of (target, distance) entries, indexed by the node the backward search reached
+        int nodeCount = hierarchy.nodeCount();
+        var bucketOffsets = new int[nodeCount + 1];
+        for (var distances : backwardDistances) {
+            for (var cursor : distances.keys()) {
+                bucketOffsets[cursor.value + 1]++;
+            }
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            bucketOffsets[node + 1] += bucketOffsets[node];
+        }
+        var bucketTargets = new int[bucketOffsets[nodeCount]];
+        var bucketDistances = new double[bucketOffsets[nodeCount]];
+        var positions = Arrays.copyOf(bucketOffsets, nodeCount);
+        for (int target = 0; target < targets.length; target++) {
+            for (var cursor : backwardDistances[target]) {
+                int position = positions[cursor.key]++;
+                bucketTargets[position] = target;
+                bucketDistances[position] = cursor.value;
+            }
+            backwardDistances[target] = null;
+        }
+
+        forEachInParallel(sources.length, () -> source -> {
+            var row = new double[targets.length];
+            Arrays.fill(row, Double.POSITIVE_INFINITY);
+            for (var cursor : hierarchy.upwardDistances((int) sources[source], false)) {
+                for (int i = bucketOffsets[cursor.key]; i < bucketOffsets[cursor.key + 1]; i++) {
+                    row[bucketTargets[i]] = Math.min(row[bucketTargets[i]], cursor.value + bucketDistances[i]);
+                }
+            }
+            costs[source] = row;
+        });
+    }
+
+    /**
+     * Searches from one source after another, reusing the search state of the worker.
+     */
+    private IntConsumer dijkstraWorker() {
+        var localGraph = graph.concurrentCopy();
+        var state = new DenseSearchState(graph.nodeCount(), false, false);
+        var relaxation = Relaxation.plain();
+        var targetIndices = targetIndices();
+        return source -> {
+            var row = new double[targets.length];
+            Arrays.fill(row, Double.POSITIVE_INFINITY);
+            int remaining = targets.length;
+
+            state.reset(null);
+            state.relax(sources[source], 0.0, sources[source], DijkstraMultiplePairs.NO_RELATIONSHIP);
+            while (remaining > 0 && !state.isEmpty() && running()) {
+                long node = state.pop();
+                double cost = state.cost(node);
+                int target = targetIndices.getOrDefault(node, -1);
+                if (target != -1) {
+                    row[target] = cost;
+                    remaining--;
+                }
+                relaxation.relax(localGraph, state, node, cost);
+            }
+            costs[source] = row;
+        };
+    }
+
+    private IntConsumer breadthFirstWorker() {
+        var localGraph = graph.concurrentCopy();
+        var state = new BreadthFirstSearchState(graph.nodeCount(), false, false);
+        var targetIndices = targetIndices();
+        var relaxation = new BreadthFirstRelaxation(state);
+        return source -> {
+            var row = new double[targets.length];
+            Arrays.fill(row, Double.POSITIVE_INFINITY);
+
+            state.reset();
+            state.visit(sources[source], sources[source], DijkstraMultiplePairs.NO_RELATIONSHIP);
+            int remaining = targets.length;
+            while (remaining > 0 && !state.isEmpty() && running()) {
+                long node = state.pop();
+                int target = targetIndices.getOrDefault(node, -1);
+                if (target != -1) {
+                    row[target] = state.depth(node);
+                    remaining--;
+                }
+                localGraph.forEachRelationship(node, relaxation);
+            }
+            costs[source] = row;
+        };
+    }
+
+    private LongIntHashMap targetIndices() {
+        var targetIndices = new LongIntHashMap(targets.length);
+        for (int target = 0; target < targets.length; target++) {
+            targetIndices.put(targets[target], target);
+        }
+        return targetIndices;
+    }
+
+    /**
+     * Runs the consumers created by the worker factory on {@code concurrency} threads,
+     * each pulling the next index from a shared counter.
+     */
+    private void forEachInParallel(int count, WorkerFactory workerFactory) {
+        var nextIndex = new AtomicInteger();
+        List<Runnable> workers = new ArrayList<>();
+        for (int i = 0; i < Math.min(concurrency, count); i++) {
+            workers.add(() -> {
+                var worker = workerFactory.create();
+                int index;
+                while (running() && (index = nextIndex.getAndIncrement()) < count) {
+                    worker.accept(index);
+                }
+            });
+        }
+        ParallelUtil.runWithConcurrency(concurrency, workers, executorService);
+    }
+
+    /**
+     * Visits the neighbours of a node in the search state of one worker, reused for every node.
+     */
+    private static final class BreadthFirstRelaxation implements RelationshipConsumer {
+        private final BreadthFirstSearchState state;
+
+        BreadthFirstRelaxation(BreadthFirstSearchState state) {
+            this.state = state;
+        }
+
+        @Override
+        public boolean accept(long source, long target) {
+            state.visit(target, source, DijkstraMultiplePairs.NO_RELATIONSHIP);
+            return true;
+        }
+    }
+
+    @FunctionalInterface
+    private interface WorkerFactory {
+        IntConsumer create();
+    }
+}
@@ -0,0 +1,18 @@
+package com.semanticspace.shortestpath;
+
+import org.neo4j.gds.annotation.Configuration;
+import org.neo4j.gds.annotation.ValueClass;
+import org.neo4j.gds.config.AlgoBaseConfig;
+import org.neo4j.gds.config.RelationshipWeightConfig;
+import org.neo4j.gds.config.SourceNodesConfig;
+import org.neo4j.gds.config.TargetNodesConfig;
+import org.neo4j.gds.core.CypherMapWrapper;
+
+@ValueClass
+@Configuration
+public interface DistanceMatrixConfig extends SourceNodesConfig, TargetNodesConfig, AlgoBaseConfig, RelationshipWeightConfig {
+
+    static DistanceMatrixConfig of(CypherMapWrapper userInput) {
+        return new DistanceMatrixConfigImpl(userInput);
+    }
+}
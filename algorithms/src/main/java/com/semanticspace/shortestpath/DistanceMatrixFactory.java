@@ -0,0 +1,61 @@
+package com.semanticspace.shortestpath;
+
+import org.neo4j.gds.GraphAlgorithmFactory;
+import org.neo4j.gds.api.Graph;
+import org.neo4j.gds.core.concurrency.Pools;
+import org.neo4j.gds.core.utils.mem.MemoryEstimation;
+import org.neo4j.gds.core.utils.progress.tasks.ProgressTracker;
+import org.neo4j.gds.core.utils.progress.tasks.Task;
+import org.neo4j.gds.core.utils.progress.tasks.Tasks;
+
+import java.util.Optional;
+
+public class DistanceMatrixFactory extends GraphAlgorithmFactory<DistanceMatrix, DistanceMatrixConfig> {
+
+    private final GraphIndexes graphIndexes;
+
+    public DistanceMatrixFactory() {
+        this(GraphIndexes.NONE);
+    }
+
+    /**
+     * @param graphIndexes indices of the named graph, a contraction hierarchy among them answers the matrix bucket-based
+     */
+    public DistanceMatrixFactory(GraphIndexes graphIndexes) {
+        this.graphIndexes = graphIndexes;
+    }
+
+    @Override
+    public MemoryEstimation memoryEstimation(DistanceMatrixConfig configuration) {
+        boolean onHierarchy = graphIndexes.get(ContractionHierarchy.indexKey(configuration)).isPresent();
+        return DistanceMatrix.memoryEstimation(configuration, onHierarchy);
+    }
+
+    @Override
+    public String taskName() {
+        return "DistanceMatrix";
+    }
+
+    @Override
+    public Task progressTask(Graph graph, DistanceMatrixConfig config) {
+        return Tasks.leaf(taskName(), graph.relationshipCount());
+    }
+
+    @Override
+    public DistanceMatrix build(
+            Graph graph,
+            DistanceMatrixConfig configuration,
+            ProgressTracker progressTracker
+    ) {
+        Optional<ContractionHierarchy> hierarchy = graphIndexes.get(ContractionHierarchy.indexKey(configuration));
+        return new DistanceMatrix(
+                graph,
+                configuration.sourceNodes(),
+                configuration.targetNodes(),
+                hierarchy.orElse(null),
+                progressTracker,
+                Pools.DEFAULT,
+                configuration.concurrency()
+        );
+    }
+}
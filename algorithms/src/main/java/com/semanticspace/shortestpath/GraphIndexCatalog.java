@@ -0,0 +1,43 @@
+package com.semanticspace.shortestpath;
+
+import org.neo4j.gds.api.GraphStore;
+import org.neo4j.gds.core.loading.CatalogRequest;
+import org.neo4j.gds.core.loading.GraphStoreCatalog;
+import org.neo4j.kernel.database.NamedDatabaseId;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Keeps the search indices that are derived from a named graph, such as landmark
+ * distances or inverse adjacency lists, so that they are computed once and reused
+ * by every call against that graph.
+ * <p>
+ * Indices are held as long as the graph store is referenced by the graph catalog.
+ * Dropping a graph releases its indices and mutating it invalidates them.
+ */
+public final class GraphIndexCatalog {
+
+    private static final Map<GraphStore, GraphIndexes> INDEXES = new WeakHashMap<>();
+
+    private GraphIndexCatalog() {}
+
+    public static GraphIndexes indexes(GraphStore graphStore) {
+        synchronized (INDEXES) {
+            return INDEXES.computeIfAbsent(graphStore, GraphIndexes::new);
+        }
+    }
+
+    /**
+     * The indices of the named graph a procedure runs on.
+     */
+    public static GraphIndexes indexes(String username, NamedDatabaseId databaseId, String graphName) {
+        return indexes(GraphStoreCatalog.get(CatalogRequest.of(username, databaseId), graphName).graphStore());
+    }
+
+    public static void removeAll() {
+        synchronized (INDEXES) {
+            INDEXES.clear();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.semanticspace.shortestpath;
+
+import org.jetbrains.annotations.Nullable;
+import org.neo4j.gds.api.GraphStore;
+import org.neo4j.gds.config.AlgoBaseConfig;
+import org.neo4j.gds.config.RelationshipWeightConfig;
+
+import java.lang.ref.WeakReference;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * The search indices of a single graph store, keyed by the kind of the index
+ * and the projection it has been computed on.
+ * <p>
+ * Whenever the modification time of the graph store changes, all indices are
+ * discarded, since node properties or relationships they were built from
+ * may have been added.
+ * <p>
+ * Every key is computed under its own lock, so building an expensive index only
+ * blocks callers waiting for that very index.
+ */
+public final class GraphIndexes {
+
+    /**
+     * Indices that are not bound to a graph store. They are never cached
+     * and recomputed by every call.
+     */
+    public static final GraphIndexes NONE = new GraphIndexes(null);
+
+    // weakly referenced, the catalog keys its indexes by the very same graph store
+    @Nullable
+    private final WeakReference<GraphStore> graphStore;
+    // replaced as a whole once the graph store is modified, computations still running fill the old one
+    private ConcurrentHashMap<String, Slot> indexes;
+    private ZonedDateTime modificationTime;
+
+    GraphIndexes(@Nullable GraphStore graphStore) {
+        this.graphStore = graphStore == null ? null : new WeakReference<>(graphStore);
+        this.indexes = new ConcurrentHashMap<>();
+        this.modificationTime = graphStore == null ? null : graphStore.modificationTime();
+    }
+
+    /**
+     * Identifies an index of the given kind and parameters on the projection described by the configuration.
+     */
+    public static <CONFIG extends AlgoBaseConfig & RelationshipWeightConfig> String key(
+        CONFIG config,
+        String kind,
+        Object... parameters
+    ) {
+        return kind + Arrays.toString(parameters) +
+               config.nodeLabels() + config.relationshipTypes() + config.relationshipWeightProperty();
+    }
+
+    /**
+     * Returns the index stored under the given key or computes and stores it.
+     * Concurrent calls for the same key compute the index only once, calls for other keys do not wait.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getOrCompute(String key, Supplier<T> indexSupplier) {
+        if (graphStore == null) {
+            return indexSupplier.get();
+        }
+        var slot = currentIndexes().computeIfAbsent(key, ignored -> new Slot());
+        synchronized (slot) {
+            if (slot.index == null) {
+                slot.index = indexSupplier.get();
+            }
+            return (T) slot.index;
+        }
+    }
+
+    /**
+     * Returns the index stored under the given key, waiting for it if it is being computed.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Optional<T> get(String key) {
+        if (graphStore == null) {
+            return Optional.empty();
+        }
+        var slot = currentIndexes().get(key);
+        if (slot == null) {
+            return Optional.empty();
+        }
+        synchronized (slot) {
+            return Optional.ofNullable((T) slot.index);
+        }
+    }
+
+    public void put(String key, Object index) {
+        if (graphStore == null) {
+            return;
+        }
+        var slot = currentIndexes().computeIfAbsent(key, ignored -> new Slot());
+        synchronized (slot) {
+            slot.index = index;
+        }
+    }
+
+    private synchronized ConcurrentHashMap<String, Slot> currentIndexes() {
+        var store = graphStore.get();
+        if (store == null) {
+            indexes = new ConcurrentHashMap<>();
+            return indexes;
+        }
+        var currentModificationTime = store.modificationTime();
+        if (!currentModificationTime.equals(modificationTime)) {
+            indexes = new ConcurrentHashMap<>();
+            modificationTime = currentModificationTime;
+        }
+        return indexes;
+    }
+
+    /**
+     * Holds an index and serves as the lock of its computation.
+     */
+    private static final class Slot {
+        @Nullable
+        private Object index;
+    }
+}
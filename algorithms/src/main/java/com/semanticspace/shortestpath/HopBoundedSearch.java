@@ -0,0 +1,188 @@
+package com.semanticspace.shortestpath;
+
+import com.carrotsearch.hppc.LongIntHashMap;
+import org.neo4j.gds.api.Graph;
+import org.neo4j.gds.api.RelationshipWithPropertyConsumer;
+import org.neo4j.gds.core.utils.mem.MemoryEstimation;
+import org.neo4j.gds.core.utils.mem.MemoryEstimations;
+import org.neo4j.gds.core.utils.paged.HugeIntArray;
+import org.neo4j.gds.core.utils.progress.tasks.ProgressTracker;
+import org.neo4j.gds.paths.ImmutablePathResult;
+import org.neo4j.gds.paths.PathResult;
+
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Cheapest paths with at most a given number of relationships on a weighted graph.
+ * <p>
+ * The cheapest path to a node may have too many relationships while a costlier one stays within the limit,
+ * so a node can be settled more than once. The search queues labels of a node, its cost and number of hops
+ * on one path, in order of their cost. A label is only settled if it has fewer hops than every label settled
+ * at its node before, all others are dominated by a label that is at most as expensive and at most as long.
+ * Every node is thereby settled at most {@code maxHops + 1} times and the first label settled at a target
+ * is the cheapest path within the limit.
+ * <p>
+ * One instance is used by a single worker and reused by all of its searches.
+ */
+final class HopBoundedSearch {
+
+    private static final int UNSETTLED = Integer.MAX_VALUE;
+    private static final int NO_LABEL = -1;
+
+    private final DijkstraMultiplePairs.RelationshipFilter relationshipFilter;
+    private final ProgressTracker progressTracker;
+
+    // the fewest hops of a label settled at the node, reset through the labels of the previous search
+    private final HugeIntArray settledHops;
+
+    // labels by their index, the predecessor of a label is the index of the label it was reached from
+    private long[] labelNodes = new long[16];
+    private double[] labelCosts = new double[16];
+    private int[] labelHops = new int[16];
+    private int[] labelPredecessors = new int[16];
+    private long[] labelRelationships = new long[16];
+    private int labelCount;
+
+    private final IntMinHeap queue = new IntMinHeap();
+    // the first label settled at every reached target
+    private final LongIntHashMap targetLabels = new LongIntHashMap();
+
+    private final LabelRelaxation relaxation = new LabelRelaxation();
+
+    HopBoundedSearch(
+        long nodeCount,
+        DijkstraMultiplePairs.RelationshipFilter relationshipFilter,
+        ProgressTracker progressTracker
+    ) {
+        this.relationshipFilter = relationshipFilter;
+        this.progressTracker = progressTracker;
+        this.settledHops = HugeIntArray.newArray(nodeCount);
+        settledHops.fill(UNSETTLED);
+    }
+
+    /**
+     * The settled hops of every node, the labels grow with the (node, hops) combinations a search reaches.
+     */
+    static MemoryEstimation memoryEstimation() {
+        return MemoryEstimations.builder(HopBoundedSearch.class)
+            .perNode("settled hops", HugeIntArray::memoryEstimation)
+            .build();
+    }
+
+    /**
+     * Searches until every target is settled, the queue costs more than {@code maxCost} or the search space is exhausted.
+     *
+     * @param graph a graph copy owned by the calling thread
+     */
+    void search(Graph graph, long sourceNode, long[] targetNodes, int maxHops, double maxCost, BooleanSupplier running) {
+        reset();
+        var targets = new LongIntHashMap(targetNodes.length);
+        for (long targetNode : targetNodes) {
+            targets.put(targetNode, NO_LABEL);
+        }
+        int pendingTargets = targets.size();
+
+        queue.add(addLabel(sourceNode, 0.0, 0, NO_LABEL, DijkstraMultiplePairs.NO_RELATIONSHIP), 0.0);
+        var relaxation = this.relaxation;
+        while (!queue.isEmpty() && queue.minCost() <= maxCost && pendingTargets > 0 && running.getAsBoolean()) {
+            int label = queue.pop();
+            long node = labelNodes[label];
+            int hops = labelHops[label];
+            int previousHops = settledHops.get(node);
+            if (hops >= previousHops) {
+                // a cheaper label with at most as many hops has been settled
+                continue;
+            }
+            settledHops.set(node, hops);
+            if (previousHops == UNSETTLED && targets.containsKey(node)) {
+                targetLabels.put(node, label);
+                pendingTargets--;
+            }
+            if (hops == maxHops) {
+                continue;
+            }
+
+            progressTracker.logProgress(graph.degree(node));
+            relaxation.label = label;
+            relaxation.relationshipId = 0;
+            graph.forEachRelationship(node, 1.0D, relaxation);
+        }
+        queue.clear();
+    }
+
+    /**
+     * @return the cheapest path to the target within the hop limit, {@code null} if the search has not settled it
+     */
+    PathResult pathTo(long sourceNode, long targetNode, boolean trackRelationships) {
+        int label = targetLabels.getOrDefault(targetNode, NO_LABEL);
+        if (label == NO_LABEL) {
+            return null;
+        }
+        int length = labelHops[label] + 1;
+        var nodeIds = new long[length];
+        var relationshipIds = new long[trackRelationships ? length - 1 : 0];
+        var costs = new double[length];
+        for (int i = length - 1; i >= 0; i--) {
+            nodeIds[i] = labelNodes[label];
+            costs[i] = labelCosts[label];
+            if (trackRelationships && i > 0) {
+                relationshipIds[i - 1] = labelRelationships[label];
+            }
+            label = labelPredecessors[label];
+        }
+        return ImmutablePathResult.builder()
+            .index(0)
+            .sourceNode(sourceNode)
+            .targetNode(targetNode)
+            .nodeIds(nodeIds)
+            .relationshipIds(relationshipIds)
+            .costs(costs)
+            .build();
+    }
+
+    private void reset() {
+        for (int label = 0; label < labelCount; label++) {
+            settledHops.set(labelNodes[label], UNSETTLED);
+        }
+        labelCount = 0;
+        targetLabels.clear();
+    }
+
+    private int addLabel(long node, double cost, int hops, int predecessor, long relationshipId) {
+        if (labelCount == labelNodes.length) {
+            int capacity = labelCount * 2;
+            labelNodes = Arrays.copyOf(labelNodes, capacity);
+            labelCosts = Arrays.copyOf(labelCosts, capacity);
+            labelHops = Arrays.copyOf(labelHops, capacity);
+            labelPredecessors = Arrays.copyOf(labelPredecessors, capacity);
+            labelRelationships = Arrays.copyOf(labelRelationships, capacity);
+        }
+        int label = labelCount++;
+        labelNodes[label] = node;
+        labelCosts[label] = cost;
+        labelHops[label] = hops;
+        labelPredecessors[label] = predecessor;
+        labelRelationships[label] = relationshipId;
+        return label;
+    }
+
+    /**
+     * Queues a label for every relationship of a settled label whose target has no settled label with as few hops.
+     */
+    private final class LabelRelaxation implements RelationshipWithPropertyConsumer {
+        private int label;
+        private long relationshipId;
+
+        @Override
+        public boolean accept(long source, long target, double weight) {
+            long id = relationshipId++;
+            int hops = labelHops[label] + 1;
+            if (hops < settledHops.get(target) && relationshipFilter.test(source, target, id)) {
+                double cost = labelCosts[label] + weight;
+                queue.add(addLabel(target, cost, hops, label, id), cost);
+            }
+            return true;
+        }
+    }
+}
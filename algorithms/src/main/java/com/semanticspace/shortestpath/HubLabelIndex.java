@@ -0,0 +1,318 @@
+package com.semanticspace.shortestpath;
+
+import com.carrotsearch.hppc.DoubleArrayList;
+import com.carrotsearch.hppc.IntArrayList;
+import org.neo4j.gds.api.Graph;
+import org.neo4j.gds.core.utils.mem.MemoryEstimation;
+import org.neo4j.gds.core.utils.mem.MemoryEstimations;
+import org.neo4j.gds.core.utils.mem.MemoryRange;
+import org.neo4j.gds.core.utils.paged.HugeDoubleArray;
+import org.neo4j.gds.core.utils.paged.HugeIntArray;
+import org.neo4j.gds.core.utils.paged.HugeLongArray;
+import org.neo4j.gds.core.utils.progress.tasks.ProgressTracker;
+
+import java.util.Arrays;
+
+import static org.neo4j.gds.utils.StringFormatting.formatWithLocale;
+
+/**
+ * A 2-hop hub labeling computed by pruned landmark labeling.
+ * <p>
+ * Every node keeps the hubs it reaches (out labels) and the hubs reaching it (in labels) together
+ * with their distances. Hubs are processed in descending degree order and every hub runs a
+ * forward and a backward Dijkstra search that is pruned at nodes whose distance is already
+ * covered by the labels of earlier hubs. The distance of a pair is the minimum over the hubs
+ * shared by the out labels of the source and the in labels of the target, which are sorted by
+ * hub rank and merged in linear time. Undirected graphs keep a single label per node.
+ */
+final class HubLabelIndex {
+
+    // the labels of a node are stored in [offsets[node], offsets[node + 1]), ordered by hub rank
+    private final HugeLongArray outOffsets;
+    private final HugeIntArray outHubs;
+    private final HugeDoubleArray outDistances;
+
+    private final HugeLongArray inOffsets;
+    private final HugeIntArray inHubs;
+    private final HugeDoubleArray inDistances;
+
+    private HubLabelIndex(
+        HugeLongArray outOffsets,
+        HugeIntArray outHubs,
+        HugeDoubleArray outDistances,
+        HugeLongArray inOffsets,
+        HugeIntArray inHubs,
+        HugeDoubleArray inDistances
+    ) {
+        this.outOffsets = outOffsets;
+        this.outHubs = outHubs;
+        this.outDistances = outDistances;
+        this.inOffsets = inOffsets;
+        this.inHubs = inHubs;
+        this.inDistances = inDistances;
+    }
+
+    /**
+     * Label sizes depend on the structure of the graph, small-world graphs
+     * typically end up with tens to a few hundred hubs per node.
+     */
+    static MemoryEstimation memoryEstimation() {
+        long bytesPerLabel = 2 * (Integer.BYTES + Double.BYTES);
+        return MemoryEstimations.builder(HubLabelIndex.class)
+            .perNode("label offsets", nodeCount -> 2 * HugeLongArray.memoryEstimation(nodeCount + 1))
+            .rangePerNode("labels", nodeCount -> MemoryRange.of(16 * nodeCount * bytesPerLabel, 256 * nodeCount * bytesPerLabel))
+            .build();
+    }
+
+    /**
+     * @param inverseAdjacency incoming relationships, {@code null} for undirected graphs
+     */
+    static HubLabelIndex compute(Graph graph, InverseAdjacency inverseAdjacency, ProgressTracker progressTracker) {
+        if (graph.nodeCount() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(formatWithLocale(
+                "Hub labels support at most %d nodes, the graph has %d nodes.",
+                Integer.MAX_VALUE,
+                graph.nodeCount()
+            ));
+        }
+        return new Labeling(graph, inverseAdjacency, progressTracker).run();
+    }
+
+    /**
+     * @return the distance from source to target or {@link Double#POSITIVE_INFINITY} if the target is not reachable
+     */
+    double distance(long sourceNode, long targetNode) {
+        long out = outOffsets.get(sourceNode);
+        long outEnd = outOffsets.get(sourceNode + 1);
+        long in = inOffsets.get(targetNode);
+        long inEnd = inOffsets.get(targetNode + 1);
+
+        double distance = Double.POSITIVE_INFINITY;
+        while (out < outEnd && in < inEnd) {
+            int outHub = outHubs.get(out);
+            int inHub = inHubs.get(in);
+            if (outHub == inHub) {
+                distance = Math.min(distance, outDistances.get(out++) + inDistances.get(in++));
+            } else if (outHub < inHub) {
+                out++;
+            } else {
+                in++;
+            }
+        }
+        return distance;
+    }
+
+    /**
+     * Builds the labels hub by hub and flattens them once all hubs are processed.
+     */
+    private static final class Labeling {
+        private final Graph graph;
+        private final InverseAdjacency inverseAdjacency;
+        private final ProgressTracker progressTracker;
+        private final int nodeCount;
+
+        private final IntArrayList[] outHubs;
+        private final DoubleArrayList[] outDistances;
+        private final IntArrayList[] inHubs;
+        private final DoubleArrayList[] inDistances;
+
+        // distances of the current hub to the hubs of its labels, indexed by hub rank
+        private final double[] hubDistances;
+        // tentative distances of the current pruned search
+        private final double[] distances;
+        private final IntArrayList touched = new IntArrayList();
+        private final IntMinHeap heap = new IntMinHeap();
+
+        Labeling(Graph graph, InverseAdjacency inverseAdjacency, ProgressTracker progressTracker) {
+            this.graph = graph;
+            this.inverseAdjacency = inverseAdjacency;
+            this.progressTracker = progressTracker;
+            this.nodeCount = (int) graph.nodeCount();
+            this.outHubs = new IntArrayList[nodeCount];
+            this.outDistances = new DoubleArrayList[nodeCount];
+            this.hubDistances = new double[nodeCount];
+            this.distances = new double[nodeCount];
+            Arrays.fill(hubDistances, Double.POSITIVE_INFINITY);
+            Arrays.fill(distances, Double.POSITIVE_INFINITY);
+            for (int node = 0; node < nodeCount; node++) {
+                outHubs[node] = new IntArrayList();
+                outDistances[node] = new DoubleArrayList();
+            }
+            if (inverseAdjacency == null) {
+                // undirected graphs share their labels
+                this.inHubs = outHubs;
+                this.inDistances = outDistances;
+            } else {
+                this.inHubs = new IntArrayList[nodeCount];
+                this.inDistances = new DoubleArrayList[nodeCount];
+                for (int node = 0; node < nodeCount; node++) {
+                    inHubs[node] = new IntArrayList();
+                    inDistances[node] = new DoubleArrayList();
+                }
+            }
+        }
+
+        HubLabelIndex run() {
+            int[] order = degreeOrder();
+            for (int rank = 0; rank < nodeCount; rank++) {
+                int hub = order[rank];
+                // nodes reached from the hub store it in their in labels
+                prunedSearch(hub, rank, true);
+                if (inverseAdjacency != null) {
+                    // nodes reaching the hub store it in their out labels
+                    prunedSearch(hub, rank, false);
+                }
+                if ((rank + 1) % 100_000 == 0) {
+                    progressTracker.logMessage(formatWithLocale("Labeled %d of %d hubs", rank + 1, nodeCount));
+                }
+            }
+            var outOffsetArray = offsets(outHubs);
+            var outHubArray = hubs(outHubs);
+            var outDistanceArray = distances(outDistances);
+            if (inverseAdjacency == null) {
+                return new HubLabelIndex(outOffsetArray, outHubArray, outDistanceArray, outOffsetArray, outHubArray, outDistanceArray);
+            }
+            return new HubLabelIndex(
+                outOffsetArray,
+                outHubArray,
+                outDistanceArray,
+                offsets(inHubs),
+                hubs(inHubs),
+                distances(inDistances)
+            );
+        }
+
+        private int[] degreeOrder() {
+            int[] degrees = new int[nodeCount];
+            int maxDegree = 0;
+            for (int node = 0; node < nodeCount; node++) {
+                long degree = graph.degree(node) + (inverseAdjacency == null ? 0 : inverseAdjacency.degree(node));
+                degrees[node] = (int) Math.min(degree, Integer.MAX_VALUE - 1);
+                maxDegree = Math.max(maxDegree, degrees[node]);
+            }
+            // counting sort, highest degree first
+            int[] starts = new int[maxDegree + 2];
+            for (int node = 0; node < nodeCount; node++) {
+                starts[maxDegree - degrees[node] + 1]++;
+            }
+            for (int i = 1; i < starts.length; i++) {
+                starts[i] += starts[i - 1];
+            }
+            int[] order = new int[nodeCount];
+            for (int node = 0; node < nodeCount; node++) {
+                order[starts[maxDegree - degrees[node]]++] = node;
+            }
+            return order;
+        }
+
+        /**
+         * A Dijkstra search from the hub that stops at every node whose distance
+         * is already answered by the labels of higher ranked hubs.
+         */
+        private void prunedSearch(int hub, int rank, boolean forward) {
+            // the labels of the hub on the opposite side of the pair
+            var ownHubs = forward ? outHubs[hub] : inHubs[hub];
+            var ownDistances = forward ? outDistances[hub] : inDistances[hub];
+            for (int i = 0; i < ownHubs.size(); i++) {
+                hubDistances[ownHubs.get(i)] = ownDistances.get(i);
+            }
+            var labelHubs = forward ? inHubs : outHubs;
+            var labelDistances = forward ? inDistances : outDistances;
+
+            distances[hub] = 0.0;
+            touched.add(hub);
+            heap.add(hub, 0.0);
+            while (!heap.isEmpty()) {
+                double cost = heap.minCost();
+                int node = heap.pop();
+                if (cost > distances[node]) {
+                    continue;
+                }
+                if (coveredDistance(labelHubs[node], labelDistances[node]) <= cost) {
+                    continue;
+                }
+                labelHubs[node].add(rank);
+                labelDistances[node].add(cost);
+
+                if (forward) {
+                    graph.forEachRelationship(node, 1.0D, (source, target, weight) -> {
+                        relax((int) target, cost + weight);
+                        return true;
+                    });
+                } else {
+                    inverseAdjacency.forEachInverseRelationship(node, (source, target, weight, relationshipId) -> {
+                        relax((int) source, cost + weight);
+                        return true;
+                    });
+                }
+            }
+
+            for (var cursor : touched) {
+                distances[cursor.value] = Double.POSITIVE_INFINITY;
+            }
+            touched.clear();
+            for (int i = 0; i < ownHubs.size(); i++) {
+                hubDistances[ownHubs.get(i)] = Double.POSITIVE_INFINITY;
+            }
+        }
+
+        private double coveredDistance(IntArrayList hubs, DoubleArrayList hubDistancesOfNode) {
+            double distance = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < hubs.size(); i++) {
+                distance = Math.min(distance, hubDistances[hubs.get(i)] + hubDistancesOfNode.get(i));
+            }
+            return distance;
+        }
+
+        private void relax(int node, double newCost) {
+            if (newCost < distances[node]) {
+                if (distances[node] == Double.POSITIVE_INFINITY) {
+                    touched.add(node);
+                }
+                distances[node] = newCost;
+                heap.add(node, newCost);
+            }
+        }
+
+        private HugeLongArray offsets(IntArrayList[] labels) {
+            var offsets = HugeLongArray.newArray(nodeCount + 1L);
+            long offset = 0;
+            for (int node = 0; node < nodeCount; node++) {
+                offsets.set(node, offset);
+                offset += labels[node].size();
+            }
+            offsets.set(nodeCount, offset);
+            return offsets;
+        }
+
+        private HugeIntArray hubs(IntArrayList[] labels) {
+            long size = 0;
+            for (var label : labels) {
+                size += label.size();
+            }
+            var hubs = HugeIntArray.newArray(size);
+            long index = 0;
+            for (var label : labels) {
+                for (var cursor : label) {
+                    hubs.set(index++, cursor.value);
+                }
+            }
+            return hubs;
+        }
+
+        private HugeDoubleArray distances(DoubleArrayList[] labels) {
+            long size = 0;
+            for (var label : labels) {
+                size += label.size();
+            }
+            var distances = HugeDoubleArray.newArray(size);
+            long index = 0;
+            for (var label : labels) {
+                for (var cursor : label) {
+                    distances.set(index++, cursor.value);
+                }
+            }
+            return distances;
+        }
+    }
+}
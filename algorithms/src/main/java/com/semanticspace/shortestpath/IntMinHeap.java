@@ -0,0 +1,72 @@
+package com.semanticspace.shortestpath;
+
+import java.util.Arrays;
+
+/**
+ * A binary min heap of (node, cost) entries. Decreasing a cost adds another entry,
+ * outdated entries are skipped by comparing their cost with the current distance.
+ */
+final class IntMinHeap {
+    private int[] nodes = new int[16];
+    private double[] costs = new double[16];
+    private int size;
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    double minCost() {
+        return costs[0];
+    }
+
+    void add(int node, double cost) {
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size * 2);
+            costs = Arrays.copyOf(costs, size * 2);
+        }
+        int position = size++;
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (costs[parent] <= cost) {
+                break;
+            }
+            nodes[position] = nodes[parent];
+            costs[position] = costs[parent];
+            position = parent;
+        }
+        nodes[position] = node;
+        costs[position] = cost;
+    }
+
+    int pop() {
+        int top = nodes[0];
+        size--;
+        if (size > 0) {
+            int node = nodes[size];
+            double cost = costs[size];
+            int position = 0;
+            while (true) {
+                int child = 2 * position + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && costs[child + 1] < costs[child]) {
+                    child++;
+                }
+                if (costs[child] >= cost) {
+                    break;
+                }
+                nodes[position] = nodes[child];
+                costs[position] = costs[child];
+                position = child;
+            }
+            nodes[position] = node;
+            costs[position] = cost;
+        }
+        return top;
+    }
+}
@@ -0,0 +1,210 @@
+package com.semanticspace.shortestpath;
+
+import com.carrotsearch.hppc.BitSet;
+import org.jetbrains.annotations.Nullable;
+import org.neo4j.gds.core.concurrency.ParallelUtil;
+import org.neo4j.gds.core.utils.mem.MemoryEstimation;
+import org.neo4j.gds.core.utils.mem.MemoryEstimations;
+import org.neo4j.gds.core.utils.paged.HugeLongArray;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Interval labels of the strongly connected components of a directed graph (GRAIL, Yildirim et al.),
+ * which prove pairs unreachable in constant time.
+ * <p>
+ * Every node gets a rank in each of a few dimensions. The label of a component holds, per dimension,
+ * the smallest and the largest rank of all nodes reaching it, its ancestors. A source reaching a target
+ * is an ancestor of it, so its ancestors are ancestors of the target as well and its intervals lie within
+ * those of the target. An interval sticking out in any dimension thus proves the target unreachable.
+ * <p>
+ * The first dimension ranks nodes by the topological number of their component, which subsumes the order
+ * check of the {@link ComponentIndex}. The other dimensions rank nodes in post-order of depth first searches
+ * over the incoming relationships, with alternating traversal orders, which keeps the intervals of tree-like
+ * parts of the graph exact. Labels are folded along the topological order of the condensation, one dimension
+ * per thread.
+ */
+final class IntervalIndex implements ReachabilityIndex {
+
+    static final int DIMENSIONS = 3;
+
+    private final ComponentIndex components;
+    // smallest and largest rank of the ancestors of a component, one array per dimension
+    private final HugeLongArray[] lows;
+    private final HugeLongArray[] highs;
+
+    private IntervalIndex(ComponentIndex components, HugeLongArray[] lows, HugeLongArray[] highs) {
+        this.components = components;
+        this.lows = lows;
+        this.highs = highs;
+    }
+
+    /**
+     * Every node may form its own component, the ranks and depth first search arrays of a dimension
+     * are only kept while its labels are folded.
+     */
+    static MemoryEstimation memoryEstimation() {
+        return MemoryEstimations.builder(IntervalIndex.class)
+            .add("components", ComponentIndex.memoryEstimation(true))
+            .perNode("labels", nodeCount -> 2 * DIMENSIONS * HugeLongArray.memoryEstimation(nodeCount))
+            .build();
+    }
+
+    /**
+     * @param components the components of a directed graph
+     */
+    static IntervalIndex compute(
+        ComponentIndex components,
+        InverseAdjacency inverseAdjacency,
+        long nodeCount,
+        int concurrency,
+        ExecutorService executorService
+    ) {
+        var nodesByComponent = nodesByComponent(components, nodeCount);
+        long componentCount = components.strongComponentCount();
+        var lows = new HugeLongArray[DIMENSIONS];
+        var highs = new HugeLongArray[DIMENSIONS];
+
+        List<Runnable> tasks = new ArrayList<>();
+        for (int dimension = 0; dimension < DIMENSIONS; dimension++) {
+            int labelDimension = dimension;
+            tasks.add(() -> {
+                var ranks = labelDimension == 0
+                    ? null
+                    : postOrderRanks(inverseAdjacency, nodeCount, labelDimension % 2 == 0);
+                lows[labelDimension] = HugeLongArray.newArray(componentCount);
+                highs[labelDimension] = HugeLongArray.newArray(componentCount);
+                foldLabels(components, inverseAdjacency, nodesByComponent, ranks, lows[labelDimension], highs[labelDimension]);
+            });
+        }
+        ParallelUtil.runWithConcurrency(concurrency, tasks, executorService);
+
+        return new IntervalIndex(components, lows, highs);
+    }
+
+    @Override
+    public boolean mayReach(long sourceNode, long targetNode) {
+        if (!components.mayReach(sourceNode, targetNode)) {
+            return false;
+        }
+        long source = components.strongComponent(sourceNode);
+        long target = components.strongComponent(targetNode);
+        for (int dimension = 0; dimension < DIMENSIONS; dimension++) {
+            if (lows[dimension].get(source) < lows[dimension].get(target) ||
+                highs[dimension].get(source) > highs[dimension].get(target)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The nodes ordered by the topological number of their component, by counting sort.
+     */
+    private static HugeLongArray nodesByComponent(ComponentIndex components, long nodeCount) {
+        long componentCount = components.strongComponentCount();
+        var offsets = HugeLongArray.newArray(componentCount + 1);
+        for (long node = 0; node < nodeCount; node++) {
+            long component = components.strongComponent(node);
+            offsets.set(component + 1, offsets.get(component + 1) + 1);
+        }
+        for (long component = 0; component < componentCount; component++) {
+            offsets.set(component + 1, offsets.get(component + 1) + offsets.get(component));
+        }
+        var nodes = HugeLongArray.newArray(nodeCount);
+        for (long node = 0; node < nodeCount; node++) {
+            long component = components.strongComponent(node);
+            long position = offsets.get(component);
+            offsets.set(component, position + 1);
+            nodes.set(position, node);
+        }
+        return nodes;
+    }
+
+    /**
+     * Visits the components in topological order, so the labels of all components with a relationship
+     * into the current one are final when it is folded.
+     *
+     * @param ranks the rank of every node, {@code null} to rank nodes by their component
+     */
+    private static void foldLabels(
+        ComponentIndex components,
+        InverseAdjacency inverseAdjacency,
+        HugeLongArray nodesByComponent,
+        @Nullable HugeLongArray ranks,
+        HugeLongArray lows,
+        HugeLongArray highs
+    ) {
+        lows.fill(Long.MAX_VALUE);
+        highs.fill(Long.MIN_VALUE);
+        for (long i = 0; i < nodesByComponent.size(); i++) {
+            long node = nodesByComponent.get(i);
+            long component = components.strongComponent(node);
+            long rank = ranks == null ? component : ranks.get(node);
+            lows.set(component, Math.min(lows.get(component), rank));
+            highs.set(component, Math.max(highs.get(component), rank));
+
+            long end = inverseAdjacency.offset(node + 1);
+            for (long position = inverseAdjacency.offset(node); position < end; position++) {
+                long predecessor = components.strongComponent(inverseAdjacency.source(position));
+                if (predecessor != component) {
+                    lows.set(component, Math.min(lows.get(component), lows.get(predecessor)));
+                    highs.set(component, Math.max(highs.get(component), highs.get(predecessor)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Numbers the nodes in post-order of depth first searches over the incoming relationships,
+     * so the ancestors of a node in a tree-like part of the graph get consecutive ranks.
+     *
+     * @param descending whether roots and relationships are visited from the highest id downwards
+     */
+    private static HugeLongArray postOrderRanks(InverseAdjacency inverseAdjacency, long nodeCount, boolean descending) {
+        var ranks = HugeLongArray.newArray(nodeCount);
+        var visited = new BitSet(nodeCount);
+        // the nodes of the depth first search and the position of their next relationship
+        var callNodes = HugeLongArray.newArray(nodeCount);
+        var callPositions = HugeLongArray.newArray(nodeCount);
+
+        long rank = 0;
+        for (long i = 0; i < nodeCount; i++) {
+            long root = descending ? nodeCount - 1 - i : i;
+            if (visited.get(root)) {
+                continue;
+            }
+            visited.set(root);
+            callNodes.set(0, root);
+            callPositions.set(0, firstPosition(inverseAdjacency, root, descending));
+            long callSize = 1;
+
+            while (callSize > 0) {
+                long node = callNodes.get(callSize - 1);
+                long position = callPositions.get(callSize - 1);
+                boolean hasNext = descending
+                    ? position >= inverseAdjacency.offset(node)
+                    : position < inverseAdjacency.offset(node + 1);
+                if (hasNext) {
+                    callPositions.set(callSize - 1, descending ? position - 1 : position + 1);
+                    long next = inverseAdjacency.source(position);
+                    if (!visited.get(next)) {
+                        visited.set(next);
+                        callNodes.set(callSize, next);
+                        callPositions.set(callSize++, firstPosition(inverseAdjacency, next, descending));
+                    }
+                    continue;
+                }
+                callSize--;
+                ranks.set(node, rank++);
+            }
+        }
+        return ranks;
+    }
+
+    private static long firstPosition(InverseAdjacency inverseAdjacency, long node, boolean descending) {
+        return descending ? inverseAdjacency.offset(node + 1) - 1 : inverseAdjacency.offset(node);
+    }
+}
@@ -0,0 +1,147 @@
+package com.semanticspace.shortestpath;
+
+import org.neo4j.gds.api.Graph;
+import org.neo4j.gds.core.concurrency.ParallelUtil;
+import org.neo4j.gds.core.utils.mem.MemoryEstimation;
+import org.neo4j.gds.core.utils.mem.MemoryEstimations;
+import org.neo4j.gds.core.utils.mem.MemoryRange;
+import org.neo4j.gds.core.utils.paged.HugeAtomicLongArray;
+import org.neo4j.gds.core.utils.paged.HugeDoubleArray;
+import org.neo4j.gds.core.utils.paged.HugeLongArray;
+import org.neo4j.gds.core.utils.partition.PartitionUtils;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Incoming relationships of a graph in compressed sparse row layout.
+ * <p>
+ * GDS 2.0 projections only index the outgoing direction, so searches that walk
+ * relationships backwards (from the target towards the source) build this index
+ * from the outgoing adjacency lists. Every inverse relationship remembers its
+ * relationship id, i.e. the index of the relationship in the adjacency list
+ * of its source node, so that paths found backwards report the same ids as
+ * paths found by a forward search.
+ */
+final class InverseAdjacency {
+
+    private final HugeLongArray offsets;
+    private final HugeLongArray sources;
+    private final HugeDoubleArray weights;
+    // relationship ids (null, if relationships are not tracked)
+    private final HugeLongArray relationshipIds;
+
+    private InverseAdjacency(
+        HugeLongArray offsets,
+        HugeLongArray sources,
+        HugeDoubleArray weights,
+        HugeLongArray relationshipIds
+    ) {
+        this.offsets = offsets;
+        this.sources = sources;
+        this.weights = weights;
+        this.relationshipIds = relationshipIds;
+    }
+
+    static MemoryEstimation memoryEstimation(boolean trackRelationships) {
+        var builder = MemoryEstimations.builder(InverseAdjacency.class)
+            .perNode("offsets", HugeLongArray::memoryEstimation)
+            .perGraphDimension("sources", (dimensions, concurrency) -> MemoryRange.of(HugeLongArray.memoryEstimation(dimensions.relCountUpperBound())))
+            .perGraphDimension("weights", (dimensions, concurrency) -> MemoryRange.of(HugeDoubleArray.memoryEstimation(dimensions.relCountUpperBound())));
+        if (trackRelationships) {
+            builder.perGraphDimension("relationship ids", (dimensions, concurrency) -> MemoryRange.of(HugeLongArray.memoryEstimation(dimensions.relCountUpperBound())));
+        }
+        return builder.build();
+    }
+
+    static InverseAdjacency of(Graph graph, boolean trackRelationships, int concurrency, ExecutorService executorService) {
+        long nodeCount = graph.nodeCount();
+        long relationshipCount = graph.relationshipCount();
+
+        // count the in-degree of every node, shifted by one to turn it into offsets
+        var cursors = HugeAtomicLongArray.newArray(nodeCount + 1);
+        var degreeTasks = PartitionUtils.rangePartition(concurrency, nodeCount, partition -> (Runnable) () -> {
+            var localGraph = graph.concurrentCopy();
+            long endNode = partition.startNode() + partition.nodeCount();
+            for (long node = partition.startNode(); node < endNode; node++) {
+                localGraph.forEachRelationship(node, (source, target) -> {
+                    cursors.getAndAdd(target + 1, 1);
+                    return true;
+                });
+            }
+        }, Optional.empty());
+        ParallelUtil.run(degreeTasks, executorService);
+
+        var offsets = HugeLongArray.newArray(nodeCount + 1);
+        long offset = 0;
+        for (long node = 0; node <= nodeCount; node++) {
+            offset += cursors.get(node);
+            offsets.set(node, offset);
+            cursors.set(node, offset);
+        }
+
+        var sources = HugeLongArray.newArray(relationshipCount);
+        var weights = HugeDoubleArray.newArray(relationshipCount);
+        var relationshipIds = trackRelationships ? HugeLongArray.newArray(relationshipCount) : null;
+
+        var fillTasks = PartitionUtils.rangePartition(concurrency, nodeCount, partition -> (Runnable) () -> {
+            var localGraph = graph.concurrentCopy();
+            long endNode = partition.startNode() + partition.nodeCount();
+            long[] relationshipId = new long[1];
+            for (long node = partition.startNode(); node < endNode; node++) {
+                relationshipId[0] = 0;
+                localGraph.forEachRelationship(node, 1.0D, (source, target, weight) -> {
+                    long position = cursors.getAndAdd(target, 1);
+                    sources.set(position, source);
+                    weights.set(position, weight);
+                    if (relationshipIds != null) {
+                        relationshipIds.set(position, relationshipId[0]);
+                    }
+                    relationshipId[0]++;
+                    return true;
+                });
+            }
+        }, Optional.empty());
+        ParallelUtil.run(fillTasks, executorService);
+
+        return new InverseAdjacency(offsets, sources, weights, relationshipIds);
+    }
+
+    long degree(long node) {
+        return offsets.get(node + 1) - offsets.get(node);
+    }
+
+    /**
+     * The position of the first relationship pointing to the node, the relationships of a node
+     * end at the offset of the next node. Lets iterative traversals resume a node's relationships.
+     */
+    long offset(long node) {
+        return offsets.get(node);
+    }
+
+    /**
+     * The source node of the relationship at the given position.
+     */
+    long source(long position) {
+        return sources.get(position);
+    }
+
+    /**
+     * Calls the consumer for every relationship pointing to the given node
+     * until the consumer returns {@code false}.
+     */
+    void forEachInverseRelationship(long node, InverseRelationshipConsumer consumer) {
+        long end = offsets.get(node + 1);
+        for (long position = offsets.get(node); position < end; position++) {
+            long relationshipId = relationshipIds == null ? DijkstraMultiplePairs.NO_RELATIONSHIP : relationshipIds.get(position);
+            if (!consumer.accept(sources.get(position), node, weights.get(position), relationshipId)) {
+                return;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface InverseRelationshipConsumer {
+        boolean accept(long source, long target, double weight, long relationshipId);
+    }
+}
@@ -0,0 +1,320 @@
+package com.semanticspace.shortestpath;
+
+import com.carrotsearch.hppc.BitSet;
+import org.neo4j.gds.api.Graph;
+import org.neo4j.gds.core.concurrency.ParallelUtil;
+import org.neo4j.gds.core.utils.mem.MemoryEstimation;
+import org.neo4j.gds.core.utils.mem.MemoryEstimations;
+import org.neo4j.gds.core.utils.paged.HugeDoubleArray;
+import org.neo4j.gds.core.utils.partition.PartitionUtils;
+import org.neo4j.gds.core.utils.queue.HugeLongPriorityQueue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Distances from and to a small set of landmark nodes, used as A* heuristic (ALT).
+ * <p>
+ * By the triangle inequality, for every landmark {@code l} the distance from {@code v} to {@code t}
+ * is at least {@code d(l, t) - d(l, v)} and at least {@code d(v, l) - d(t, l)}. The maximum over
+ * all landmarks is a consistent lower bound that does not require node coordinates.
+ */
+final class LandmarkIndex implements DijkstraMultiplePairs.Heuristic {
+
+    private final long[] landmarks;
+    // distances from the landmark to every node
+    private final HugeDoubleArray[] fromLandmark;
+    // distances from every node to the landmark
+    private final HugeDoubleArray[] toLandmark;
+
+    private LandmarkIndex(long[] landmarks, HugeDoubleArray[] fromLandmark, HugeDoubleArray[] toLandmark) {
+        this.landmarks = landmarks;
+        this.fromLandmark = fromLandmark;
+        this.toLandmark = toLandmark;
+    }
+
+    static MemoryEstimation memoryEstimation(int landmarkCount) {
+        return MemoryEstimations.builder(LandmarkIndex.class)
+            .perNode("landmark distances", nodeCount -> 2L * landmarkCount * HugeDoubleArray.memoryEstimation(nodeCount))
+            .build();
+    }
+
+    /**
+     * @param inverseAdjacency incoming relationships, {@code null} for undirected graphs
+     *                         where distances to and from a landmark are the same
+     */
+    static LandmarkIndex compute(
+        Graph graph,
+        InverseAdjacency inverseAdjacency,
+        int landmarkCount,
+        LandmarkSelection selection,
+        int concurrency,
+        ExecutorService executorService
+    ) {
+        int count = (int) Math.min(landmarkCount, graph.nodeCount());
+        var fromLandmark = new HugeDoubleArray[count];
+        var toLandmark = new HugeDoubleArray[count];
+        if (count == 0) {
+            return new LandmarkIndex(new long[0], fromLandmark, toLandmark);
+        }
+
+        if (selection == LandmarkSelection.DEGREE) {
+            long[] landmarks = highestDegreeNodes(graph, count);
+            List<Runnable> tasks = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                int landmarkIndex = i;
+                tasks.add(() -> fromLandmark[landmarkIndex] = forwardDistances(graph.concurrentCopy(), landmarks[landmarkIndex]));
+                if (inverseAdjacency != null) {
+                    tasks.add(() -> toLandmark[landmarkIndex] = backwardDistances(graph.nodeCount(), inverseAdjacency, landmarks[landmarkIndex]));
+                }
+            }
+            ParallelUtil.runWithConcurrency(concurrency, tasks, executorService);
+            return new LandmarkIndex(landmarks, fromLandmark, inverseAdjacency == null ? fromLandmark : toLandmark);
+        }
+
+        // each landmark depends on the distances from the ones before, the backward searches do not
+        // and run while the next landmarks are picked
+        List<Future<?>> backwardSearches = new ArrayList<>();
+        long[] landmarks = farthestNodes(graph, count, fromLandmark, concurrency, executorService, (landmarkIndex, landmark) -> {
+            if (inverseAdjacency != null) {
+                backwardSearches.add(executorService.submit(
+                    () -> toLandmark[landmarkIndex] = backwardDistances(graph.nodeCount(), inverseAdjacency, landmark)
+                ));
+            }
+        });
+        for (var backwardSearch : backwardSearches) {
+            try {
+                backwardSearch.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while computing landmark distances", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Failed to compute landmark distances", e.getCause());
+            }
+        }
+
+        return new LandmarkIndex(landmarks, fromLandmark, inverseAdjacency == null ? fromLandmark : toLandmark);
+    }
+
+    long[] landmarks() {
+        return landmarks;
+    }
+
+    @Override
+    public DijkstraMultiplePairs.HeuristicFunction towards(long targetNode) {
+        int count = landmarks.length;
+        double[] fromLandmarkToTarget = new double[count];
+        double[] fromTargetToLandmark = new double[count];
+        for (int i = 0; i < count; i++) {
+            fromLandmarkToTarget[i] = fromLandmark[i].get(targetNode);
+            fromTargetToLandmark[i] = toLandmark[i].get(targetNode);
+        }
+
+        return node -> {
+            double bound = 0.0;
+            for (int i = 0; i < count; i++) {
+                // infinite distances do not bound anything
+                double fromLandmarkToNode = fromLandmark[i].get(node);
+                if (fromLandmarkToTarget[i] != Double.POSITIVE_INFINITY && fromLandmarkToNode != Double.POSITIVE_INFINITY) {
+                    bound = Math.max(bound, fromLandmarkToTarget[i] - fromLandmarkToNode);
+                }
+                double fromNodeToLandmark = toLandmark[i].get(node);
+                if (fromNodeToLandmark != Double.POSITIVE_INFINITY && fromTargetToLandmark[i] != Double.POSITIVE_INFINITY) {
+                    bound = Math.max(bound, fromNodeToLandmark - fromTargetToLandmark[i]);
+                }
+            }
+            return bound;
+        };
+    }
+
+    private static long[] highestDegreeNodes(Graph graph, int count) {
+        // landmarks ordered by descending degree, kept sorted by insertion
+        long[] landmarks = new long[count];
+        int[] degrees = new int[count];
+        Arrays.fill(degrees, -1);
+        for (long node = 0; node < graph.nodeCount(); node++) {
+            int degree = graph.degree(node);
+            if (degree <= degrees[count - 1]) {
+                continue;
+            }
+            int position = count - 1;
+            while (position > 0 && degrees[position - 1] < degree) {
+                degrees[position] = degrees[position - 1];
+                landmarks[position] = landmarks[position - 1];
+                position--;
+            }
+            degrees[position] = degree;
+            landmarks[position] = node;
+        }
+        return landmarks;
+    }
+
+    /**
+     * Picks every landmark as the node that is farthest from all landmarks picked so far among the nodes
+     * reachable from them. A node no landmark reaches yields no bound for the nodes landmarks do reach,
+     * so once all of those are landmarks, the node of highest degree outside of them starts the next part
+     * of the graph. Isolated nodes are thus only picked when there is nothing else left.
+     * <p>
+     * The distances from the new landmark are folded into the smallest distances and scanned for the next
+     * landmark on all threads.
+     *
+     * @param onLandmark called with the index and the node of every landmark as soon as it is picked
+     */
+    private static long[] farthestNodes(
+        Graph graph,
+        int count,
+        HugeDoubleArray[] fromLandmark,
+        int concurrency,
+        ExecutorService executorService,
+        LandmarkConsumer onLandmark
+    ) {
+        long nodeCount = graph.nodeCount();
+        var minDistances = HugeDoubleArray.newArray(nodeCount);
+        minDistances.fill(Double.POSITIVE_INFINITY);
+        var isLandmark = new BitSet(nodeCount);
+
+        // start from the node of highest degree and take the reachable node farthest away from it
+        long start = highestDegreeNodes(graph, 1)[0];
+        var startDistances = forwardDistances(graph, start);
+        long next = farthestNode(startDistances, isLandmark, nodeCount, concurrency, executorService);
+
+        long[] landmarks = new long[count];
+        for (int i = 0; i < count; i++) {
+            landmarks[i] = next;
+            isLandmark.set(next);
+            onLandmark.accept(i, next);
+            var distances = forwardDistances(graph, next);
+            fromLandmark[i] = distances;
+            if (i == count - 1) {
+                break;
+            }
+
+            ParallelUtil.run(PartitionUtils.rangePartition(concurrency, nodeCount, partition -> (Runnable) () -> {
+                long endNode = partition.startNode() + partition.nodeCount();
+                for (long node = partition.startNode(); node < endNode; node++) {
+                    minDistances.set(node, Math.min(minDistances.get(node), distances.get(node)));
+                }
+            }, Optional.empty()), executorService);
+
+            next = farthestNode(minDistances, isLandmark, nodeCount, concurrency, executorService);
+            if (next == -1) {
+                next = highestDegreeUnreachedNode(graph, minDistances, isLandmark);
+            }
+        }
+        return landmarks;
+    }
+
+    /**
+     * @return the node with the largest finite distance that is not excluded, -1 if there is none
+     */
+    private static long farthestNode(HugeDoubleArray distances, BitSet excluded, long nodeCount, int concurrency, ExecutorService executorService) {
+        // every partition keeps its own maximum, the partitions are merged in order
+        var partitions = PartitionUtils.rangePartition(concurrency, nodeCount, partition -> partition, Optional.empty());
+        var farthestNodes = new long[partitions.size()];
+        var maxDistances = new double[partitions.size()];
+        List<Runnable> tasks = new ArrayList<>();
+        for (int i = 0; i < partitions.size(); i++) {
+            int partitionIndex = i;
+            var partition = partitions.get(i);
+            tasks.add(() -> {
+                long farthest = -1;
+                double maxDistance = -1;
+                long endNode = partition.startNode() + partition.nodeCount();
+                for (long node = partition.startNode(); node < endNode; node++) {
+                    double distance = distances.get(node);
+                    if (!excluded.get(node) && distance != Double.POSITIVE_INFINITY && distance > maxDistance) {
+                        maxDistance = distance;
+                        farthest = node;
+                    }
+                }
+                farthestNodes[partitionIndex] = farthest;
+                maxDistances[partitionIndex] = maxDistance;
+            });
+        }
+        ParallelUtil.run(tasks, executorService);
+
+        long farthest = -1;
+        double maxDistance = -1;
+        for (int i = 0; i < farthestNodes.length; i++) {
+            if (maxDistances[i] > maxDistance) {
+                maxDistance = maxDistances[i];
+                farthest = farthestNodes[i];
+            }
+        }
+        return farthest;
+    }
+
+    private static long highestDegreeUnreachedNode(Graph graph, HugeDoubleArray minDistances, BitSet isLandmark) {
+        long highest = -1;
+        for (long node = 0; node < graph.nodeCount(); node++) {
+            if (!isLandmark.get(node) && minDistances.get(node) == Double.POSITIVE_INFINITY &&
+                (highest == -1 || graph.degree(node) > graph.degree(highest))) {
+                highest = node;
+            }
+        }
+        return highest;
+    }
+
+    @FunctionalInterface
+    private interface LandmarkConsumer {
+        void accept(int landmarkIndex, long landmark);
+    }
+
+    private static HugeDoubleArray forwardDistances(Graph graph, long sourceNode) {
+        var distances = HugeDoubleArray.newArray(graph.nodeCount());
+        distances.fill(Double.POSITIVE_INFINITY);
+        var queue = HugeLongPriorityQueue.min(graph.nodeCount());
+        var visited = new BitSet(graph.nodeCount());
+
+        queue.add(sourceNode, 0.0);
+        while (!queue.isEmpty()) {
+            var node = queue.pop();
+            var cost = queue.cost(node);
+            visited.set(node);
+            distances.set(node, cost);
+
+            graph.forEachRelationship(node, 1.0D, (source, target, weight) -> {
+                relax(queue, visited, target, cost + weight);
+                return true;
+            });
+        }
+        return distances;
+    }
+
+    private static HugeDoubleArray backwardDistances(long nodeCount, InverseAdjacency inverseAdjacency, long targetNode) {
+        var distances = HugeDoubleArray.newArray(nodeCount);
+        distances.fill(Double.POSITIVE_INFINITY);
+        var queue = HugeLongPriorityQueue.min(nodeCount);
+        var visited = new BitSet(nodeCount);
+
+        queue.add(targetNode, 0.0);
+        while (!queue.isEmpty()) {
+            var node = queue.pop();
+            var cost = queue.cost(node);
+            visited.set(node);
+            distances.set(node, cost);
+
+            inverseAdjacency.forEachInverseRelationship(node, (source, target, weight, relationshipId) -> {
+                relax(queue, visited, source, cost + weight);
+                return true;
+            });
+        }
+        return distances;
+    }
+
+    private static void relax(HugeLongPriorityQueue queue, BitSet visited, long node, double newCost) {
+        if (visited.get(node)) {
+            return;
+        }
+        if (!queue.containsElement(node)) {
+            queue.add(node, newCost);
+        } else if (newCost < queue.cost(node)) {
+            queue.set(node, newCost);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.semanticspace.shortestpath;
+
+import java.util.Arrays;
+
+import static org.neo4j.gds.utils.StringFormatting.formatWithLocale;
+import static org.neo4j.gds.utils.StringFormatting.toUpperCaseWithLocale;
+
+/**
+ * How the landmarks of the {@link SearchMode#ALT} search mode are chosen.
+ */
+public enum LandmarkSelection {
+    /**
+     * Every landmark is the node farthest away from the landmarks chosen before.
+     */
+    FARTHEST,
+    /**
+     * The nodes of highest degree.
+     */
+    DEGREE;
+
+    public static LandmarkSelection parse(Object input) {
+        if (input instanceof LandmarkSelection) {
+            return (LandmarkSelection) input;
+        }
+        if (input instanceof String) {
+            try {
+                return valueOf(toUpperCaseWithLocale((String) input));
+            } catch (IllegalArgumentException e) {
+                // fall through to the error below
+            }
+        }
+        throw new IllegalArgumentException(formatWithLocale(
+            "Landmark selection `%s` is not supported. Must be one of: %s.",
+            input,
+            Arrays.toString(values())
+        ));
+    }
+
+    public static String toString(LandmarkSelection selection) {
+        return selection.name();
+    }
+}
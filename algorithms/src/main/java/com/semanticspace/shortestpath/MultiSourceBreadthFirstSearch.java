@@ -0,0 +1,184 @@
+package com.semanticspace.shortestpath;
+
+import com.carrotsearch.hppc.LongLongHashMap;
+import com.carrotsearch.hppc.LongObjectHashMap;
+import org.neo4j.gds.api.Graph;
+import org.neo4j.gds.api.RelationshipConsumer;
+import org.neo4j.gds.core.utils.mem.MemoryEstimation;
+import org.neo4j.gds.core.utils.mem.MemoryEstimations;
+import org.neo4j.gds.core.utils.paged.HugeLongArray;
+import org.neo4j.gds.core.utils.progress.tasks.ProgressTracker;
+
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Breadth first searches from up to 64 sources in a single traversal (MS-BFS, Then et al.).
+ * <p>
+ * Every source owns one bit, its lane, of a {@code long}. Each node carries the lanes that have reached it
+ * and the lanes that reached it in the current level, so a level visits the relationships of a node once
+ * for all sources that reached it in that level instead of once per source.
+ * <p>
+ * Only the lanes of the current and the next level are kept besides the lanes that have reached a node at all,
+ * so memory does not grow with the diameter of the graph. The depth at which a lane reaches one of its targets
+ * is recorded when it happens, paths are not unpacked.
+ * <p>
+ * One instance is used by a single worker, the arrays are reused by all of its searches.
+ */
+final class MultiSourceBreadthFirstSearch {
+
+    static final int LANES = Long.SIZE;
+
+    private static final int NOT_REACHED = -1;
+
+    private final Graph graph;
+    private final DijkstraMultiplePairs.RelationshipFilter relationshipFilter;
+    private final ProgressTracker progressTracker;
+
+    // lanes that have reached the node in any level so far
+    private final HugeLongArray seen;
+    // lanes that have reached the node in the current and in the next level, swapped after every level
+    private HugeLongArray current;
+    private HugeLongArray next;
+    // the depth at which every lane has reached the target, by target node
+    private final LongObjectHashMap<int[]> targetDepths = new LongObjectHashMap<>();
+
+    // the state of the level being expanded, read by the relationship consumer
+    private final LevelRelaxation relaxation = new LevelRelaxation();
+
+    /**
+     * @param graph a graph copy owned by the calling thread
+     */
+    MultiSourceBreadthFirstSearch(
+        Graph graph,
+        DijkstraMultiplePairs.RelationshipFilter relationshipFilter,
+        ProgressTracker progressTracker
+    ) {
+        this.graph = graph;
+        this.relationshipFilter = relationshipFilter;
+        this.progressTracker = progressTracker;
+        this.seen = HugeLongArray.newArray(graph.nodeCount());
+        this.current = HugeLongArray.newArray(graph.nodeCount());
+        this.next = HugeLongArray.newArray(graph.nodeCount());
+    }
+
+    /**
+     * The lanes seen so far and those of the current and the next level, the target depths are negligible.
+     */
+    static MemoryEstimation memoryEstimation() {
+        return MemoryEstimations.builder(MultiSourceBreadthFirstSearch.class)
+            .perNode("seen lanes", HugeLongArray::memoryEstimation)
+            .perNode("level lanes", nodeCount -> 2 * HugeLongArray.memoryEstimation(nodeCount))
+            .build();
+    }
+
+    /**
+     * Searches from all sources at once until every lane has reached its targets,
+     * the maximum depth is reached or the search space is exhausted.
+     *
+     * @param sourceNodes at most {@link #LANES} source nodes, the index of a source is its lane
+     * @param targetLanes the lanes requesting a node as target, by target node
+     */
+    void search(long[] sourceNodes, LongLongHashMap targetLanes, int maxDepth, BooleanSupplier running) {
+        targetDepths.clear();
+        long pendingTargets = 0;
+        for (var cursor : targetLanes) {
+            var depths = new int[sourceNodes.length];
+            Arrays.fill(depths, NOT_REACHED);
+            targetDepths.put(cursor.key, depths);
+            pendingTargets += Long.bitCount(cursor.value);
+        }
+
+        seen.fill(0L);
+        current.fill(0L);
+        for (int lane = 0; lane < sourceNodes.length; lane++) {
+            long node = sourceNodes[lane];
+            long bit = 1L << lane;
+            current.or(node, bit);
+            seen.or(node, bit);
+            pendingTargets -= reachTargets(node, bit & targetLanes.getOrDefault(node, 0L), 0);
+        }
+
+        var relaxation = this.relaxation;
+        relaxation.targetLanes = targetLanes;
+        long nodeCount = graph.nodeCount();
+        // the current level holds the nodes at the given depth
+        for (int depth = 0; pendingTargets > 0 && depth < maxDepth && running.getAsBoolean(); depth++) {
+            next.fill(0L);
+            relaxation.depth = depth + 1;
+            relaxation.reachedTargets = 0;
+            relaxation.reachedAny = false;
+            for (long node = 0; node < nodeCount; node++) {
+                long lanes = current.get(node);
+                if (lanes == 0) {
+                    continue;
+                }
+                progressTracker.logProgress(graph.degree(node));
+
+                relaxation.lanes = lanes;
+                relaxation.relationshipId = 0;
+                graph.forEachRelationship(node, relaxation);
+            }
+            if (!relaxation.reachedAny) {
+                break;
+            }
+            pendingTargets -= relaxation.reachedTargets;
+            var expanded = current;
+            current = next;
+            next = expanded;
+        }
+    }
+
+    /**
+     * @return the depth at which the lane has reached the target or -1 if it has not reached it
+     */
+    int depthTo(int lane, long targetNode) {
+        var depths = targetDepths.get(targetNode);
+        return depths == null ? NOT_REACHED : depths[lane];
+    }
+
+    /**
+     * Records the depth of the given lanes at a target.
+     *
+     * @return the number of lanes
+     */
+    private int reachTargets(long target, long lanes, int depth) {
+        if (lanes == 0) {
+            return 0;
+        }
+        var depths = targetDepths.get(target);
+        for (long remaining = lanes; remaining != 0; remaining &= remaining - 1) {
+            depths[Long.numberOfTrailingZeros(remaining)] = depth;
+        }
+        return Long.bitCount(lanes);
+    }
+
+    /**
+     * Passes the lanes of a node of the current level on to its unseen neighbours, allocated once per search.
+     */
+    private final class LevelRelaxation implements RelationshipConsumer {
+        private LongLongHashMap targetLanes;
+        private int depth;
+        private long lanes;
+        private long relationshipId;
+        private long reachedTargets;
+        // true, iff the level has reached a node
+        private boolean reachedAny;
+
+        @Override
+        public boolean accept(long source, long target) {
+            long id = relationshipId++;
+            if (!relationshipFilter.test(source, target, id)) {
+                return true;
+            }
+            long newLanes = lanes & ~seen.get(target);
+            if (newLanes != 0) {
+                next.or(target, newLanes);
+                seen.or(target, newLanes);
+                reachedAny = true;
+                reachedTargets += reachTargets(target, newLanes & targetLanes.getOrDefault(target, 0L), depth);
+            }
+            return true;
+        }
+    }
+}
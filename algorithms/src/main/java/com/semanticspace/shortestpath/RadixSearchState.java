@@ -0,0 +1,238 @@
+package com.semanticspace.shortestpath;
+
+import com.carrotsearch.hppc.LongArrayList;
+import org.jetbrains.annotations.Nullable;
+import org.neo4j.gds.core.utils.mem.MemoryEstimation;
+import org.neo4j.gds.core.utils.mem.MemoryEstimations;
+import org.neo4j.gds.core.utils.mem.MemoryRange;
+import org.neo4j.gds.core.utils.paged.HugeDoubleArray;
+import org.neo4j.gds.core.utils.paged.HugeIntArray;
+import org.neo4j.gds.core.utils.paged.HugeLongArray;
+
+/**
+ * A search state ordering nodes by integral keys in a radix heap, reused by all searches of a worker.
+ * <p>
+ * Keys are the sums of the relationship weights along the tree path, each weight rounded to a multiple
+ * of the quantum. Since Dijkstra pops monotonically increasing keys, every queued key shares its highest
+ * bits with the key popped last. Bucket {@code i} holds the keys whose highest bit differing from the last
+ * key is bit {@code i - 1}, so a key moves to lower buckets at most 64 times, which makes all operations
+ * amortized constant per relationship. Improved keys are queued again and outdated entries are skipped.
+ * <p>
+ * Costs are tracked exactly along the chosen paths. With a quantum of 1 and integral weights, keys equal
+ * costs and the search is exact. Otherwise, every relationship contributes at most half a quantum of
+ * rounding error to the key of a path.
+ */
+final class RadixSearchState implements SearchState {
+
+    private static final int BUCKET_COUNT = Long.SIZE + 1;
+
+    private final double quantum;
+
+    // generation of the search that reached or settled the node, older generations read as unset
+    private final HugeIntArray reachedGenerations;
+    private final HugeIntArray settledGenerations;
+    private final HugeDoubleArray costs;
+    private final HugeLongArray keys;
+    // predecessors (null, if only costs are needed)
+    private final CompactLongArray predecessors;
+    // relationship ids (null, if relationships are not tracked)
+    private final CompactLongArray relationships;
+
+    // pairs of node and key at the time it was queued
+    private final LongArrayList[] bucketNodes = new LongArrayList[BUCKET_COUNT];
+    private final LongArrayList[] bucketKeys = new LongArrayList[BUCKET_COUNT];
+
+    private int generation;
+    private long lastKey;
+    private long queued;
+
+    RadixSearchState(long nodeCount, boolean trackPredecessors, boolean trackRelationships, double quantum) {
+        this.quantum = quantum;
+        this.reachedGenerations = HugeIntArray.newArray(nodeCount);
+        this.settledGenerations = HugeIntArray.newArray(nodeCount);
+        this.costs = HugeDoubleArray.newArray(nodeCount);
+        this.keys = HugeLongArray.newArray(nodeCount);
+        this.predecessors = trackPredecessors ? CompactLongArray.forNodeIds(nodeCount) : null;
+        this.relationships = trackRelationships ? CompactLongArray.forRelationshipIds(nodeCount) : null;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            bucketNodes[bucket] = new LongArrayList();
+            bucketKeys[bucket] = new LongArrayList();
+        }
+        this.generation = 1;
+    }
+
+    static MemoryEstimation memoryEstimation(boolean trackPredecessors, boolean trackRelationships) {
+        var builder = MemoryEstimations.builder(RadixSearchState.class)
+            .perNode("generations", nodeCount -> 2 * HugeIntArray.memoryEstimation(nodeCount))
+            .perNode("costs", HugeDoubleArray::memoryEstimation)
+            .perNode("keys", HugeLongArray::memoryEstimation);
+        if (trackPredecessors) {
+            builder.perNode("predecessors", CompactLongArray::nodeIdsMemoryEstimation);
+        }
+        if (trackRelationships) {
+            builder.perNode("relationship ids", CompactLongArray::relationshipIdsMemoryEstimation);
+        }
+        return builder
+            .rangePerNode("buckets", nodeCount -> MemoryRange.of(0, 2 * Long.BYTES * nodeCount))
+            .build();
+    }
+
+    @Override
+    public void reset(@Nullable DijkstraMultiplePairs.HeuristicFunction heuristicFunction) {
+        if (heuristicFunction != null) {
+            throw new IllegalStateException("A radix heap requires integral keys and does not support A* heuristics.");
+        }
+        if (++generation == Integer.MAX_VALUE) {
+            reachedGenerations.fill(0);
+            settledGenerations.fill(0);
+            generation = 1;
+        }
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            bucketNodes[bucket].clear();
+            bucketKeys[bucket].clear();
+        }
+        this.lastKey = 0;
+        this.queued = 0;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return !moveMinimumToFirstBucket();
+    }
+
+    @Override
+    public long size() {
+        return queued;
+    }
+
+    @Override
+    public double minCost() {
+        moveMinimumToFirstBucket();
+        var nodes = bucketNodes[0];
+        return costs.get(nodes.get(nodes.size() - 1));
+    }
+
+    @Override
+    public long pop() {
+        moveMinimumToFirstBucket();
+        var nodes = bucketNodes[0];
+        long node = nodes.get(nodes.size() - 1);
+        nodes.elementsCount--;
+        bucketKeys[0].elementsCount--;
+        settledGenerations.set(node, generation);
+        queued--;
+        return node;
+    }
+
+    @Override
+    public double cost(long node) {
+        return costs.get(node);
+    }
+
+    @Override
+    public boolean isSettled(long node) {
+        return settledGenerations.get(node) == generation;
+    }
+
+    @Override
+    public boolean isReached(long node) {
+        return reachedGenerations.get(node) == generation;
+    }
+
+    @Override
+    public void relax(long node, double cost, long predecessor, long relationshipId) {
+        long key = node == predecessor
+            ? 0
+            : keys.get(predecessor) + Math.max(0, Math.round((cost - costs.get(predecessor)) / quantum));
+
+        if (!isReached(node)) {
+            reachedGenerations.set(node, generation);
+            queued++;
+        } else if (isSettled(node) || key >= keys.get(node)) {
+            return;
+        }
+
+        costs.set(node, cost);
+        keys.set(node, key);
+        if (predecessors != null) {
+            predecessors.set(node, predecessor);
+        }
+        if (relationships != null) {
+            relationships.set(node, relationshipId);
+        }
+        int bucket = bucket(key);
+        bucketNodes[bucket].add(node);
+        bucketKeys[bucket].add(key);
+    }
+
+    @Override
+    public long predecessor(long node, long defaultValue) {
+        return predecessors != null && isReached(node) ? predecessors.get(node) : defaultValue;
+    }
+
+    @Override
+    public long relationship(long node) {
+        return relationships == null || !isReached(node)
+            ? DijkstraMultiplePairs.NO_RELATIONSHIP
+            : relationships.get(node);
+    }
+
+    private int bucket(long key) {
+        return key == lastKey ? 0 : Long.SIZE - Long.numberOfLeadingZeros(key ^ lastKey);
+    }
+
+    private boolean isOutdated(long node, long key) {
+        return isSettled(node) || keys.get(node) != key;
+    }
+
+    /**
+     * Ensures that the last entry of the first bucket is a current entry of minimal key.
+     *
+     * @return false, if there are no queued nodes left
+     */
+    private boolean moveMinimumToFirstBucket() {
+        while (true) {
+            var firstNodes = bucketNodes[0];
+            var firstKeys = bucketKeys[0];
+            while (!firstNodes.isEmpty() && isOutdated(firstNodes.get(firstNodes.size() - 1), firstKeys.get(firstKeys.size() - 1))) {
+                firstNodes.elementsCount--;
+                firstKeys.elementsCount--;
+            }
+            if (!firstNodes.isEmpty()) {
+                return true;
+            }
+
+            int bucket = 1;
+            while (bucket < BUCKET_COUNT && bucketNodes[bucket].isEmpty()) {
+                bucket++;
+            }
+            if (bucket == BUCKET_COUNT) {
+                return false;
+            }
+
+            var nodes = bucketNodes[bucket];
+            var nodeKeys = bucketKeys[bucket];
+            long minKey = Long.MAX_VALUE;
+            for (int i = 0; i < nodes.size(); i++) {
+                if (!isOutdated(nodes.get(i), nodeKeys.get(i))) {
+                    minKey = Math.min(minKey, nodeKeys.get(i));
+                }
+            }
+            if (minKey != Long.MAX_VALUE) {
+                // all current entries of the bucket move to lower buckets
+                lastKey = minKey;
+                for (int i = 0; i < nodes.size(); i++) {
+                    long node = nodes.get(i);
+                    long key = nodeKeys.get(i);
+                    if (!isOutdated(node, key)) {
+                        int target = bucket(key);
+                        bucketNodes[target].add(node);
+                        bucketKeys[target].add(key);
+                    }
+                }
+            }
+            nodes.clear();
+            nodeKeys.clear();
+        }
+    }
+}
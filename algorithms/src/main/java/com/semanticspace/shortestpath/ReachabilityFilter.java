@@ -0,0 +1,52 @@
+package com.semanticspace.shortestpath;
+
+import java.util.Arrays;
+
+import static org.neo4j.gds.utils.StringFormatting.formatWithLocale;
+import static org.neo4j.gds.utils.StringFormatting.toUpperCaseWithLocale;
+
+/**
+ * How pairs are checked for reachability before they are searched.
+ */
+public enum ReachabilityFilter {
+    /**
+     * Every pair is searched, unreachable pairs explore everything their source reaches.
+     */
+    NONE,
+    /**
+     * Pairs in different weakly connected components, or whose strongly connected components are ordered
+     * the wrong way in the condensation of a directed graph, are answered as unreachable without a search.
+     * The components are computed once per named graph. Searches towards a single target skip nodes
+     * proven not to reach it.
+     */
+    COMPONENTS,
+    /**
+     * On top of the components, pairs are checked against interval labels of the condensation of a directed graph,
+     * which reject most unreachable pairs of DAGs such as taxonomies. Searches towards a single target skip nodes
+     * proven not to reach it. The labels are computed once per named graph, undirected graphs only use the components.
+     */
+    INTERVALS;
+
+    public static ReachabilityFilter parse(Object input) {
+        if (input instanceof ReachabilityFilter) {
+            return (ReachabilityFilter) input;
+        }
+        if (input instanceof String) {
+            var normalized = toUpperCaseWithLocale((String) input);
+            for (ReachabilityFilter filter : values()) {
+                if (filter.name().equals(normalized)) {
+                    return filter;
+                }
+            }
+        }
+        throw new IllegalArgumentException(formatWithLocale(
+            "Reachability filter `%s` is not supported. Must be one of: %s.",
+            input,
+            Arrays.toString(values())
+        ));
+    }
+
+    public static String toString(ReachabilityFilter filter) {
+        return filter.name();
+    }
+}
@@ -0,0 +1,12 @@
+package com.semanticspace.shortestpath;
+
+/**
+ * An index that proves pairs unreachable without searching them. Pairs it does not reject may still be unreachable.
+ */
+interface ReachabilityIndex {
+
+    /**
+     * @return false, iff the target is proven to be unreachable from the source
+     */
+    boolean mayReach(long sourceNode, long targetNode);
+}
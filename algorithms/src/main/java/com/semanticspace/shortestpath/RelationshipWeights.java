@@ -0,0 +1,42 @@
+package com.semanticspace.shortestpath;
+
+import org.neo4j.gds.api.Graph;
+import org.neo4j.gds.core.concurrency.ParallelUtil;
+import org.neo4j.gds.core.utils.partition.PartitionUtils;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Properties of the relationship weights of a graph that decide which search state fits best.
+ */
+final class RelationshipWeights {
+
+    private RelationshipWeights() {}
+
+    /**
+     * True, iff every relationship weight is a non-negative integer. Unweighted graphs have unit weights.
+     */
+    static boolean areNonNegativeIntegers(Graph graph, int concurrency, ExecutorService executorService) {
+        if (!graph.hasRelationshipProperty()) {
+            return true;
+        }
+        var integral = new AtomicBoolean(true);
+        var tasks = PartitionUtils.rangePartition(concurrency, graph.nodeCount(), partition -> (Runnable) () -> {
+            var localGraph = graph.concurrentCopy();
+            long endNode = partition.startNode() + partition.nodeCount();
+            for (long node = partition.startNode(); node < endNode && integral.get(); node++) {
+                localGraph.forEachRelationship(node, 1.0D, (source, target, weight) -> {
+                    if (weight < 0 || weight != Math.rint(weight)) {
+                        integral.set(false);
+                        return false;
+                    }
+                    return true;
+                });
+            }
+        }, Optional.empty());
+        ParallelUtil.run(tasks, executorService);
+        return integral.get();
+    }
+}
@@ -0,0 +1,89 @@
+package com.semanticspace.shortestpath;
+
+import org.jetbrains.annotations.Nullable;
+import org.neo4j.gds.api.Graph;
+import org.neo4j.gds.api.RelationshipWithPropertyConsumer;
+
+/**
+ * Relaxes the relationships of a settled node into a search state.
+ * <p>
+ * A lambda capturing the cost of the node and a relationship counter allocates for every settled node.
+ * Instead, one instance per worker keeps the node being relaxed in fields and is passed to the graph as is.
+ * Searches without relationship filter, pruning and relationship ids use the {@link #plain()} variant,
+ * which neither numbers relationships nor calls a filter.
+ */
+abstract class Relaxation implements RelationshipWithPropertyConsumer {
+
+    SearchState state;
+    double cost;
+
+    /**
+     * Relaxes all relationships of a node that has been reached at the given cost.
+     */
+    void relax(Graph graph, SearchState state, long node, double cost) {
+        this.state = state;
+        this.cost = cost;
+        graph.forEachRelationship(node, 1.0D, this);
+    }
+
+    static Relaxation plain() {
+        return new PlainRelaxation();
+    }
+
+    /**
+     * @param reachabilityIndex proves nodes unable to reach the pruned target, {@code null} if searches are not pruned
+     */
+    static FilteredRelaxation filtered(DijkstraMultiplePairs.RelationshipFilter relationshipFilter, @Nullable ReachabilityIndex reachabilityIndex) {
+        return new FilteredRelaxation(relationshipFilter, reachabilityIndex);
+    }
+
+    private static final class PlainRelaxation extends Relaxation {
+        @Override
+        public boolean accept(long source, long target, double weight) {
+            state.relax(target, cost + weight, source, DijkstraMultiplePairs.NO_RELATIONSHIP);
+            return true;
+        }
+    }
+
+    /**
+     * Numbers the relationships of the node, tests them against the filter and skips targets that cannot
+     * reach the pruned target.
+     */
+    static final class FilteredRelaxation extends Relaxation {
+        private final DijkstraMultiplePairs.RelationshipFilter relationshipFilter;
+        @Nullable
+        private final ReachabilityIndex reachabilityIndex;
+
+        private long relationshipId;
+        private long prunedTarget;
+
+        private FilteredRelaxation(DijkstraMultiplePairs.RelationshipFilter relationshipFilter, @Nullable ReachabilityIndex reachabilityIndex) {
+            this.relationshipFilter = relationshipFilter;
+            this.reachabilityIndex = reachabilityIndex;
+        }
+
+        /**
+         * @param prunedTarget the only target of the search, {@code NO_TARGET} if the search is not pruned
+         */
+        FilteredRelaxation towards(long prunedTarget) {
+            this.prunedTarget = prunedTarget;
+            return this;
+        }
+
+        @Override
+        public boolean accept(long source, long target, double weight) {
+            long id = relationshipId++;
+            if (relationshipFilter.test(source, target, id) &&
+                (prunedTarget == DijkstraMultiplePairs.NO_TARGET || reachabilityIndex.mayReach(target, prunedTarget))) {
+                state.relax(target, cost + weight, source, id);
+            }
+            return true;
+        }
+
+        @Override
+        void relax(Graph graph, SearchState state, long node, double cost) {
+            relationshipId = 0;
+            super.relax(graph, state, node, cost);
+        }
+    }
+}
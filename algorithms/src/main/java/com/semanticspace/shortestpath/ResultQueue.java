@@ -0,0 +1,179 @@
+package com.semanticspace.shortestpath;
+
+import org.neo4j.gds.paths.PathResult;
+
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Hands the results of the workers to the thread consuming the result stream while pairs are still searched.
+ * <p>
+ * Unordered streams pass every path through the queue. Ordered streams only pass the pair indices a task
+ * has answered, the paths stay in the result slots until all earlier pairs are answered as well. Workers
+ * wait while the queue is full and drop their results once the stream is closed.
+ */
+final class ResultQueue {
+
+    static final int CAPACITY = 1 << 12;
+
+    // the last element of the queue, put once all workers have finished
+    private static final Object END = new Object();
+
+    private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(CAPACITY);
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private volatile boolean closed;
+
+    void add(PathResult path) {
+        put(path);
+    }
+
+    /**
+     * Marks the given pairs as answered, their paths have been written to the result slots before.
+     */
+    void complete(int[] pairIndices) {
+        put(pairIndices);
+    }
+
+    /**
+     * Keeps the first failure of a worker, it is thrown to the consumer once all workers have finished.
+     */
+    void fail(Throwable throwable) {
+        failure.compareAndSet(null, throwable);
+    }
+
+    void finish() {
+        put(END);
+    }
+
+    /**
+     * True, iff the consumer has closed the stream and workers can stop.
+     */
+    boolean isClosed() {
+        return closed;
+    }
+
+    void close() {
+        closed = true;
+        queue.clear();
+    }
+
+    Stream<PathResult> unordered() {
+        return stream(new QueueIterator() {
+            @Override
+            PathResult computeNext() {
+                var element = take();
+                return element == END ? null : (PathResult) element;
+            }
+        });
+    }
+
+    /**
+     * @param slots the paths of pair {@code i} in the slots {@code i * pathsPerPair} to {@code (i + 1) * pathsPerPair - 1}
+     */
+    Stream<PathResult> ordered(PathResult[] slots, int pathsPerPair) {
+        int pairCount = slots.length / pathsPerPair;
+        var answeredPairs = new BitSet(pairCount);
+        return stream(new QueueIterator() {
+            int nextSlot = 0;
+
+            @Override
+            PathResult computeNext() {
+                while (true) {
+                    while (nextSlot < slots.length && answeredPairs.get(nextSlot / pathsPerPair)) {
+                        var path = slots[nextSlot];
+                        // streamed paths are no longer referenced by the algorithm
+                        slots[nextSlot++] = null;
+                        if (path != null) {
+                            return path;
+                        }
+                    }
+                    if (nextSlot == slots.length) {
+                        return null;
+                    }
+                    var element = take();
+                    if (element == END) {
+                        // the computation has been terminated before answering all pairs
+                        return null;
+                    }
+                    for (int pairIndex : (int[]) element) {
+                        answeredPairs.set(pairIndex);
+                    }
+                }
+            }
+        });
+    }
+
+    private void put(Object element) {
+        try {
+            while (!closed && !queue.offer(element, 10, MILLISECONDS)) {
+                // the consumer has not taken anything yet, check again whether the stream has been closed
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            closed = true;
+        }
+    }
+
+    private Object take() {
+        Object element;
+        try {
+            element = queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        if (element == END && failure.get() != null) {
+            var throwable = failure.get();
+            if (throwable instanceof RuntimeException) {
+                throw (RuntimeException) throwable;
+            }
+            throw (Error) throwable;
+        }
+        return element;
+    }
+
+    private Stream<PathResult> stream(Iterator<PathResult> iterator) {
+        return StreamSupport
+            .stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+            .onClose(this::close);
+    }
+
+    /**
+     * Iterates until {@link #computeNext()} returns {@code null}.
+     */
+    private abstract static class QueueIterator implements Iterator<PathResult> {
+        private PathResult next;
+        private boolean done;
+
+        abstract PathResult computeNext();
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !done) {
+                next = computeNext();
+                done = next == null;
+            }
+            return next != null;
+        }
+
+        @Override
+        public PathResult next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            var result = next;
+            next = null;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.semanticspace.shortestpath;
+
+import java.util.Arrays;
+
+import static org.neo4j.gds.utils.StringFormatting.formatWithLocale;
+import static org.neo4j.gds.utils.StringFormatting.toUpperCaseWithLocale;
+
+/**
+ * When the paths of a call are handed to the consumer of the result stream.
+ */
+public enum ResultStreaming {
+    /**
+     * The result stream is returned once all pairs are answered.
+     */
+    NONE,
+    /**
+     * The result stream is returned right away and yields the paths in the order of the pairs as soon as
+     * all earlier pairs are answered. Pairs are searched roughly in their order, later pairs are kept until
+     * they are streamed.
+     */
+    ORDERED,
+    /**
+     * The result stream is returned right away and yields every path as soon as it is found.
+     * At most a fixed number of paths waits for the consumer, searches pause while the queue is full.
+     */
+    UNORDERED;
+
+    public static ResultStreaming parse(Object input) {
+        if (input instanceof ResultStreaming) {
+            return (ResultStreaming) input;
+        }
+        if (input instanceof String) {
+            var normalized = toUpperCaseWithLocale((String) input);
+            for (ResultStreaming streaming : values()) {
+                if (streaming.name().equals(normalized)) {
+                    return streaming;
+                }
+            }
+        }
+        throw new IllegalArgumentException(formatWithLocale(
+            "Result streaming `%s` is not supported. Must be one of: %s.",
+            input,
+            Arrays.toString(values())
+        ));
+    }
+
+    public static String toString(ResultStreaming streaming) {
+        return streaming.name();
+    }
+}
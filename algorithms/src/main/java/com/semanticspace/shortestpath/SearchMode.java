@@ -0,0 +1,72 @@
+package com.semanticspace.shortestpath;
+
+import java.util.Arrays;
+
+import static org.neo4j.gds.utils.StringFormatting.formatWithLocale;
+import static org.neo4j.gds.utils.StringFormatting.toUpperCaseWithLocale;
+
+/**
+ * The search strategy used to answer the pairs of {@link DijkstraMultiplePairs}.
+ */
+public enum SearchMode {
+    /**
+     * {@link #DELTA_STEPPING} when there are fewer distinct sources than threads on a large weighted graph
+     * and no coordinates are given, {@link #DIJKSTRA} otherwise.
+     */
+    AUTO,
+    /**
+     * One Dijkstra search per distinct source node, settling nodes until all targets of the source are reached.
+     */
+    DIJKSTRA,
+    /**
+     * A forward search from the source and a backward search from the target over the inverse adjacency,
+     * stopping once the two frontiers meet and prove the optimum.
+     */
+    BIDIRECTIONAL,
+    /**
+     * A* towards the targets of a source, using lower bounds from precomputed landmark distances (ALT).
+     * The landmarks are computed once per named graph and reused by later calls.
+     */
+    ALT,
+    /**
+     * Bidirectional upward searches on a contraction hierarchy, built by
+     * {@code semanticspace.gds.contractionHierarchy.build} or on the first call.
+     * Shortcuts are unpacked into the original relationships of the path. Relationship filters are not supported.
+     */
+    CONTRACTION_HIERARCHY,
+    /**
+     * Distances merged from a 2-hop hub labeling built by pruned landmark labeling, computed once per named graph.
+     * Only answers pairs when {@code distanceOnly} is set, otherwise pairs are searched with {@link #DIJKSTRA}.
+     * Relationship filters are not supported when the labels answer the pairs.
+     */
+    HUB_LABELS,
+    /**
+     * One delta-stepping search per distinct source node, relaxing the relationships of each bucket of width
+     * {@code delta} on all threads. Sources are searched one after another.
+     */
+    DELTA_STEPPING;
+
+    public static SearchMode parse(Object input) {
+        if (input instanceof SearchMode) {
+            return (SearchMode) input;
+        }
+        if (input instanceof String) {
+            // accept 'bidirectional', 'BIDIRECTIONAL' as well as camel case variants of multi word modes
+            var normalized = toUpperCaseWithLocale(((String) input).replace("_", ""));
+            for (SearchMode mode : values()) {
+                if (mode.name().replace("_", "").equals(normalized)) {
+                    return mode;
+                }
+            }
+        }
+        throw new IllegalArgumentException(formatWithLocale(
+            "Search mode `%s` is not supported. Must be one of: %s.",
+            input,
+            Arrays.toString(values())
+        ));
+    }
+
+    public static String toString(SearchMode searchMode) {
+        return searchMode.name();
+    }
+}
@@ -0,0 +1,64 @@
+package com.semanticspace.shortestpath;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The priority queue, settled nodes and shortest path tree of a Dijkstra or A* search.
+ * <p>
+ * Costs and predecessors of settled nodes remain available after they have been popped,
+ * so that paths can be reconstructed once a target is settled. A state is reused by the
+ * searches of one worker and reset before every search.
+ */
+interface SearchState {
+
+    /**
+     * Forgets the previous search.
+     *
+     * @param heuristicFunction lower bounds on the remaining cost that turn the search into A*, may be {@code null}
+     */
+    void reset(@Nullable DijkstraMultiplePairs.HeuristicFunction heuristicFunction);
+
+    boolean isEmpty();
+
+    long size();
+
+    /**
+     * The cost of the node at the head of the queue.
+     */
+    double minCost();
+
+    /**
+     * Removes the node with the smallest cost (plus heuristic) from the queue and settles it.
+     */
+    long pop();
+
+    /**
+     * The cost of a queued or settled node.
+     */
+    double cost(long node);
+
+    boolean isSettled(long node);
+
+    /**
+     * True, iff the node is queued or settled.
+     */
+    boolean isReached(long node);
+
+    /**
+     * Queues the node with the given cost if it has not been reached yet or if the cost improves
+     * the queued cost, in which case the predecessor and relationship are recorded as well.
+     * Settled nodes are never updated.
+     */
+    void relax(long node, double cost, long predecessor, long relationshipId);
+
+    /**
+     * The predecessor of a reached node, the default value if the node has not been reached or predecessors are not tracked.
+     */
+    long predecessor(long node, long defaultValue);
+
+    /**
+     * The id of the relationship leading to the node from its predecessor,
+     * {@link DijkstraMultiplePairs#NO_RELATIONSHIP} if relationships are not tracked.
+     */
+    long relationship(long node);
+}
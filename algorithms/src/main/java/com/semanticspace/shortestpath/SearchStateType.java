@@ -0,0 +1,53 @@
+package com.semanticspace.shortestpath;
+
+import java.util.Arrays;
+
+import static org.neo4j.gds.utils.StringFormatting.formatWithLocale;
+import static org.neo4j.gds.utils.StringFormatting.toUpperCaseWithLocale;
+
+/**
+ * The memory layout of the {@link SearchState} every worker thread searches with.
+ */
+public enum SearchStateType {
+    /**
+     * {@link #RADIX} when relationship weights are non-negative integers or quantized, {@link #DENSE} otherwise.
+     */
+    AUTO,
+    /**
+     * Arrays sized by the node count of the graph, allocated once per thread and reset in constant time.
+     * Fastest when searches settle large parts of the graph.
+     */
+    DENSE,
+    /**
+     * Hash-indexed heap and open-addressing maps, sized by the nodes a search actually reaches.
+     */
+    SPARSE,
+    /**
+     * A radix heap over integral costs with amortized constant time operations, sized like {@link #DENSE}.
+     * Requires non-negative integral weights or a {@code weightQuantum} the weights are rounded to.
+     * A* searches fall back to {@link #DENSE}.
+     */
+    RADIX;
+
+    public static SearchStateType parse(Object input) {
+        if (input instanceof SearchStateType) {
+            return (SearchStateType) input;
+        }
+        if (input instanceof String) {
+            try {
+                return valueOf(toUpperCaseWithLocale((String) input));
+            } catch (IllegalArgumentException e) {
+                // fall through to the error below
+            }
+        }
+        throw new IllegalArgumentException(formatWithLocale(
+            "Search state `%s` is not supported. Must be one of: %s.",
+            input,
+            Arrays.toString(values())
+        ));
+    }
+
+    public static String toString(SearchStateType searchStateType) {
+        return searchStateType.name();
+    }
+}
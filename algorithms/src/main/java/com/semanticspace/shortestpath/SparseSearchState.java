@@ -0,0 +1,194 @@
+package com.semanticspace.shortestpath;
+
+import com.carrotsearch.hppc.LongDoubleHashMap;
+import com.carrotsearch.hppc.LongIntHashMap;
+import com.carrotsearch.hppc.LongLongHashMap;
+import org.jetbrains.annotations.Nullable;
+import org.neo4j.gds.core.utils.mem.MemoryEstimation;
+import org.neo4j.gds.core.utils.mem.MemoryEstimations;
+import org.neo4j.gds.core.utils.mem.MemoryRange;
+
+import java.util.Arrays;
+
+/**
+ * A search state whose memory is proportional to the nodes the search reaches.
+ * <p>
+ * Queued nodes live in a binary heap whose positions are indexed by an open-addressing map,
+ * which allows decreasing the cost of a queued node in place. Costs and predecessors are kept
+ * in open-addressing maps as well, so a search that settles a few thousand nodes allocates
+ * kilobytes, independent of the size of the graph.
+ */
+final class SparseSearchState implements SearchState {
+
+    private static final int NOT_REACHED = -2;
+    private static final int SETTLED = -1;
+
+    // heap position of queued nodes, SETTLED for settled nodes
+    private final LongIntHashMap positions = new LongIntHashMap();
+    private final LongDoubleHashMap costs = new LongDoubleHashMap();
+    // predecessors (null, if only costs are needed)
+    private final LongLongHashMap predecessors;
+    // relationship ids (null, if relationships are not tracked)
+    private final LongLongHashMap relationships;
+    @Nullable
+    private DijkstraMultiplePairs.HeuristicFunction heuristicFunction;
+
+    // queued nodes ordered by their cost plus heuristic
+    private long[] heap = new long[16];
+    private double[] keys = new double[16];
+    private int size;
+
+    SparseSearchState(boolean trackPredecessors, boolean trackRelationships) {
+        this.predecessors = trackPredecessors ? new LongLongHashMap() : null;
+        this.relationships = trackRelationships ? new LongLongHashMap() : null;
+    }
+
+    /**
+     * Ranges from a search that settles a single node to one that reaches every node.
+     */
+    static MemoryEstimation memoryEstimation(boolean trackPredecessors, boolean trackRelationships) {
+        // keys and values of the hash maps at their default load factor, plus heap entries
+        int longValues = (trackPredecessors ? 1 : 0) + (trackRelationships ? 1 : 0);
+        long bytesPerNode = (long) ((2 * Long.BYTES + Integer.BYTES + Double.BYTES + longValues * Long.BYTES) / 0.75)
+                            + Long.BYTES + Double.BYTES;
+        return MemoryEstimations.builder(SparseSearchState.class)
+            .rangePerNode("reached nodes", nodeCount -> MemoryRange.of(bytesPerNode, nodeCount * bytesPerNode))
+            .build();
+    }
+
+    @Override
+    public void reset(@Nullable DijkstraMultiplePairs.HeuristicFunction heuristicFunction) {
+        positions.clear();
+        costs.clear();
+        if (predecessors != null) {
+            predecessors.clear();
+        }
+        if (relationships != null) {
+            relationships.clear();
+        }
+        this.heuristicFunction = heuristicFunction;
+        this.size = 0;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public double minCost() {
+        return costs.get(heap[0]);
+    }
+
+    @Override
+    public long pop() {
+        long node = heap[0];
+        positions.put(node, SETTLED);
+        size--;
+        if (size > 0) {
+            place(heap[size], keys[size], 0);
+            siftDown(0);
+        }
+        return node;
+    }
+
+    @Override
+    public double cost(long node) {
+        return costs.get(node);
+    }
+
+    @Override
+    public boolean isSettled(long node) {
+        return positions.getOrDefault(node, NOT_REACHED) == SETTLED;
+    }
+
+    @Override
+    public boolean isReached(long node) {
+        return positions.containsKey(node);
+    }
+
+    @Override
+    public void relax(long node, double cost, long predecessor, long relationshipId) {
+        int position = positions.getOrDefault(node, NOT_REACHED);
+        if (position == SETTLED) {
+            return;
+        }
+        if (position == NOT_REACHED) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            position = size++;
+        } else if (cost >= costs.get(node)) {
+            return;
+        }
+
+        costs.put(node, cost);
+        if (predecessors != null) {
+            predecessors.put(node, predecessor);
+        }
+        if (relationships != null) {
+            relationships.put(node, relationshipId);
+        }
+        double key = heuristicFunction == null ? cost : cost + heuristicFunction.applyAsDouble(node);
+        place(node, key, position);
+        siftUp(position);
+    }
+
+    @Override
+    public long predecessor(long node, long defaultValue) {
+        return predecessors == null ? defaultValue : predecessors.getOrDefault(node, defaultValue);
+    }
+
+    @Override
+    public long relationship(long node) {
+        return relationships == null
+            ? DijkstraMultiplePairs.NO_RELATIONSHIP
+            : relationships.getOrDefault(node, DijkstraMultiplePairs.NO_RELATIONSHIP);
+    }
+
+    private void place(long node, double key, int position) {
+        heap[position] = node;
+        keys[position] = key;
+        positions.put(node, position);
+    }
+
+    private void siftUp(int position) {
+        long node = heap[position];
+        double key = keys[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (keys[parent] <= key) {
+                break;
+            }
+            place(heap[parent], keys[parent], position);
+            position = parent;
+        }
+        place(node, key, position);
+    }
+
+    private void siftDown(int position) {
+        long node = heap[position];
+        double key = keys[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && keys[child + 1] < keys[child]) {
+                child++;
+            }
+            if (keys[child] >= key) {
+                break;
+            }
+            place(heap[child], keys[child], position);
+            position = child;
+        }
+        place(node, key, position);
+    }
+}
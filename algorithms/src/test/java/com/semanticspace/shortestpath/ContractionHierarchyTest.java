@@ -0,0 +1,76 @@
+package com.semanticspace.shortestpath;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.neo4j.gds.api.Graph;
+import org.neo4j.gds.core.concurrency.Pools;
+import org.neo4j.gds.core.utils.progress.tasks.ProgressTracker;
+import org.neo4j.gds.extension.GdlExtension;
+import org.neo4j.gds.extension.GdlGraph;
+import org.neo4j.gds.extension.IdFunction;
+import org.neo4j.gds.extension.Inject;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.semanticspace.shortestpath.DijkstraMultiplePairsTest.defaultMultiplePairsConfigBuilder;
+import static com.semanticspace.shortestpath.PathTestUtil.expected;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@GdlExtension
+final class ContractionHierarchyTest {
+
+    @GdlGraph
+    private static final String DB_CYPHER = DijkstraMultiplePairsTest.COORDINATE_GRAPH;
+
+    @Inject
+    private Graph graph;
+
+    @Inject
+    private IdFunction idFunction;
+
+    @Test
+    void shouldUnpackContractionHierarchyShortcuts() {
+        var expected = Set.of(
+                expected(idFunction, 0, new double[]{0.0, 1.0, 2.0}, "a", "b", "c"),
+                expected(idFunction, 1, new double[]{0.0, 1.5}, "a", "d"),
+                expected(idFunction, 2, new double[]{0.0, 3.5}, "e", "c")
+        );
+
+        // c does not reach a, the pair yields no path
+        var config = defaultMultiplePairsConfigBuilder()
+                .sourceNodes(Arrays.asList(idFunction.of("a"), idFunction.of("a"), idFunction.of("e"), idFunction.of("c")))
+                .targetNodes(Arrays.asList(idFunction.of("c"), idFunction.of("d"), idFunction.of("c"), idFunction.of("a")))
+                .searchMode(SearchMode.CONTRACTION_HIERARCHY)
+                .build();
+
+        var paths = DijkstraMultiplePairs
+                .createInstance(graph, config, Optional.empty(), ProgressTracker.NULL_TRACKER, Pools.DEFAULT, 4)
+                .compute()
+                .pathSet();
+
+        assertEquals(expected, paths);
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = SearchMode.class, names = {"CONTRACTION_HIERARCHY", "HUB_LABELS"})
+    void shouldRejectRelationshipFiltersOnPrecomputedIndexes(SearchMode searchMode) {
+        var config = defaultMultiplePairsConfigBuilder()
+                .sourceNodes(List.of(idFunction.of("a")))
+                .targetNodes(List.of(idFunction.of("c")))
+                .searchMode(searchMode)
+                .distanceOnly(true)
+                .build();
+
+        // the indices would return a -> b -> c regardless of the filter
+        var algorithm = DijkstraMultiplePairs
+                .createInstance(graph, config, Optional.empty(), ProgressTracker.NULL_TRACKER, Pools.DEFAULT, 4)
+                .withRelationshipFilter((source, target, relationshipId) -> target != graph.toMappedNodeId(idFunction.of("b")));
+
+        assertThrows(IllegalArgumentException.class, algorithm::compute);
+    }
+}
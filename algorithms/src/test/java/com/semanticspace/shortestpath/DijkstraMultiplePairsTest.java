@@ -4,19 +4,35 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.neo4j.gds.Orientation;
 import org.neo4j.gds.TestSupport;
 import org.neo4j.gds.api.Graph;
+import org.neo4j.gds.core.CypherMapWrapper;
+import org.neo4j.gds.core.ImmutableGraphDimensions;
 import org.neo4j.gds.core.concurrency.Pools;
 import org.neo4j.gds.core.utils.progress.tasks.ProgressTracker;
 import org.neo4j.gds.extension.GdlExtension;
 import org.neo4j.gds.extension.GdlGraph;
 import org.neo4j.gds.extension.IdFunction;
 import org.neo4j.gds.extension.Inject;
+import org.neo4j.gds.paths.PathResult;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static com.semanticspace.shortestpath.PathTestUtil.distance;
+import static com.semanticspace.shortestpath.PathTestUtil.distances;
 import static com.semanticspace.shortestpath.PathTestUtil.expected;
 
 @GdlExtension
@@ -25,6 +41,22 @@ final class DijkstraMultiplePairsTest {
     @GdlGraph
     private static final String DUMMY = "()";
 
+    // three paths from a to c, the cheapest one has the most relationships, c reaches no node
+    static final String COORDINATE_GRAPH =
+            "CREATE" +
+                    "  (a:Label {x: 0.0, y: 0.0})" +
+                    ", (b:Label {x: 1.0, y: 0.0})" +
+                    ", (c:Label {x: 2.0, y: 0.0})" +
+                    ", (d:Label {x: 1.0, y: 1.0})" +
+                    ", (e:Label {x: -1.0, y: 0.0})" +
+
+                    ", (a)-[:TYPE {cost: 1.0}]->(b)" +
+                    ", (b)-[:TYPE {cost: 1.0}]->(c)" +
+                    ", (a)-[:TYPE {cost: 1.5}]->(d)" +
+                    ", (d)-[:TYPE {cost: 1.5}]->(c)" +
+                    ", (a)-[:TYPE {cost: 1.0}]->(e)" +
+                    ", (e)-[:TYPE {cost: 3.5}]->(c)";
+
     static ImmutableDijkstraMultiplePairsConfig.Builder defaultMultiplePairsConfigBuilder() {
         return ImmutableDijkstraMultiplePairsConfig.builder()
                 .concurrency(1);
@@ -43,6 +75,12 @@ final class DijkstraMultiplePairsTest {
         );
     }
 
+    static Stream<Arguments> searchModesAndStates() {
+        return Arrays.stream(SearchMode.values()).flatMap(searchMode -> Arrays
+                .stream(SearchStateType.values())
+                .map(searchState -> Arguments.of(searchMode, searchState)));
+    }
+
     @ParameterizedTest
     @MethodSource("expectedMemoryEstimation")
     void shouldComputeMemoryEstimation(int nodeCount, boolean trackRelationships, long expectedBytes) {
@@ -55,6 +93,135 @@ final class DijkstraMultiplePairsTest {
         );
     }
 
+    @Test
+    void shouldEstimateBreadthFirstSearchForUnweightedGraphs() {
+        var dimensions = ImmutableGraphDimensions.builder().nodeCount(1_000_000).build();
+        var config = defaultMultiplePairsConfigBuilder()
+                .sourceNodes(List.of(0L))
+                .targetNodes(List.of(1L))
+                .concurrency(4);
+
+        // a single source on a large graph, yet without weights auto searches breadth first instead of delta-stepping
+        var auto = DijkstraMultiplePairs.memoryEstimation(config.searchMode(SearchMode.AUTO).build())
+                .estimate(dimensions, 4).memoryUsage();
+        var dijkstra = DijkstraMultiplePairs.memoryEstimation(config.searchMode(SearchMode.DIJKSTRA).build())
+                .estimate(dimensions, 4).memoryUsage();
+
+        assertEquals(dijkstra, auto);
+    }
+
+    @Test
+    void shouldDispatchLongestExpectedTasksFirst() {
+        var tasks = List.of(task(1), task(5), task(3), task(5), task(2));
+
+        var ordered = DijkstraMultiplePairs.longestExpectedFirst(tasks, 2);
+
+        // equally expensive tasks keep their order
+        assertEquals(List.of(tasks.get(1), tasks.get(3), tasks.get(2), tasks.get(4), tasks.get(0)), ordered);
+        // without more tasks than threads, every task starts right away
+        assertEquals(tasks, DijkstraMultiplePairs.longestExpectedFirst(tasks, 5));
+    }
+
+    private static DijkstraMultiplePairs.WorkerTask task(long expectedCost) {
+        return new DijkstraMultiplePairs.WorkerTask() {
+            @Override
+            public void run(DijkstraMultiplePairs.Worker worker) {
+            }
+
+            @Override
+            public void forEachPairIndex(IntConsumer consumer) {
+            }
+
+            @Override
+            public long expectedCost() {
+                return expectedCost;
+            }
+        };
+    }
+
+    @Test
+    void shouldBuildConfigWithDefaultBoundsFromCypherMap() {
+        var config = DijkstraMultiplePairsConfig.of(CypherMapWrapper.create(Map.of(
+                "sourceNodes", List.of(0L),
+                "targetNodes", List.of(1L)
+        )));
+
+        assertEquals(Double.MAX_VALUE, config.maxCost());
+        assertEquals(Integer.MAX_VALUE, config.maxHops());
+
+        var bounded = DijkstraMultiplePairsConfig.of(CypherMapWrapper.create(Map.of(
+                "sourceNodes", List.of(0L),
+                "targetNodes", List.of(1L),
+                "maxCost", 4.5,
+                "maxHops", 3
+        )));
+
+        assertEquals(4.5, bounded.maxCost());
+        assertEquals(3, bounded.maxHops());
+        assertThrows(IllegalArgumentException.class, () -> DijkstraMultiplePairsConfig.of(CypherMapWrapper.create(Map.of(
+                "sourceNodes", List.of(0L),
+                "targetNodes", List.of(1L),
+                "maxCost", -1.0
+        ))));
+    }
+
+    @Test
+    void shouldEstimateMultiSourceSearchesOnlyForDistances() {
+        var dimensions = ImmutableGraphDimensions.builder().nodeCount(1_000_000).build();
+        var config = defaultMultiplePairsConfigBuilder()
+                .sourceNodes(List.of(0L))
+                .targetNodes(List.of(1L))
+                .breadthFirstEngine(BreadthFirstEngine.MULTI_SOURCE);
+
+        var multiSourcePaths = DijkstraMultiplePairs.memoryEstimation(config.build())
+                .estimate(dimensions, 1).memoryUsage();
+        var topDownPaths = DijkstraMultiplePairs.memoryEstimation(config.breadthFirstEngine(BreadthFirstEngine.TOP_DOWN).build())
+                .estimate(dimensions, 1).memoryUsage();
+        long multiSourceDistances = DijkstraMultiplePairs.memoryEstimation(
+                        config.breadthFirstEngine(BreadthFirstEngine.MULTI_SOURCE).distanceOnly(true).build())
+                .estimate(dimensions, 1).memoryUsage().max;
+
+        // paths fall back to top-down searches, distances keep three lanes per node whatever the diameter
+        assertEquals(topDownPaths, multiSourcePaths);
+        assertTrue(multiSourceDistances >= 3_000_000L * Long.BYTES);
+        assertTrue(multiSourceDistances < 4_000_000L * Long.BYTES);
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = SearchMode.class, names = {"DIJKSTRA", "BIDIRECTIONAL", "DELTA_STEPPING"})
+    void shouldEstimateLessMemoryForDistanceOnly(SearchMode searchMode) {
+        var dimensions = ImmutableGraphDimensions.builder().nodeCount(1_000_000).build();
+        var config = defaultMultiplePairsConfigBuilder()
+                .sourceNodes(List.of(0L))
+                .targetNodes(List.of(1L))
+                .searchMode(searchMode);
+
+        long paths = DijkstraMultiplePairs.memoryEstimation(config.build())
+                .estimate(dimensions, 1).memoryUsage().max;
+        long distances = DijkstraMultiplePairs.memoryEstimation(config.distanceOnly(true).build())
+                .estimate(dimensions, 1).memoryUsage().max;
+
+        // without predecessors, the search states drop one int per node
+        assertTrue(distances <= paths - 1_000_000L * Integer.BYTES);
+    }
+
+    @Test
+    void shouldEstimateLessMemoryForFloatCosts() {
+        var dimensions = ImmutableGraphDimensions.builder().nodeCount(1_000_000).build();
+        var config = defaultMultiplePairsConfigBuilder()
+                .sourceNodes(List.of(0L))
+                .targetNodes(List.of(1L))
+                .searchMode(SearchMode.DIJKSTRA)
+                .searchState(SearchStateType.DENSE);
+
+        long doubleCosts = DijkstraMultiplePairs.memoryEstimation(config.build())
+                .estimate(dimensions, 1).memoryUsage().max;
+        long floatCosts = DijkstraMultiplePairs.memoryEstimation(config.floatCosts(true).build())
+                .estimate(dimensions, 1).memoryUsage().max;
+
+        assertTrue(floatCosts <= doubleCosts - 1_000_000L * Float.BYTES);
+    }
+
     @Nested
     class Graph2 {
 
@@ -89,8 +256,9 @@ final class DijkstraMultiplePairsTest {
         @Inject
         private IdFunction idFunction;
 
-        @Test
-        void runTest() {
+        @ParameterizedTest
+        @EnumSource(SearchMode.class)
+        void runTest(SearchMode searchMode) {
             var expected = Arrays.asList(
                     expected(idFunction, 0, new double[]{0.0, 2.0, 10.0, 11.0}, "n0", "n2", "n5", "n6"),
                     expected(idFunction, 1, new double[]{0.0, 3.0}, "n2", "n4")
@@ -101,6 +269,7 @@ final class DijkstraMultiplePairsTest {
             var config = defaultMultiplePairsConfigBuilder()
                     .sourceNodes(sourceNodes)
                     .targetNodes(targetNodes)
+                    .searchMode(searchMode)
                     .build();
 
             var paths = DijkstraMultiplePairs
@@ -110,6 +279,225 @@ final class DijkstraMultiplePairsTest {
             Iterator it = expected.iterator();
             paths.forEachPath((path) -> assertEquals(it.next(), path));
         }
+
+        @ParameterizedTest
+        @EnumSource(value = SearchMode.class, names = {"DIJKSTRA", "BIDIRECTIONAL", "DELTA_STEPPING", "ALT"})
+        void shouldSearchCheapestPathsWithinMaxHops(SearchMode searchMode) {
+            var expected = Set.of(
+                    expected(idFunction, 0, new double[]{0.0, 6.0, 11.0}, "n0", "n1", "n3"),
+                    expected(idFunction, 2, new double[]{0.0, 6.0}, "n0", "n1")
+            );
+
+            // the cheapest path to n3 runs over n2 and n4, the one to n6 has three relationships
+            var config = defaultMultiplePairsConfigBuilder()
+                    .sourceNodes(Arrays.asList(idFunction.of("n0"), idFunction.of("n0"), idFunction.of("n0")))
+                    .targetNodes(Arrays.asList(idFunction.of("n3"), idFunction.of("n6"), idFunction.of("n1")))
+                    .searchMode(searchMode)
+                    .maxHops(2)
+                    .build();
+
+            var paths = DijkstraMultiplePairs
+                    .createInstance(graph, config, Optional.empty(), ProgressTracker.NULL_TRACKER, Pools.DEFAULT, 4)
+                    .compute()
+                    .pathSet();
+
+            assertEquals(expected, paths);
+        }
+
+        @ParameterizedTest
+        @EnumSource(value = SearchMode.class, names = {"BIDIRECTIONAL", "ALT", "DELTA_STEPPING", "HUB_LABELS"})
+        void shouldTrackRelationshipsInEverySearchMode(SearchMode searchMode) {
+            var expected = pathsWithRelationships(SearchMode.DIJKSTRA, 1);
+            var paths = pathsWithRelationships(searchMode, 1);
+
+            assertEquals(expected, paths);
+            for (var path : paths) {
+                assertEquals(path.nodeIds().length - 1, path.relationshipIds().length);
+            }
+        }
+
+        @Test
+        void shouldTrackRelationshipsOfKShortestPaths() {
+            var paths = pathsWithRelationships(SearchMode.DIJKSTRA, 2);
+
+            // the shortest paths come first and carry the same relationships as a plain search
+            assertTrue(paths.containsAll(pathsWithRelationships(SearchMode.DIJKSTRA, 1)));
+            for (var path : paths) {
+                assertEquals(path.nodeIds().length - 1, path.relationshipIds().length);
+            }
+        }
+
+        private Set<PathResult> pathsWithRelationships(SearchMode searchMode, int k) {
+            var config = defaultMultiplePairsConfigBuilder()
+                    .sourceNodes(Arrays.asList(idFunction.of("n0"), idFunction.of("n0"), idFunction.of("n2"), idFunction.of("n3")))
+                    .targetNodes(Arrays.asList(idFunction.of("n6"), idFunction.of("n3"), idFunction.of("n4"), idFunction.of("n6")))
+                    .searchMode(searchMode)
+                    .k(k)
+                    .trackRelationships(true)
+                    .build();
+
+            return DijkstraMultiplePairs
+                    .createInstance(graph, config, Optional.empty(), ProgressTracker.NULL_TRACKER, Pools.DEFAULT, 4)
+                    .compute()
+                    .pathSet();
+        }
+
+        @Test
+        void shouldAnswerDistancesWithinMaxHops() {
+            var expected = Set.of(distance(idFunction, 0, 16.0, "n0", "n3"));
+
+            // only the direct relationship has a single hop
+            var config = defaultMultiplePairsConfigBuilder()
+                    .sourceNodes(List.of(idFunction.of("n0")))
+                    .targetNodes(List.of(idFunction.of("n3")))
+                    .distanceOnly(true)
+                    .maxHops(1)
+                    .build();
+
+            var paths = DijkstraMultiplePairs
+                    .createInstance(graph, config, Optional.empty(), ProgressTracker.NULL_TRACKER, Pools.DEFAULT, 4)
+                    .compute();
+
+            assertEquals(expected, distances(paths));
+        }
+
+        @ParameterizedTest
+        @EnumSource(ResultStreaming.class)
+        void shouldReturnTheSamePathsInWhateverOrderTasksRun(ResultStreaming resultStreaming) {
+            var sourceNodes = Arrays.asList(
+                    idFunction.of("n0"), idFunction.of("n3"), idFunction.of("n1"), idFunction.of("n0"), idFunction.of("n5"));
+            var targetNodes = Arrays.asList(
+                    idFunction.of("n6"), idFunction.of("n4"), idFunction.of("n6"), idFunction.of("n3"), idFunction.of("n6"));
+
+            // with more threads than tasks, the tasks keep the order of their pairs
+            var inPairOrder = DijkstraMultiplePairs
+                    .createInstance(graph, defaultMultiplePairsConfigBuilder()
+                            .sourceNodes(sourceNodes)
+                            .targetNodes(targetNodes)
+                            .build(), Optional.empty(), ProgressTracker.NULL_TRACKER, Pools.DEFAULT, 8)
+                    .compute()
+                    .paths()
+                    .collect(Collectors.toList());
+
+            // a single thread runs the most expensive tasks first, unless the stream is ordered
+            var config = defaultMultiplePairsConfigBuilder()
+                    .sourceNodes(sourceNodes)
+                    .targetNodes(targetNodes)
+                    .resultStreaming(resultStreaming)
+                    .build();
+            var paths = DijkstraMultiplePairs
+                    .createInstance(graph, config, Optional.empty(), ProgressTracker.NULL_TRACKER, Pools.DEFAULT, 1)
+                    .compute()
+                    .paths()
+                    .collect(Collectors.toList());
+
+            assertEquals(5, inPairOrder.size());
+            if (resultStreaming == ResultStreaming.UNORDERED) {
+                assertEquals(new HashSet<>(inPairOrder), new HashSet<>(paths));
+            } else {
+                assertEquals(inPairOrder, paths);
+            }
+        }
+
+        @Test
+        void shouldStreamDeltaSteppingSearchesOnASingleThreadPool() {
+            var expected = Set.of(
+                    expected(idFunction, 0, new double[]{0.0, 2.0, 10.0, 11.0}, "n0", "n2", "n5", "n6")
+            );
+
+            var config = defaultMultiplePairsConfigBuilder()
+                    .sourceNodes(List.of(idFunction.of("n0")))
+                    .targetNodes(List.of(idFunction.of("n6")))
+                    .searchMode(SearchMode.DELTA_STEPPING)
+                    .resultStreaming(ResultStreaming.UNORDERED)
+                    .build();
+
+            // the buckets are relaxed on the pool, the streaming worker must not wait for them on its only thread
+            var executorService = Executors.newFixedThreadPool(1);
+            try {
+                var paths = assertTimeoutPreemptively(Duration.ofSeconds(30), () -> DijkstraMultiplePairs
+                        .createInstance(graph, config, Optional.empty(), ProgressTracker.NULL_TRACKER, executorService, 2)
+                        .compute()
+                        .pathSet());
+
+                assertEquals(expected, paths);
+            } finally {
+                executorService.shutdownNow();
+            }
+        }
+
+        @Test
+        void shouldSearchWithFloatCosts() {
+            var expected = Set.of(
+                    expected(idFunction, 0, new double[]{0.0, 2.0, 10.0, 11.0}, "n0", "n2", "n5", "n6"),
+                    expected(idFunction, 1, new double[]{0.0, 3.0}, "n2", "n4")
+            );
+
+            var config = defaultMultiplePairsConfigBuilder()
+                    .sourceNodes(Arrays.asList(idFunction.of("n0"), idFunction.of("n2")))
+                    .targetNodes(Arrays.asList(idFunction.of("n6"), idFunction.of("n4")))
+                    .searchMode(SearchMode.DIJKSTRA)
+                    .searchState(SearchStateType.DENSE)
+                    .floatCosts(true)
+                    .build();
+
+            var paths = DijkstraMultiplePairs
+                    .createInstance(graph, config, Optional.empty(), ProgressTracker.NULL_TRACKER, Pools.DEFAULT, 4)
+                    .compute()
+                    .pathSet();
+
+            assertEquals(expected, paths);
+        }
+
+        @ParameterizedTest
+        @EnumSource(ResultStreaming.class)
+        void shouldSkipPairsInEarlierComponents(ResultStreaming resultStreaming) {
+            var expected = Set.of(
+                    expected(idFunction, 1, new double[]{0.0, 2.0, 10.0, 11.0}, "n0", "n2", "n5", "n6")
+            );
+
+            // n6 and n5 only reach components after their own, neither reaches n0 or the cycle through n1
+            var config = defaultMultiplePairsConfigBuilder()
+                    .sourceNodes(Arrays.asList(idFunction.of("n6"), idFunction.of("n0"), idFunction.of("n5")))
+                    .targetNodes(Arrays.asList(idFunction.of("n0"), idFunction.of("n6"), idFunction.of("n1")))
+                    .reachabilityFilter(ReachabilityFilter.COMPONENTS)
+                    .resultStreaming(resultStreaming)
+                    .build();
+
+            var paths = DijkstraMultiplePairs
+                    .createInstance(graph, config, Optional.empty(), ProgressTracker.NULL_TRACKER, Pools.DEFAULT, 4)
+                    .compute()
+                    .pathSet();
+
+            assertEquals(expected, paths);
+        }
+
+        @Test
+        void shouldAnswerAllPairsOfASourceGroup() {
+            var expected = Arrays.asList(
+                    expected(idFunction, 0, new double[]{0.0, 2.0, 10.0, 11.0}, "n0", "n2", "n5", "n6"),
+                    expected(idFunction, 1, new double[]{0.0, 2.0, 5.0}, "n0", "n2", "n4"),
+                    expected(idFunction, 2, new double[]{0.0, 3.0}, "n2", "n4"),
+                    expected(idFunction, 3, new double[]{0.0, 2.0, 10.0, 11.0}, "n0", "n2", "n5", "n6"),
+                    expected(idFunction, 4, new double[]{0.0}, "n0")
+            );
+
+            List<Long> sourceNodes = Arrays.asList(
+                    idFunction.of("n0"), idFunction.of("n0"), idFunction.of("n2"), idFunction.of("n0"), idFunction.of("n0"));
+            List<Long> targetNodes = Arrays.asList(
+                    idFunction.of("n6"), idFunction.of("n4"), idFunction.of("n4"), idFunction.of("n6"), idFunction.of("n0"));
+            var config = defaultMultiplePairsConfigBuilder()
+                    .sourceNodes(sourceNodes)
+                    .targetNodes(targetNodes)
+                    .build();
+
+            var paths = DijkstraMultiplePairs
+                    .createInstance(graph, config, Optional.empty(), ProgressTracker.NULL_TRACKER, Pools.DEFAULT, 4)
+                    .compute()
+                    .pathSet();
+
+            assertEquals(new HashSet<>(expected), paths);
+        }
     }
 
     @Nested
@@ -170,8 +558,9 @@ final class DijkstraMultiplePairsTest {
         @Inject
         private IdFunction idFunction;
 
-        @Test
-        void runTest() {
+        @ParameterizedTest
+        @MethodSource("com.semanticspace.shortestpath.DijkstraMultiplePairsTest#searchModesAndStates")
+        void runTest(SearchMode searchMode, SearchStateType searchState) {
             var expected = Arrays.asList(
                     expected(idFunction, 0, new double[]{0.0, 1.0}, "SteveJobs", "Apple"),
                     expected(idFunction, 1, new double[]{0.0, 1.0, 2.0, 3.0, 4.0}, "SteveJobs", "Apple", "AppleTV", "HDMI", "Microsoft"),
@@ -189,6 +578,8 @@ final class DijkstraMultiplePairsTest {
             var config = defaultMultiplePairsConfigBuilder()
                     .sourceNodes(sourceNodes)
                     .targetNodes(targetNodes)
+                    .searchMode(searchMode)
+                    .searchState(searchState)
                     .build();
 
             var paths = DijkstraMultiplePairs
@@ -198,5 +589,663 @@ final class DijkstraMultiplePairsTest {
             Iterator it = expected.iterator();
             paths.forEachPath((path) -> assertEquals(it.next(), path));
         }
+
+        @ParameterizedTest
+        @EnumSource(SearchMode.class)
+        void shouldAnswerDistanceOnlyPairs(SearchMode searchMode) {
+            var expected = Set.of(
+                    distance(idFunction, 0, 4.0, "SteveJobs", "Microsoft"),
+                    distance(idFunction, 1, 8.0, "SteveJobs", "ISS"),
+                    distance(idFunction, 2, 0.0, "Linux", "Linux"),
+                    distance(idFunction, 3, 2.0, "Arizona", "ScottKelly")
+            );
+
+            // Microsoft does not reach any node, the last pair yields no path
+            var config = defaultMultiplePairsConfigBuilder()
+                    .sourceNodes(Arrays.asList(
+                            idFunction.of("SteveJobs"), idFunction.of("SteveJobs"), idFunction.of("Linux"),
+                            idFunction.of("Arizona"), idFunction.of("Microsoft")))
+                    .targetNodes(Arrays.asList(
+                            idFunction.of("Microsoft"), idFunction.of("ISS"), idFunction.of("Linux"),
+                            idFunction.of("ScottKelly"), idFunction.of("Apple")))
+                    .searchMode(searchMode)
+                    .distanceOnly(true)
+                    .build();
+
+            var paths = DijkstraMultiplePairs
+                    .createInstance(graph, config, Optional.empty(), ProgressTracker.NULL_TRACKER, Pools.DEFAULT, 4)
+                    .compute();
+
+            assertEquals(expected, distances(paths));
+        }
+    }
+
+    @Nested
+    class CoordinateGraph {
+
+        @GdlGraph
+        private static final String DB_CYPHER = COORDINATE_GRAPH;
+
+        @Inject
+        private Graph graph;
+
+        @Inject
+        private IdFunction idFunction;
+
+        @ParameterizedTest
+        @EnumSource(LandmarkSelection.class)
+        void shouldRunAStarWithLandmarks(LandmarkSelection landmarkSelection) {
+            var expected = Set.of(
+                    expected(idFunction, 0, new double[]{0.0, 1.0, 2.0}, "a", "b", "c"),
+                    expected(idFunction, 1, new double[]{0.0, 3.5}, "e", "c")
+            );
+
+            var config = defaultMultiplePairsConfigBuilder()
+                    .sourceNodes(Arrays.asList(idFunction.of("a"), idFunction.of("e")))
+                    .targetNodes(Arrays.asList(idFunction.of("c"), idFunction.of("c")))
+                    .searchMode(SearchMode.ALT)
+                    .landmarkCount(2)
+                    .landmarkSelection(landmarkSelection)
+                    .build();
+
+            var paths = DijkstraMultiplePairs
+                    .createInstance(graph, config, Optional.empty(), ProgressTracker.NULL_TRACKER, Pools.DEFAULT, 4)
+                    .compute()
+                    .pathSet();
+
+            assertEquals(expected, paths);
+        }
+
+        @Test
+        void shouldRunAStarWithCartesianCoordinates() {
+            var expected = Set.of(
+                    expected(idFunction, 0, new double[]{0.0, 1.0, 2.0}, "a", "b", "c"),
+                    expected(idFunction, 1, new double[]{0.0, 1.5}, "a", "d")
+            );
+
+            var config = defaultMultiplePairsConfigBuilder()
+                    .sourceNodes(Arrays.asList(idFunction.of("a"), idFunction.of("a")))
+                    .targetNodes(Arrays.asList(idFunction.of("c"), idFunction.of("d")))
+                    .xProperty("x")
+                    .yProperty("y")
+                    .build();
+
+            var paths = DijkstraMultiplePairs
+                    .createInstance(graph, config, CoordinateHeuristic.of(graph, config), ProgressTracker.NULL_TRACKER, Pools.DEFAULT, 4)
+                    .compute()
+                    .pathSet();
+
+            assertEquals(expected, paths);
+        }
+    }
+
+    @Nested
+    class StreamingResults {
+
+        @GdlGraph
+        private static final String DB_CYPHER = COORDINATE_GRAPH;
+
+        @Inject
+        private Graph graph;
+
+        @Inject
+        private IdFunction idFunction;
+
+        @ParameterizedTest
+        @EnumSource(value = ResultStreaming.class, names = {"ORDERED", "UNORDERED"})
+        void shouldStreamResults(ResultStreaming resultStreaming) {
+            var expected = List.of(
+                    expected(idFunction, 0, new double[]{0.0, 1.0, 2.0}, "a", "b", "c"),
+                    expected(idFunction, 1, new double[]{0.0, 1.5}, "a", "d"),
+                    expected(idFunction, 3, new double[]{0.0, 3.5}, "e", "c")
+            );
+
+            // c -> a has no path
+            var config = defaultMultiplePairsConfigBuilder()
+                    .sourceNodes(Arrays.asList(idFunction.of("a"), idFunction.of("a"), idFunction.of("c"), idFunction.of("e")))
+                    .targetNodes(Arrays.asList(idFunction.of("c"), idFunction.of("d"), idFunction.of("a"), idFunction.of("c")))
+                    .resultStreaming(resultStreaming)
+                    .build();
+
+            List<PathResult> paths;
+            try (var stream = DijkstraMultiplePairs
+                    .createInstance(graph, config, Optional.empty(), ProgressTracker.NULL_TRACKER, Pools.DEFAULT, 4)
+                    .compute()
+                    .paths()) {
+                paths = stream.collect(Collectors.toList());
+            }
+
+            if (resultStreaming == ResultStreaming.ORDERED) {
+                assertEquals(expected, paths);
+            } else {
+                assertEquals(new HashSet<>(expected), new HashSet<>(paths));
+            }
+        }
+    }
+
+    @Nested
+    class DeltaSteppingSearches {
+
+        @GdlGraph
+        private static final String DB_CYPHER = COORDINATE_GRAPH;
+
+        @Inject
+        private Graph graph;
+
+        @Inject
+        private IdFunction idFunction;
+
+        @Test
+        void shouldSearchWithDeltaStepping() {
+            var expected = Set.of(
+                    expected(idFunction, 0, new double[]{0.0, 1.0, 2.0}, "a", "b", "c"),
+                    expected(idFunction, 1, new double[]{0.0, 1.5}, "a", "d"),
+                    expected(idFunction, 2, new double[]{0.0, 3.5}, "e", "c")
+            );
+
+            // a bucket width below the largest weight spreads the search over several buckets
+            var config = defaultMultiplePairsConfigBuilder()
+                    .sourceNodes(Arrays.asList(idFunction.of("a"), idFunction.of("a"), idFunction.of("e")))
+                    .targetNodes(Arrays.asList(idFunction.of("c"), idFunction.of("d"), idFunction.of("c")))
+                    .searchMode(SearchMode.DELTA_STEPPING)
+                    .delta(1.0)
+                    .build();
+
+            var paths = DijkstraMultiplePairs
+                    .createInstance(graph, config, Optional.empty(), ProgressTracker.NULL_TRACKER, Pools.DEFAULT, 4)
+                    .compute()
+                    .pathSet();
+
+            assertEquals(expected, paths);
+        }
+    }
+
+    @Nested
+    class KShortestPaths {
+
+        @GdlGraph
+        private static final String DB_CYPHER = COORDINATE_GRAPH;
+
+        @Inject
+        private Graph graph;
+
+        @Inject
+        private IdFunction idFunction;
+
+        @Test
+        void shouldComputeKShortestPaths() {
+            var expected = List.of(
+                    expected(idFunction, 0, new double[]{0.0, 1.0, 2.0}, "a", "b", "c"),
+                    expected(idFunction, 0, new double[]{0.0, 1.5, 3.0}, "a", "d", "c"),
+                    expected(idFunction, 0, new double[]{0.0, 1.0, 4.5}, "a", "e", "c")
+            );
+
+            var config = defaultMultiplePairsConfigBuilder()
+                    .sourceNodes(List.of(idFunction.of("a")))
+                    .targetNodes(List.of(idFunction.of("c")))
+                    .k(4)
+                    .build();
+
+            // only three paths lead from a to c, in order of their cost
+            var paths = DijkstraMultiplePairs
+                    .createInstance(graph, config, Optional.empty(), ProgressTracker.NULL_TRACKER, Pools.DEFAULT, 4)
+                    .compute()
+                    .paths()
+                    .collect(Collectors.toList());
+
+            assertEquals(expected, paths);
+        }
+    }
+
+    @Nested
+    class RadixHeapSearches {
+
+        @GdlGraph
+        private static final String DB_CYPHER = COORDINATE_GRAPH;
+
+        @Inject
+        private Graph graph;
+
+        @Inject
+        private IdFunction idFunction;
+
+        @Test
+        void shouldSearchWithQuantizedWeights() {
+            var expected = Set.of(
+                    expected(idFunction, 0, new double[]{0.0, 1.0, 2.0}, "a", "b", "c"),
+                    expected(idFunction, 1, new double[]{0.0, 1.5}, "a", "d"),
+                    expected(idFunction, 2, new double[]{0.0, 3.5}, "e", "c")
+            );
+
+            // all weights are multiples of the quantum, the radix heap finds the exact shortest paths
+            var config = defaultMultiplePairsConfigBuilder()
+                    .sourceNodes(Arrays.asList(idFunction.of("a"), idFunction.of("a"), idFunction.of("e")))
+                    .targetNodes(Arrays.asList(idFunction.of("c"), idFunction.of("d"), idFunction.of("c")))
+                    .searchState(SearchStateType.RADIX)
+                    .weightQuantum(0.5)
+                    .build();
+
+            var paths = DijkstraMultiplePairs
+                    .createInstance(graph, config, Optional.empty(), ProgressTracker.NULL_TRACKER, Pools.DEFAULT, 4)
+                    .compute()
+                    .pathSet();
+
+            assertEquals(expected, paths);
+        }
+
+        @Test
+        void shouldRequireIntegralWeightsForRadixHeap() {
+            var config = defaultMultiplePairsConfigBuilder()
+                    .sourceNodes(List.of(idFunction.of("a")))
+                    .targetNodes(List.of(idFunction.of("c")))
+                    .searchState(SearchStateType.RADIX)
+                    .build();
+
+            var algorithm = DijkstraMultiplePairs
+                    .createInstance(graph, config, Optional.empty(), ProgressTracker.NULL_TRACKER, Pools.DEFAULT, 4);
+
+            assertThrows(IllegalArgumentException.class, algorithm::compute);
+        }
+    }
+
+    @Nested
+    class BoundedSearches {
+
+        @GdlGraph
+        private static final String DB_CYPHER = COORDINATE_GRAPH;
+
+        @Inject
+        private Graph graph;
+
+        @Inject
+        private IdFunction idFunction;
+
+        @ParameterizedTest
+        @EnumSource(value = SearchMode.class, names = {"DIJKSTRA", "BIDIRECTIONAL", "DELTA_STEPPING"})
+        void shouldReportPairsBeyondTheBoundsAsUnreachable(SearchMode searchMode) {
+            var expected = Set.of(
+                    expected(idFunction, 1, new double[]{0.0, 1.5}, "a", "d")
+            );
+
+            var config = defaultMultiplePairsConfigBuilder()
+                    .sourceNodes(Arrays.asList(idFunction.of("a"), idFunction.of("a"), idFunction.of("e")))
+                    .targetNodes(Arrays.asList(idFunction.of("c"), idFunction.of("d"), idFunction.of("c")))
+                    .searchMode(searchMode)
+                    .maxCost(3.0)
+                    .maxHops(1)
+                    .build();
+
+            var paths = DijkstraMultiplePairs
+                    .createInstance(graph, config, Optional.empty(), ProgressTracker.NULL_TRACKER, Pools.DEFAULT, 4)
+                    .compute()
+                    .pathSet();
+
+            assertEquals(expected, paths);
+        }
+    }
+
+    @Nested
+    class DiamondGraph {
+
+        // u and v come first, both are local minima and contracted in the same round
+        @GdlGraph
+        private static final String DB_CYPHER =
+                "CREATE" +
+                        "  (u:Label)" +
+                        ", (v:Label)" +
+                        ", (s:Label)" +
+                        ", (t:Label)" +
+
+                        ", (s)-[:TYPE {cost: 1.0}]->(u)" +
+                        ", (u)-[:TYPE {cost: 1.0}]->(t)" +
+                        ", (s)-[:TYPE {cost: 1.0}]->(v)" +
+                        ", (v)-[:TYPE {cost: 1.0}]->(t)";
+
+        @Inject
+        private Graph graph;
+
+        @Inject
+        private IdFunction idFunction;
+
+        @Test
+        void shouldNotWitnessThroughNodesOfTheSameRound() {
+            var sourceNodes = List.of(idFunction.of("s"));
+            var targetNodes = List.of(idFunction.of("t"));
+            var expected = paths(sourceNodes, targetNodes, SearchMode.DIJKSTRA);
+            var paths = paths(sourceNodes, targetNodes, SearchMode.CONTRACTION_HIERARCHY);
+            var rows = new DistanceMatrix(
+                    graph,
+                    sourceNodes,
+                    targetNodes,
+                    ContractionHierarchy.build(graph, 4, Pools.DEFAULT, ProgressTracker.NULL_TRACKER),
+                    ProgressTracker.NULL_TRACKER,
+                    Pools.DEFAULT,
+                    4
+            ).compute().collect(Collectors.toList());
+
+            assertEquals(Set.of(distance(idFunction, 0, 2.0, "s", "t")), expected);
+            assertEquals(expected, paths);
+            assertArrayEquals(new double[]{2.0}, rows.get(0).costs);
+        }
+
+        private Set<PathTestUtil.Distance> paths(List<Long> sourceNodes, List<Long> targetNodes, SearchMode searchMode) {
+            var config = defaultMultiplePairsConfigBuilder()
+                    .sourceNodes(sourceNodes)
+                    .targetNodes(targetNodes)
+                    .searchMode(searchMode)
+                    .distanceOnly(true)
+                    .build();
+
+            return distances(DijkstraMultiplePairs
+                    .createInstance(graph, config, Optional.empty(), ProgressTracker.NULL_TRACKER, Pools.DEFAULT, 4)
+                    .compute());
+        }
+    }
+
+    @Nested
+    class UndirectedGraph {
+
+        @GdlGraph(orientation = Orientation.UNDIRECTED)
+        private static final String DB_CYPHER =
+                "CREATE" +
+                        "  (a:Label)" +
+                        ", (b:Label)" +
+                        ", (c:Label)" +
+                        ", (d:Label)" +
+                        ", (e:Label)" +
+
+                        ", (a)-[:TYPE {cost: 1.0}]->(b)" +
+                        ", (b)-[:TYPE {cost: 1.0}]->(c)" +
+                        ", (a)-[:TYPE {cost: 1.5}]->(d)" +
+                        ", (d)-[:TYPE {cost: 1.5}]->(c)";
+
+        @Inject
+        private Graph graph;
+
+        @Inject
+        private IdFunction idFunction;
+
+        @Test
+        void shouldNotPickIsolatedNodesAsLandmarks() {
+            var landmarks = LandmarkIndex.compute(graph, null, 3, LandmarkSelection.FARTHEST, 4, Pools.DEFAULT).landmarks();
+
+            // e is unreachable from every landmark, yet not farther away from them in any useful sense
+            var expected = Set.of(
+                    graph.toMappedNodeId(idFunction.of("c")),
+                    graph.toMappedNodeId(idFunction.of("a")),
+                    graph.toMappedNodeId(idFunction.of("d"))
+            );
+            assertEquals(expected, Arrays.stream(landmarks).boxed().collect(Collectors.toSet()));
+        }
+
+        @Test
+        void shouldAnswerReversePairsByOneSearch() {
+            var expected = Set.of(
+                    expected(idFunction, 0, new double[]{0.0, 1.0, 2.0}, "a", "b", "c"),
+                    expected(idFunction, 1, new double[]{0.0, 1.0, 2.0}, "c", "b", "a"),
+                    expected(idFunction, 2, new double[]{0.0, 1.0, 2.0}, "a", "b", "c"),
+                    expected(idFunction, 3, new double[]{0.0, 1.5}, "d", "c")
+            );
+
+            var config = defaultMultiplePairsConfigBuilder()
+                    .sourceNodes(Arrays.asList(idFunction.of("a"), idFunction.of("c"), idFunction.of("a"), idFunction.of("d")))
+                    .targetNodes(Arrays.asList(idFunction.of("c"), idFunction.of("a"), idFunction.of("c"), idFunction.of("c")))
+                    .build();
+
+            var paths = DijkstraMultiplePairs
+                    .createInstance(graph, config, Optional.empty(), ProgressTracker.NULL_TRACKER, Pools.DEFAULT, 4)
+                    .compute()
+                    .pathSet();
+
+            assertEquals(expected, paths);
+        }
+
+        @ParameterizedTest
+        @EnumSource(value = ResultStreaming.class, names = {"NONE", "ORDERED"})
+        void shouldReturnPathsInPairOrder(ResultStreaming resultStreaming) {
+            var expected = Arrays.asList(
+                    expected(idFunction, 0, new double[]{0.0, 1.0, 2.0}, "a", "b", "c"),
+                    expected(idFunction, 0, new double[]{0.0, 1.5, 3.0}, "a", "d", "c"),
+                    expected(idFunction, 1, new double[]{0.0, 1.5}, "d", "a"),
+                    expected(idFunction, 1, new double[]{0.0, 1.5, 2.5, 3.5}, "d", "c", "b", "a"),
+                    expected(idFunction, 2, new double[]{0.0, 1.0, 2.0}, "c", "b", "a"),
+                    expected(idFunction, 2, new double[]{0.0, 1.5, 3.0}, "c", "d", "a"),
+                    expected(idFunction, 3, new double[]{0.0, 1.0, 2.0}, "a", "b", "c"),
+                    expected(idFunction, 3, new double[]{0.0, 1.5, 3.0}, "a", "d", "c")
+            );
+
+            // c -> a is answered by the search of a -> c and the second a -> c repeats the first,
+            // every pair fills its two slots in the order of its paths
+            var config = defaultMultiplePairsConfigBuilder()
+                    .sourceNodes(Arrays.asList(idFunction.of("a"), idFunction.of("d"), idFunction.of("c"), idFunction.of("a")))
+                    .targetNodes(Arrays.asList(idFunction.of("c"), idFunction.of("a"), idFunction.of("a"), idFunction.of("c")))
+                    .k(2)
+                    .resultStreaming(resultStreaming)
+                    .build();
+
+            var paths = DijkstraMultiplePairs
+                    .createInstance(graph, config, Optional.empty(), ProgressTracker.NULL_TRACKER, Pools.DEFAULT, 4)
+                    .compute()
+                    .paths()
+                    .collect(Collectors.toList());
+
+            assertEquals(expected, paths);
+        }
+    }
+
+    @Nested
+    class DirectedAcyclicGraph {
+
+        @GdlGraph
+        private static final String DB_CYPHER =
+                "CREATE" +
+                        "  (a:Label)" +
+                        ", (b:Label)" +
+                        ", (c:Label)" +
+                        ", (d:Label)" +
+                        ", (e:Label)" +
+
+                        ", (a)-[:TYPE {cost: 1.0}]->(b)" +
+                        ", (a)-[:TYPE {cost: 2.0}]->(c)" +
+                        ", (b)-[:TYPE {cost: 1.0}]->(d)" +
+                        ", (c)-[:TYPE {cost: 2.0}]->(e)";
+
+        @Inject
+        private Graph graph;
+
+        @Inject
+        private IdFunction idFunction;
+
+        @Test
+        void shouldRejectPairsOutsideTheIntervals() {
+            var components = ComponentIndex.compute(
+                    graph, InverseAdjacency.of(graph, false, 1, Pools.DEFAULT), 1, Pools.DEFAULT, ProgressTracker.NULL_TRACKER);
+            var intervals = IntervalIndex.compute(
+                    components, InverseAdjacency.of(graph, false, 1, Pools.DEFAULT), graph.nodeCount(), 4, Pools.DEFAULT);
+
+            assertTrue(intervals.mayReach(node("a"), node("e")));
+            assertTrue(intervals.mayReach(node("b"), node("d")));
+            assertFalse(intervals.mayReach(node("e"), node("a")));
+            // b precedes e in topological order, only the intervals tell the branches apart
+            assertTrue(components.mayReach(node("b"), node("e")));
+            assertFalse(intervals.mayReach(node("b"), node("e")));
+        }
+
+        @ParameterizedTest
+        @EnumSource(value = SearchMode.class, names = {"DIJKSTRA", "BIDIRECTIONAL"})
+        void shouldSearchWithIntervalLabels(SearchMode searchMode) {
+            var expected = Set.of(
+                    expected(idFunction, 0, new double[]{0.0, 2.0, 4.0}, "a", "c", "e")
+            );
+
+            var config = defaultMultiplePairsConfigBuilder()
+                    .sourceNodes(Arrays.asList(idFunction.of("a"), idFunction.of("b"), idFunction.of("d")))
+                    .targetNodes(Arrays.asList(idFunction.of("e"), idFunction.of("e"), idFunction.of("c")))
+                    .searchMode(searchMode)
+                    .reachabilityFilter(ReachabilityFilter.INTERVALS)
+                    .build();
+
+            var paths = DijkstraMultiplePairs
+                    .createInstance(graph, config, Optional.empty(), ProgressTracker.NULL_TRACKER, Pools.DEFAULT, 4)
+                    .compute()
+                    .pathSet();
+
+            assertEquals(expected, paths);
+        }
+
+        private long node(String variable) {
+            return graph.toMappedNodeId(idFunction.of(variable));
+        }
+    }
+
+    @Nested
+    class UnweightedGraph {
+
+        @GdlGraph
+        private static final String DB_CYPHER =
+                "CREATE" +
+                        "  (a:Label)" +
+                        ", (b:Label)" +
+                        ", (c:Label)" +
+                        ", (d:Label)" +
+                        ", (e:Label)" +
+                        ", (f:Label)" +
+
+                        ", (a)-[:TYPE]->(b)" +
+                        ", (b)-[:TYPE]->(c)" +
+                        ", (c)-[:TYPE]->(d)" +
+                        ", (a)-[:TYPE]->(e)" +
+                        ", (e)-[:TYPE]->(d)" +
+                        ", (d)-[:TYPE]->(f)";
+
+        @Inject
+        private Graph graph;
+
+        @Inject
+        private IdFunction idFunction;
+
+        @ParameterizedTest
+        @EnumSource(value = SearchMode.class, names = {"DIJKSTRA", "BIDIRECTIONAL"})
+        void shouldSearchBreadthFirst(SearchMode searchMode) {
+            var expected = Set.of(
+                    expected(idFunction, 0, new long[]{1, 0}, new double[]{0.0, 1.0, 2.0}, "a", "e", "d"),
+                    expected(idFunction, 1, new long[]{1, 0, 0}, new double[]{0.0, 1.0, 2.0, 3.0}, "a", "e", "d", "f"),
+                    expected(idFunction, 2, new long[]{0, 0}, new double[]{0.0, 1.0, 2.0}, "b", "c", "d"),
+                    expected(idFunction, 4, new long[0], new double[]{0.0}, "a")
+            );
+
+            // d -> a has no path
+            var config = defaultMultiplePairsConfigBuilder()
+                    .sourceNodes(Arrays.asList(idFunction.of("a"), idFunction.of("a"), idFunction.of("b"), idFunction.of("d"), idFunction.of("a")))
+                    .targetNodes(Arrays.asList(idFunction.of("d"), idFunction.of("f"), idFunction.of("d"), idFunction.of("a"), idFunction.of("a")))
+                    .searchMode(searchMode)
+                    .trackRelationships(true)
+                    .build();
+
+            var paths = DijkstraMultiplePairs
+                    .createInstance(graph, config, Optional.empty(), ProgressTracker.NULL_TRACKER, Pools.DEFAULT, 4)
+                    .compute()
+                    .pathSet();
+
+            assertEquals(expected, paths);
+        }
+
+        @Test
+        void shouldSearchFromMultipleSourcesAtOnce() {
+            var expected = Set.of(
+                    expected(idFunction, 0, new long[]{1, 0}, new double[]{0.0, 1.0, 2.0}, "a", "e", "d"),
+                    expected(idFunction, 1, new long[]{1, 0, 0}, new double[]{0.0, 1.0, 2.0, 3.0}, "a", "e", "d", "f"),
+                    expected(idFunction, 2, new long[]{0, 0}, new double[]{0.0, 1.0, 2.0}, "b", "c", "d"),
+                    expected(idFunction, 4, new long[0], new double[]{0.0}, "a")
+            );
+
+            // multi-source searches do not unpack paths, the pairs are searched top-down
+            var config = defaultMultiplePairsConfigBuilder()
+                    .sourceNodes(Arrays.asList(idFunction.of("a"), idFunction.of("a"), idFunction.of("b"), idFunction.of("d"), idFunction.of("a")))
+                    .targetNodes(Arrays.asList(idFunction.of("d"), idFunction.of("f"), idFunction.of("d"), idFunction.of("a"), idFunction.of("a")))
+                    .breadthFirstEngine(BreadthFirstEngine.MULTI_SOURCE)
+                    .trackRelationships(true)
+                    .build();
+
+            var paths = DijkstraMultiplePairs
+                    .createInstance(graph, config, Optional.empty(), ProgressTracker.NULL_TRACKER, Pools.DEFAULT, 1)
+                    .compute()
+                    .pathSet();
+
+            assertEquals(expected, paths);
+        }
+
+        @Test
+        void shouldAnswerDistancesFromMultipleSourcesAtOnce() {
+            var expected = Set.of(
+                    distance(idFunction, 0, 2.0, "a", "d"),
+                    distance(idFunction, 1, 3.0, "a", "f"),
+                    distance(idFunction, 2, 2.0, "b", "d"),
+                    distance(idFunction, 4, 0.0, "a", "a")
+            );
+
+            // a single worker searches all three sources in one traversal
+            var config = defaultMultiplePairsConfigBuilder()
+                    .sourceNodes(Arrays.asList(idFunction.of("a"), idFunction.of("a"), idFunction.of("b"), idFunction.of("d"), idFunction.of("a")))
+                    .targetNodes(Arrays.asList(idFunction.of("d"), idFunction.of("f"), idFunction.of("d"), idFunction.of("a"), idFunction.of("a")))
+                    .breadthFirstEngine(BreadthFirstEngine.MULTI_SOURCE)
+                    .distanceOnly(true)
+                    .build();
+
+            var paths = DijkstraMultiplePairs
+                    .createInstance(graph, config, Optional.empty(), ProgressTracker.NULL_TRACKER, Pools.DEFAULT, 1)
+                    .compute();
+
+            assertEquals(expected, distances(paths));
+        }
+
+        @Test
+        void shouldStopMultiSourceSearchesAtMaxCost() {
+            var expected = Set.of(
+                    distance(idFunction, 0, 2.0, "a", "d"),
+                    distance(idFunction, 2, 2.0, "b", "d")
+            );
+
+            // f lies three levels below a
+            var config = defaultMultiplePairsConfigBuilder()
+                    .sourceNodes(Arrays.asList(idFunction.of("a"), idFunction.of("a"), idFunction.of("b")))
+                    .targetNodes(Arrays.asList(idFunction.of("d"), idFunction.of("f"), idFunction.of("d")))
+                    .breadthFirstEngine(BreadthFirstEngine.MULTI_SOURCE)
+                    .distanceOnly(true)
+                    .maxCost(2.0)
+                    .build();
+
+            var paths = DijkstraMultiplePairs
+                    .createInstance(graph, config, Optional.empty(), ProgressTracker.NULL_TRACKER, Pools.DEFAULT, 1)
+                    .compute();
+
+            assertEquals(expected, distances(paths));
+        }
+
+        @Test
+        void shouldSearchBottomUp() {
+            var expected = Set.of(
+                    expected(idFunction, 0, new long[]{1, 0}, new double[]{0.0, 1.0, 2.0}, "a", "e", "d"),
+                    expected(idFunction, 1, new long[]{1, 0, 0}, new double[]{0.0, 1.0, 2.0, 3.0}, "a", "e", "d", "f")
+            );
+
+            var config = defaultMultiplePairsConfigBuilder()
+                    .sourceNodes(Arrays.asList(idFunction.of("a"), idFunction.of("a"), idFunction.of("d")))
+                    .targetNodes(Arrays.asList(idFunction.of("d"), idFunction.of("f"), idFunction.of("a")))
+                    .breadthFirstEngine(BreadthFirstEngine.DIRECTION_OPTIMIZING)
+                    .trackRelationships(true)
+                    .build();
+
+            var dijkstra = DijkstraMultiplePairs
+                    .createInstance(graph, config, Optional.empty(), ProgressTracker.NULL_TRACKER, Pools.DEFAULT, 4);
+            var paths = dijkstra.compute().pathSet();
+
+            assertEquals(expected, paths);
+            // the frontier of the source holds most of the relationships of this small graph
+            var statistics = dijkstra.breadthFirstStatistics();
+            assertEquals(2, statistics.searches());
+            assertEquals(2, statistics.switchesToBottomUp());
+            assertEquals(0, statistics.topDownLevels());
+        }
     }
 }
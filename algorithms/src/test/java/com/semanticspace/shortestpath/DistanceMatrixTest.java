@@ -0,0 +1,78 @@
+package com.semanticspace.shortestpath;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.neo4j.gds.api.Graph;
+import org.neo4j.gds.core.CypherMapWrapper;
+import org.neo4j.gds.core.ImmutableGraphDimensions;
+import org.neo4j.gds.core.concurrency.Pools;
+import org.neo4j.gds.core.utils.progress.tasks.ProgressTracker;
+import org.neo4j.gds.extension.GdlExtension;
+import org.neo4j.gds.extension.GdlGraph;
+import org.neo4j.gds.extension.IdFunction;
+import org.neo4j.gds.extension.Inject;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@GdlExtension
+final class DistanceMatrixTest {
+
+    @GdlGraph
+    private static final String DB_CYPHER = DijkstraMultiplePairsTest.COORDINATE_GRAPH;
+
+    @Inject
+    private Graph graph;
+
+    @Inject
+    private IdFunction idFunction;
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void shouldComputeDistanceMatrix(boolean withContractionHierarchy) {
+        var hierarchy = withContractionHierarchy
+                ? ContractionHierarchy.build(graph, 1, Pools.DEFAULT, ProgressTracker.NULL_TRACKER)
+                : null;
+
+        var rows = new DistanceMatrix(
+                graph,
+                Arrays.asList(idFunction.of("a"), idFunction.of("e"), idFunction.of("c")),
+                Arrays.asList(idFunction.of("c"), idFunction.of("d"), idFunction.of("a"), idFunction.of("c")),
+                hierarchy,
+                ProgressTracker.NULL_TRACKER,
+                Pools.DEFAULT,
+                4
+        ).compute().collect(Collectors.toList());
+
+        double inf = Double.POSITIVE_INFINITY;
+        assertEquals(3, rows.size());
+        assertEquals(idFunction.of("a"), rows.get(0).sourceNode);
+        assertArrayEquals(new double[]{2.0, 1.5, 0.0, 2.0}, rows.get(0).costs);
+        assertArrayEquals(new double[]{3.5, inf, inf, 3.5}, rows.get(1).costs);
+        assertArrayEquals(new double[]{0.0, inf, inf, 0.0}, rows.get(2).costs);
+    }
+
+    @Test
+    void shouldEstimateDistanceMatrixOnHierarchyBySearchSpaces() {
+        var dimensions = ImmutableGraphDimensions.builder().nodeCount(1_000_000).build();
+        var config = DistanceMatrixConfig.of(CypherMapWrapper.create(Map.of(
+                "sourceNodes", List.of(0L, 1L),
+                "targetNodes", List.of(2L, 3L, 4L),
+                "relationshipWeightProperty", "cost"
+        )));
+
+        var dense = DistanceMatrix.memoryEstimation(config, false).estimate(dimensions, 1).memoryUsage();
+        var onHierarchy = DistanceMatrix.memoryEstimation(config, true).estimate(dimensions, 1).memoryUsage();
+
+        // small upward search spaces need far less than a dense state, reaching every node needs more
+        assertTrue(onHierarchy.min < dense.min);
+        assertTrue(onHierarchy.max > dense.max);
+    }
+}
@@ -0,0 +1,127 @@
+package com.semanticspace.shortestpath;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.neo4j.gds.NodeLabel;
+import org.neo4j.gds.api.GraphStore;
+import org.neo4j.gds.api.nodeproperties.LongNodeProperties;
+import org.neo4j.gds.extension.GdlExtension;
+import org.neo4j.gds.extension.GdlGraph;
+import org.neo4j.gds.extension.Inject;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@GdlExtension
+final class GraphIndexesTest {
+
+    @GdlGraph
+    private static final String DB_CYPHER =
+            "CREATE" +
+                    "  (a:Label)" +
+                    ", (b:Label)" +
+                    ", (a)-[:TYPE {cost: 1.0}]->(b)";
+
+    @Inject
+    private GraphStore graphStore;
+
+    @AfterEach
+    void teardown() {
+        GraphIndexCatalog.removeAll();
+    }
+
+    @Test
+    void shouldReuseIndexesAcrossCalls() {
+        var computations = new AtomicInteger();
+
+        var first = GraphIndexCatalog.indexes(graphStore).getOrCompute("key", () -> new Object[]{computations.incrementAndGet()});
+        var second = GraphIndexCatalog.indexes(graphStore).getOrCompute("key", () -> new Object[]{computations.incrementAndGet()});
+
+        assertSame(GraphIndexCatalog.indexes(graphStore), GraphIndexCatalog.indexes(graphStore));
+        assertSame(first, second);
+        assertEquals(1, computations.get());
+    }
+
+    @Test
+    void shouldComputeAKeyOnceForConcurrentCalls() throws Exception {
+        var indexes = GraphIndexCatalog.indexes(graphStore);
+        var computations = new AtomicInteger();
+        var computing = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+
+        var first = CompletableFuture.supplyAsync(() -> indexes.getOrCompute("key", () -> {
+            computing.countDown();
+            await(release);
+            return new Object[]{computations.incrementAndGet()};
+        }));
+        computing.await();
+        var second = CompletableFuture.supplyAsync(() -> indexes.getOrCompute("key", () -> new Object[]{computations.incrementAndGet()}));
+        release.countDown();
+
+        assertSame(first.get(), second.get());
+        assertEquals(1, computations.get());
+    }
+
+    @Test
+    void shouldNotBlockOtherKeysWhileComputing() throws Exception {
+        var indexes = GraphIndexCatalog.indexes(graphStore);
+        var computing = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+
+        var slow = CompletableFuture.supplyAsync(() -> indexes.getOrCompute("slow", () -> {
+            computing.countDown();
+            await(release);
+            return "slow";
+        }));
+        computing.await();
+
+        // the slow key holds its own lock only
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertEquals("fast", indexes.getOrCompute("fast", () -> "fast")));
+        assertTrue(indexes.get("fast").isPresent());
+        release.countDown();
+        assertEquals("slow", slow.get());
+    }
+
+    @Test
+    void shouldRecomputeIndexesAfterTheGraphStoreIsMutated() throws Exception {
+        var indexes = GraphIndexCatalog.indexes(graphStore);
+        var computations = new AtomicInteger();
+        var before = indexes.getOrCompute("key", () -> new Object[]{computations.incrementAndGet()});
+
+        // the modification time has a finite resolution
+        Thread.sleep(10);
+        graphStore.addNodeProperty(NodeLabel.of("Label"), "seed", new LongNodeProperties() {
+            @Override
+            public long longValue(long nodeId) {
+                return nodeId;
+            }
+
+            @Override
+            public long size() {
+                return graphStore.nodeCount();
+            }
+        });
+
+        assertTrue(indexes.get("key").isEmpty());
+        var after = indexes.getOrCompute("key", () -> new Object[]{computations.incrementAndGet()});
+        assertNotSame(before, after);
+        assertEquals(2, computations.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -4,6 +4,11 @@ package com.semanticspace.shortestpath;
 import org.neo4j.gds.extension.IdFunction;
 import org.neo4j.gds.paths.ImmutablePathResult;
 import org.neo4j.gds.paths.PathResult;
+import org.neo4j.gds.paths.dijkstra.DijkstraResult;
+
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 public final class PathTestUtil {
 
@@ -41,5 +46,60 @@ public final class PathTestUtil {
                 .build();
     }
 
+    public static Distance distance(
+            IdFunction idFunction,
+            long index,
+            double totalCost,
+            String sourceNode,
+            String targetNode
+    ) {
+        return new Distance(index, idFunction.of(sourceNode), idFunction.of(targetNode), totalCost);
+    }
+
+    /**
+     * The distance only view of a result: distance only paths carry no path of the graph,
+     * so only their index, source and target node and total cost are compared.
+     */
+    public static Set<Distance> distances(DijkstraResult result) {
+        return result.pathSet().stream()
+                .map(path -> new Distance(path.index(), path.sourceNode(), path.targetNode(), path.totalCost()))
+                .collect(Collectors.toSet());
+    }
+
+    public static final class Distance {
+        private final long index;
+        private final long sourceNode;
+        private final long targetNode;
+        private final double totalCost;
+
+        Distance(long index, long sourceNode, long targetNode, double totalCost) {
+            this.index = index;
+            this.sourceNode = sourceNode;
+            this.targetNode = targetNode;
+            this.totalCost = totalCost;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Distance)) return false;
+            var other = (Distance) o;
+            return index == other.index
+                    && sourceNode == other.sourceNode
+                    && targetNode == other.targetNode
+                    && Double.compare(totalCost, other.totalCost) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(index, sourceNode, targetNode, totalCost);
+        }
+
+        @Override
+        public String toString() {
+            return index + ": " + sourceNode + " -> " + targetNode + " = " + totalCost;
+        }
+    }
+
     private PathTestUtil() {}
 }
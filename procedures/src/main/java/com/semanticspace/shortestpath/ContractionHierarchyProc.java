@@ -0,0 +1,78 @@
+package com.semanticspace.shortestpath;
+
+import org.neo4j.gds.AlgoBaseProc;
+import org.neo4j.gds.GraphAlgorithmFactory;
+import org.neo4j.gds.core.CypherMapWrapper;
+import org.neo4j.gds.executor.ComputationResultConsumer;
+import org.neo4j.gds.executor.GdsCallable;
+import org.neo4j.gds.results.MemoryEstimateResult;
+import org.neo4j.procedure.Description;
+import org.neo4j.procedure.Name;
+import org.neo4j.procedure.Procedure;
+
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.neo4j.gds.executor.ExecutionMode.STREAM;
+import static org.neo4j.procedure.Mode.READ;
+
+@GdsCallable(name = "semanticspace.gds.contractionHierarchy.build", description = "", executionMode = STREAM)
+public class ContractionHierarchyProc extends AlgoBaseProc<ContractionHierarchyBuild, ContractionHierarchy, ContractionHierarchyConfig, ContractionHierarchyProc.BuildResult> {
+
+    // indices of the named graph the procedure runs on, the hierarchy is kept among them
+    private GraphIndexes graphIndexes = GraphIndexes.NONE;
+
+    @Procedure(name = "semanticspace.gds.contractionHierarchy.build", mode = READ)
+    @Description("Builds a contraction hierarchy for a named graph, used by the `contractionHierarchy` search mode.")
+    public Stream<BuildResult> build(
+            @Name(value = "graphName") String graphName,
+            @Name(value = "configuration", defaultValue = "{}") Map<String, Object> configuration
+    ) {
+        this.graphIndexes = GraphIndexCatalog.indexes(username(), databaseId(), graphName);
+        return computationResultConsumer().consume(compute(graphName, configuration), executionContext());
+    }
+
+    @Procedure(name = "semanticspace.gds.contractionHierarchy.build.estimate", mode = READ)
+    @Description("Estimates the memory of building a contraction hierarchy for a named graph.")
+    public Stream<MemoryEstimateResult> estimate(
+            @Name(value = "graphNameOrConfiguration") Object graphNameOrConfiguration,
+            @Name(value = "algoConfiguration") Map<String, Object> algoConfiguration
+    ) {
+        return computeEstimate(graphNameOrConfiguration, algoConfiguration);
+    }
+
+    @Override
+    public ComputationResultConsumer<ContractionHierarchyBuild, ContractionHierarchy, ContractionHierarchyConfig, Stream<BuildResult>> computationResultConsumer() {
+        return (computationResult, executionContext) -> {
+            if (computationResult.isGraphEmpty()) {
+                computationResult.graph().release();
+                return Stream.empty();
+            }
+            var hierarchy = computationResult.result();
+            graphIndexes.put(ContractionHierarchy.indexKey(computationResult.config()), hierarchy);
+            return Stream.of(new BuildResult(hierarchy.nodeCount(), hierarchy.shortcutCount(), computationResult.computeMillis()));
+        };
+    }
+
+    @Override
+    protected ContractionHierarchyConfig newConfig(String username, CypherMapWrapper config) {
+        return ContractionHierarchyConfig.of(config);
+    }
+
+    @Override
+    public GraphAlgorithmFactory<ContractionHierarchyBuild, ContractionHierarchyConfig> algorithmFactory() {
+        return new ContractionHierarchyFactory();
+    }
+
+    public static final class BuildResult {
+        public final long nodeCount;
+        public final long shortcutCount;
+        public final long buildMillis;
+
+        BuildResult(long nodeCount, long shortcutCount, long buildMillis) {
+            this.nodeCount = nodeCount;
+            this.shortcutCount = shortcutCount;
+            this.buildMillis = buildMillis;
+        }
+    }
+}
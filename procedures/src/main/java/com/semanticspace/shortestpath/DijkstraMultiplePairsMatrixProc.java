@@ -0,0 +1,82 @@
+package com.semanticspace.shortestpath;
+
+import org.neo4j.gds.AlgoBaseProc;
+import org.neo4j.gds.GraphAlgorithmFactory;
+import org.neo4j.gds.core.CypherMapWrapper;
+import org.neo4j.gds.executor.ComputationResultConsumer;
+import org.neo4j.gds.executor.GdsCallable;
+import org.neo4j.gds.results.MemoryEstimateResult;
+import org.neo4j.procedure.Description;
+import org.neo4j.procedure.Name;
+import org.neo4j.procedure.Procedure;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.neo4j.gds.executor.ExecutionMode.STREAM;
+import static org.neo4j.procedure.Mode.READ;
+
+@GdsCallable(name = "semanticspace.gds.dijkstraMultiplePairs.matrix", description = "", executionMode = STREAM)
+public class DijkstraMultiplePairsMatrixProc extends AlgoBaseProc<DistanceMatrix, Stream<DistanceMatrix.Row>, DistanceMatrixConfig, DijkstraMultiplePairsMatrixProc.MatrixResult> {
+
+    // indices of the named graph the procedure runs on, a contraction hierarchy among them answers the matrix bucket-based
+    private GraphIndexes graphIndexes = GraphIndexes.NONE;
+
+    @Procedure(name = "semanticspace.gds.dijkstraMultiplePairs.matrix", mode = READ)
+    @Description("Streams the costs of the shortest paths from every source node to every target node, one row per source node.")
+    public Stream<MatrixResult> matrix(
+            @Name(value = "graphName") String graphName,
+            @Name(value = "configuration", defaultValue = "{}") Map<String, Object> configuration
+    ) {
+        this.graphIndexes = GraphIndexCatalog.indexes(username(), databaseId(), graphName);
+        return computationResultConsumer().consume(compute(graphName, configuration), executionContext());
+    }
+
+    @Procedure(name = "semanticspace.gds.dijkstraMultiplePairs.matrix.estimate", mode = READ)
+    @Description("Estimates the memory of streaming the costs of the shortest paths from every source node to every target node.")
+    public Stream<MemoryEstimateResult> estimate(
+            @Name(value = "graphNameOrConfiguration") Object graphNameOrConfiguration,
+            @Name(value = "algoConfiguration") Map<String, Object> algoConfiguration
+    ) {
+        if (graphNameOrConfiguration instanceof String) {
+            // a hierarchy kept with the named graph replaces the search states
+            this.graphIndexes = GraphIndexCatalog.indexes(username(), databaseId(), (String) graphNameOrConfiguration);
+        }
+        return computeEstimate(graphNameOrConfiguration, algoConfiguration);
+    }
+
+    @Override
+    public ComputationResultConsumer<DistanceMatrix, Stream<DistanceMatrix.Row>, DistanceMatrixConfig, Stream<MatrixResult>> computationResultConsumer() {
+        return (computationResult, executionContext) -> {
+            if (computationResult.isGraphEmpty()) {
+                computationResult.graph().release();
+                return Stream.empty();
+            }
+            return computationResult.result().map(row -> new MatrixResult(row.sourceNode, row.costs));
+        };
+    }
+
+    @Override
+    protected DistanceMatrixConfig newConfig(String username, CypherMapWrapper config) {
+        return DistanceMatrixConfig.of(config);
+    }
+
+    @Override
+    public GraphAlgorithmFactory<DistanceMatrix, DistanceMatrixConfig> algorithmFactory() {
+        return new DistanceMatrixFactory(graphIndexes);
+    }
+
+    public static final class MatrixResult {
+        public final long sourceNode;
+        // in the order of the target nodes, Infinity for unreachable targets
+        public final List<Double> costs;
+
+        MatrixResult(long sourceNode, double[] costs) {
+            this.sourceNode = sourceNode;
+            this.costs = Arrays.stream(costs).boxed().collect(Collectors.toList());
+        }
+    }
+}
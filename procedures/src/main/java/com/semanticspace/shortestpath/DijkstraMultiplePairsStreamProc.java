@@ -1,11 +1,11 @@
 package com.semanticspace.shortestpath;
 
+import org.neo4j.gds.AlgoBaseProc;
 import org.neo4j.gds.GraphAlgorithmFactory;
 import org.neo4j.gds.core.CypherMapWrapper;
+import org.neo4j.gds.executor.ComputationResultConsumer;
 import org.neo4j.gds.executor.GdsCallable;
-import org.neo4j.gds.paths.ShortestPathStreamProc;
-import org.neo4j.gds.paths.StreamResult;
-import org.neo4j.gds.paths.dijkstra.config.ShortestPathDijkstraStreamConfig;
+import org.neo4j.gds.paths.dijkstra.DijkstraResult;
 import org.neo4j.gds.results.MemoryEstimateResult;
 import org.neo4j.procedure.Description;
 import org.neo4j.procedure.Name;
@@ -18,15 +18,21 @@ import static org.neo4j.gds.executor.ExecutionMode.STREAM;
 import static org.neo4j.procedure.Mode.READ;
 
 @GdsCallable(name = "semanticspace.gds.dijkstraMultiplePairs.stream", description = "", executionMode = STREAM)
-public class DijkstraMultiplePairsStreamProc extends ShortestPathStreamProc<DijkstraMultiplePairs, DijkstraMultiplePairsConfig> {
+public class DijkstraMultiplePairsStreamProc extends AlgoBaseProc<DijkstraMultiplePairs, DijkstraResult, DijkstraMultiplePairsConfig, DijkstraMultiplePairsStreamResult> {
+
+    // indices of the named graph the procedure runs on, shared with previous calls
+    private GraphIndexes graphIndexes = GraphIndexes.NONE;
 
     @Procedure(name = "semanticspace.gds.dijkstraMultiplePairs.stream", mode = READ)
     @Description("")
-    public Stream<StreamResult> stream(
+    public Stream<DijkstraMultiplePairsStreamResult> stream(
             @Name(value = "graphName") String graphName,
             @Name(value = "configuration", defaultValue = "{}") Map<String, Object> configuration
     ) {
-        return stream(compute(graphName, configuration, false, true));
+        this.graphIndexes = GraphIndexCatalog.indexes(username(), databaseId(), graphName);
+        // streaming workers may still search once the computation returns, they need the algorithm and the topology
+        boolean streaming = newConfig(username(), CypherMapWrapper.create(configuration)).resultStreaming() != ResultStreaming.NONE;
+        return computationResultConsumer().consume(compute(graphName, configuration, !streaming, !streaming), executionContext());
     }
 
     @Procedure(name = "semanticspace.gds.dijkstraMultiplePairs.stream.estimate", mode = READ)
@@ -38,6 +44,11 @@ public class DijkstraMultiplePairsStreamProc extends ShortestPathStreamProc<Dijk
         return computeEstimate(graphNameOrConfiguration, algoConfiguration);
     }
 
+    @Override
+    public ComputationResultConsumer<DijkstraMultiplePairs, DijkstraResult, DijkstraMultiplePairsConfig, Stream<DijkstraMultiplePairsStreamResult>> computationResultConsumer() {
+        return new DijkstraMultiplePairsStreamResultConsumer<>();
+    }
+
     @Override
     protected DijkstraMultiplePairsConfig newConfig(String username, CypherMapWrapper config) {
         return DijkstraMultiplePairsConfig.of(config);
@@ -45,6 +56,6 @@ public class DijkstraMultiplePairsStreamProc extends ShortestPathStreamProc<Dijk
 
     @Override
     public GraphAlgorithmFactory<DijkstraMultiplePairs, DijkstraMultiplePairsConfig> algorithmFactory() {
-        return new DijkstraMultiplePairsFactory.MultipleSourceDijkstraFactory<>();
+        return new DijkstraMultiplePairsFactory.MultipleSourceDijkstraFactory<>(graphIndexes);
     }
 }
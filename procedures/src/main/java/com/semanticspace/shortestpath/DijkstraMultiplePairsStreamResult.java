@@ -0,0 +1,67 @@
+package com.semanticspace.shortestpath;
+
+import org.jetbrains.annotations.Nullable;
+import org.neo4j.gds.paths.StreamResult;
+import org.neo4j.graphdb.Path;
+
+import java.util.List;
+
+/**
+ * The columns of {@link StreamResult} and the rank of the path among the paths of its pair,
+ * whose path columns are {@code null} for distance only pairs.
+ */
+public final class DijkstraMultiplePairsStreamResult {
+    public final long index;
+    // 0 for the shortest path of the pair, counting up along the k shortest paths
+    public final long rank;
+    public final long sourceNode;
+    public final long targetNode;
+    public final double totalCost;
+    @Nullable
+    public final List<Long> nodeIds;
+    @Nullable
+    public final List<Double> costs;
+    @Nullable
+    public final Path path;
+
+    private DijkstraMultiplePairsStreamResult(
+        long index,
+        long rank,
+        long sourceNode,
+        long targetNode,
+        double totalCost,
+        @Nullable List<Long> nodeIds,
+        @Nullable List<Double> costs,
+        @Nullable Path path
+    ) {
+        this.index = index;
+        this.rank = rank;
+        this.sourceNode = sourceNode;
+        this.targetNode = targetNode;
+        this.totalCost = totalCost;
+        this.nodeIds = nodeIds;
+        this.costs = costs;
+        this.path = path;
+    }
+
+    static DijkstraMultiplePairsStreamResult of(StreamResult result, long rank) {
+        return new DijkstraMultiplePairsStreamResult(
+            result.index,
+            rank,
+            result.sourceNode,
+            result.targetNode,
+            result.totalCost,
+            result.nodeIds,
+            result.costs,
+            result.path
+        );
+    }
+
+    /**
+     * @param sourceNode the original id of the source node
+     * @param targetNode the original id of the target node
+     */
+    static DijkstraMultiplePairsStreamResult distance(long index, long rank, long sourceNode, long targetNode, double totalCost) {
+        return new DijkstraMultiplePairsStreamResult(index, rank, sourceNode, targetNode, totalCost, null, null, null);
+    }
+}
@@ -20,21 +20,23 @@
 package com.semanticspace.shortestpath;
 
 import org.neo4j.gds.Algorithm;
-import org.neo4j.gds.config.AlgoBaseConfig;
 import org.neo4j.gds.executor.ComputationResult;
 import org.neo4j.gds.executor.ComputationResultConsumer;
 import org.neo4j.gds.executor.ExecutionContext;
+import org.neo4j.gds.paths.PathResult;
 import org.neo4j.gds.paths.StreamResult;
 import org.neo4j.gds.paths.dijkstra.DijkstraResult;
 
+import java.util.HashMap;
+import java.util.function.ToLongFunction;
 import java.util.stream.Stream;
 
 import static org.neo4j.gds.utils.StringFormatting.toLowerCaseWithLocale;
 
-public final class DijkstraMultiplePairsStreamResultConsumer<ALGO extends Algorithm<DijkstraResult>, CONFIG extends AlgoBaseConfig> implements ComputationResultConsumer<ALGO, DijkstraResult, CONFIG, Stream<StreamResult>> {
+public final class DijkstraMultiplePairsStreamResultConsumer<ALGO extends Algorithm<DijkstraResult>, CONFIG extends DijkstraMultiplePairsConfig> implements ComputationResultConsumer<ALGO, DijkstraResult, CONFIG, Stream<DijkstraMultiplePairsStreamResult>> {
 
     @Override
-    public Stream<StreamResult> consume(
+    public Stream<DijkstraMultiplePairsStreamResult> consume(
         ComputationResult<ALGO, DijkstraResult, CONFIG> computationResult, ExecutionContext executionContext
     ) {
         var graph = computationResult.graph();
@@ -50,9 +52,24 @@ public final class DijkstraMultiplePairsStreamResultConsumer<ALGO extends Algori
 
         var resultBuilder = new StreamResult.Builder(graph, executionContext.transaction().internalTransaction());
 
-        var resultStream = computationResult
-            .result()
-            .mapPaths(path -> resultBuilder.build(path, shouldReturnPath));
+        // the paths of a pair are found by a single task in the order of their cost, whatever the result streaming,
+        // so the rank of a path is the number of paths of its pair streamed before
+        var ranks = computationResult.config().k() > 1 ? new HashMap<Long, Long>() : null;
+        ToLongFunction<PathResult> rank = path -> ranks == null ? 0L : ranks.merge(path.index(), 1L, Long::sum) - 1;
+
+        // distance only paths consist of their source and target node, which are no path of the graph
+        var resultStream = computationResult.config().distanceOnly()
+            ? computationResult.result().mapPaths(path -> DijkstraMultiplePairsStreamResult.distance(
+                path.index(),
+                rank.applyAsLong(path),
+                graph.toOriginalNodeId(path.sourceNode()),
+                graph.toOriginalNodeId(path.targetNode()),
+                path.totalCost()
+            ))
+            : computationResult.result().mapPaths(path -> DijkstraMultiplePairsStreamResult.of(
+                resultBuilder.build(path, shouldReturnPath),
+                rank.applyAsLong(path)
+            ));
 
         // this is necessary in order to close the result stream which triggers
         // the progress tracker to close its root task
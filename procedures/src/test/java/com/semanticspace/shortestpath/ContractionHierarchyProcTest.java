@@ -0,0 +1,130 @@
+package com.semanticspace.shortestpath;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.neo4j.gds.BaseProcTest;
+import org.neo4j.gds.GdsCypher;
+import org.neo4j.gds.catalog.GraphProjectProc;
+import org.neo4j.gds.core.CypherMapWrapper;
+import org.neo4j.gds.core.loading.GraphStoreCatalog;
+import org.neo4j.gds.extension.Neo4jGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContractionHierarchyProcTest extends BaseProcTest {
+
+    private static final String GRAPH_NAME = "graph";
+
+    @Neo4jGraph
+    private static final String DB_CYPHER =
+            "CREATE" +
+            "  (n1:Label)" +
+            ", (n2:Label)" +
+            ", (n3:Label)" +
+            ", (n4:Label)" +
+            ", (n5:Label)" +
+            ", (n6:Label)" +
+            ", (n7:Label)" +
+
+            ", (n1)-[:TYPE {cost: 6}]->(n2)" +
+            ", (n1)-[:TYPE {cost: 2}]->(n3)" +
+            ", (n1)-[:TYPE {cost: 16}]->(n4)" +
+            ", (n2)-[:TYPE {cost: 4}]->(n5)" +
+            ", (n2)-[:TYPE {cost: 5}]->(n4)" +
+            ", (n3)-[:TYPE {cost: 7}]->(n2)" +
+            ", (n3)-[:TYPE {cost: 3}]->(n5)" +
+            ", (n3)-[:TYPE {cost: 8}]->(n6)" +
+            ", (n4)-[:TYPE {cost: 7}]->(n3)" +
+            ", (n5)-[:TYPE {cost: 4}]->(n4)" +
+            ", (n5)-[:TYPE {cost: 10}]->(n7)" +
+            ", (n6)-[:TYPE {cost: 1}]->(n7)";
+
+    @BeforeEach
+    void setup() throws Exception {
+        registerProcedures(
+                ContractionHierarchyProc.class,
+                DijkstraMultiplePairsStreamProc.class,
+                GraphProjectProc.class
+        );
+
+        runQuery(GdsCypher.call(GRAPH_NAME)
+                .graphProject()
+                .withNodeLabel("Label")
+                .withAnyRelationshipType()
+                .withRelationshipProperty("cost")
+                .yields());
+    }
+
+    @AfterEach
+    void teardown() {
+        GraphStoreCatalog.removeAllLoadedGraphs();
+        GraphIndexCatalog.removeAll();
+    }
+
+    @Test
+    void shouldBuildHierarchyForContractionHierarchyQueries() {
+        runQueryWithRowConsumer(
+                "CALL semanticspace.gds.contractionHierarchy.build('graph', {relationshipWeightProperty: 'cost'}) " +
+                "YIELD nodeCount, shortcutCount, buildMillis",
+                row -> {
+                    assertThat(row.getNumber("nodeCount").longValue()).isEqualTo(7L);
+                    assertThat(row.getNumber("shortcutCount").longValue()).isGreaterThanOrEqualTo(0L);
+                    assertThat(row.getNumber("buildMillis").longValue()).isGreaterThanOrEqualTo(0L);
+                }
+        );
+
+        // kept with the named graph, tests run as the anonymous user
+        var config = ContractionHierarchyConfig.of(CypherMapWrapper.create(Map.of("relationshipWeightProperty", "cost")));
+        var indexes = GraphIndexCatalog.indexes("", db.databaseId(), GRAPH_NAME);
+        assertThat(indexes.get(ContractionHierarchy.indexKey(config))).isPresent();
+
+        var query = GdsCypher.call(GRAPH_NAME)
+                .algo("semanticspace.gds.dijkstraMultiplePairs")
+                .streamMode()
+                .addParameter("sourceNodes", Arrays.asList(idFunction.of("n1"), idFunction.of("n3")))
+                .addParameter("targetNodes", Arrays.asList(idFunction.of("n7"), idFunction.of("n5")))
+                .addParameter("relationshipWeightProperty", "cost")
+                .addParameter("searchMode", "contractionHierarchy")
+                .yields("index", "nodeIds", "totalCost");
+
+        // the query unpacks the shortcuts of the hierarchy built above
+        var rows = new ArrayList<Map<String, Object>>();
+        runQueryWithRowConsumer(query, row -> rows.add(Map.of(
+                "index", row.getNumber("index").longValue(),
+                "nodeIds", row.get("nodeIds"),
+                "totalCost", row.getNumber("totalCost").doubleValue()
+        )));
+
+        assertThat(rows).containsExactlyInAnyOrder(
+                Map.of("index", 0L, "nodeIds", nodeIds("n1", "n3", "n6", "n7"), "totalCost", 11.0D),
+                Map.of("index", 1L, "nodeIds", nodeIds("n3", "n5"), "totalCost", 3.0D)
+        );
+    }
+
+    @Test
+    void shouldEstimateMemory() {
+        runQueryWithRowConsumer(
+                "CALL semanticspace.gds.contractionHierarchy.build.estimate('graph', {relationshipWeightProperty: 'cost'}) " +
+                "YIELD bytesMin, bytesMax, nodeCount",
+                row -> {
+                    assertThat(row.getNumber("nodeCount").longValue()).isEqualTo(7L);
+                    assertThat(row.getNumber("bytesMin").longValue()).isPositive();
+                    assertThat(row.getNumber("bytesMax").longValue()).isGreaterThanOrEqualTo(row.getNumber("bytesMin").longValue());
+                }
+        );
+    }
+
+    private List<Long> nodeIds(String... nodes) {
+        var nodeIds = new ArrayList<Long>();
+        for (String node : nodes) {
+            nodeIds.add(idFunction.of(node));
+        }
+        return nodeIds;
+    }
+}
@@ -0,0 +1,112 @@
+package com.semanticspace.shortestpath;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.neo4j.gds.BaseProcTest;
+import org.neo4j.gds.GdsCypher;
+import org.neo4j.gds.catalog.GraphProjectProc;
+import org.neo4j.gds.core.loading.GraphStoreCatalog;
+import org.neo4j.gds.extension.Neo4jGraph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DijkstraMultiplePairsMatrixProcTest extends BaseProcTest {
+
+    private static final String GRAPH_NAME = "graph";
+
+    @Neo4jGraph
+    private static final String DB_CYPHER =
+            "CREATE" +
+            "  (n1:Label)" +
+            ", (n2:Label)" +
+            ", (n3:Label)" +
+            ", (n4:Label)" +
+            ", (n5:Label)" +
+            ", (n6:Label)" +
+            ", (n7:Label)" +
+
+            ", (n1)-[:TYPE {cost: 6}]->(n2)" +
+            ", (n1)-[:TYPE {cost: 2}]->(n3)" +
+            ", (n1)-[:TYPE {cost: 16}]->(n4)" +
+            ", (n2)-[:TYPE {cost: 4}]->(n5)" +
+            ", (n2)-[:TYPE {cost: 5}]->(n4)" +
+            ", (n3)-[:TYPE {cost: 7}]->(n2)" +
+            ", (n3)-[:TYPE {cost: 3}]->(n5)" +
+            ", (n3)-[:TYPE {cost: 8}]->(n6)" +
+            ", (n4)-[:TYPE {cost: 7}]->(n3)" +
+            ", (n5)-[:TYPE {cost: 4}]->(n4)" +
+            ", (n5)-[:TYPE {cost: 10}]->(n7)" +
+            ", (n6)-[:TYPE {cost: 1}]->(n7)";
+
+    @BeforeEach
+    void setup() throws Exception {
+        registerProcedures(
+                DijkstraMultiplePairsMatrixProc.class,
+                ContractionHierarchyProc.class,
+                GraphProjectProc.class
+        );
+
+        runQuery(GdsCypher.call(GRAPH_NAME)
+                .graphProject()
+                .withNodeLabel("Label")
+                .withAnyRelationshipType()
+                .withRelationshipProperty("cost")
+                .yields());
+    }
+
+    @AfterEach
+    void teardown() {
+        GraphStoreCatalog.removeAllLoadedGraphs();
+        GraphIndexCatalog.removeAll();
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void shouldStreamOneRowPerSource(boolean withContractionHierarchy) {
+        if (withContractionHierarchy) {
+            // the matrix is then computed bucket-based on the hierarchy
+            runQuery("CALL semanticspace.gds.contractionHierarchy.build('graph', {relationshipWeightProperty: 'cost'})");
+        }
+
+        var query = "CALL semanticspace.gds.dijkstraMultiplePairs.matrix('graph', {" +
+                    "sourceNodes: $sourceNodes, targetNodes: $targetNodes, relationshipWeightProperty: 'cost'" +
+                    "}) YIELD sourceNode, costs";
+        var parameters = Map.<String, Object>of(
+                "sourceNodes", List.of(idFunction.of("n1"), idFunction.of("n3"), idFunction.of("n7")),
+                "targetNodes", List.of(idFunction.of("n7"), idFunction.of("n5"), idFunction.of("n7"))
+        );
+
+        var rows = new ArrayList<Map<String, Object>>();
+        runQueryWithRowConsumer(query, parameters, row -> rows.add(Map.of(
+                "sourceNode", row.getNumber("sourceNode").longValue(),
+                "costs", row.get("costs")
+        )));
+
+        // n7 has no relationships, repeated targets repeat their column
+        assertThat(rows).containsExactly(
+                Map.of("sourceNode", idFunction.of("n1"), "costs", List.of(11.0D, 5.0D, 11.0D)),
+                Map.of("sourceNode", idFunction.of("n3"), "costs", List.of(9.0D, 3.0D, 9.0D)),
+                Map.of("sourceNode", idFunction.of("n7"), "costs", List.of(0.0D, Double.POSITIVE_INFINITY, 0.0D))
+        );
+    }
+
+    @Test
+    void shouldEstimateMemory() {
+        runQueryWithRowConsumer(
+                "CALL semanticspace.gds.dijkstraMultiplePairs.matrix.estimate('graph', {" +
+                "sourceNodes: [" + idFunction.of("n1") + "], targetNodes: [" + idFunction.of("n7") + "], relationshipWeightProperty: 'cost'" +
+                "}) YIELD bytesMin, bytesMax, nodeCount",
+                row -> {
+                    assertThat(row.getNumber("nodeCount").longValue()).isEqualTo(7L);
+                    assertThat(row.getNumber("bytesMin").longValue()).isPositive();
+                }
+        );
+    }
+}
@@ -1,6 +1,8 @@
 package com.semanticspace.shortestpath;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.neo4j.gds.AlgoBaseProc;
 import org.neo4j.gds.GdsCypher;
 import org.neo4j.gds.compat.Neo4jProxy;
@@ -60,10 +62,10 @@ class DijkstraMultiplePairsStreamProcTest extends DijkstraMultiplePairsProcTest<
         });
     }
 
-    @Test
-    void testStream() {
-        var config = createConfig(createMinimalConfig(CypherMapWrapper.empty()));
-
+    // streamed paths are built after the computation returns, on the topology it keeps
+    @ParameterizedTest
+    @ValueSource(strings = {"none", "ordered"})
+    void testStream(String resultStreaming) {
         List<Long> sourceNodes = Arrays.asList(idFunction.of("n1"), idFunction.of("n3"));
         List<Long> targetNodes = Arrays.asList(idFunction.of("n7"), idFunction.of("n5"));
 
@@ -73,6 +75,7 @@ class DijkstraMultiplePairsStreamProcTest extends DijkstraMultiplePairsProcTest<
                 .addParameter("sourceNodes", sourceNodes)
                 .addParameter("targetNodes", targetNodes)
                 .addParameter("relationshipWeightProperty", "cost")
+                .addParameter("resultStreaming", resultStreaming)
                 .yields();
 
         runInTransaction(db, tx -> {
@@ -92,6 +95,7 @@ class DijkstraMultiplePairsStreamProcTest extends DijkstraMultiplePairsProcTest<
             var expected = Arrays.asList(
                     Map.of(
                             "index", 0L,
+                            "rank", 0L,
                             "sourceNode", idFunction.of("n1"),
                             "targetNode", idFunction.of("n7"),
                             "totalCost", 11.0D,
@@ -101,6 +105,7 @@ class DijkstraMultiplePairsStreamProcTest extends DijkstraMultiplePairsProcTest<
                     ),
                     Map.of(
                             "index", 1L,
+                            "rank", 0L,
                             "sourceNode", idFunction.of("n3"),
                             "targetNode", idFunction.of("n5"),
                             "totalCost", 3.0D,
@@ -113,8 +118,98 @@ class DijkstraMultiplePairsStreamProcTest extends DijkstraMultiplePairsProcTest<
         });
     }
 
+    @Test
+    void shouldStreamUnorderedPaths() {
+        var query = GdsCypher.call("graph")
+                .algo("semanticspace.gds.dijkstraMultiplePairs")
+                .streamMode()
+                .addParameter("sourceNodes", Arrays.asList(idFunction.of("n1"), idFunction.of("n3")))
+                .addParameter("targetNodes", Arrays.asList(idFunction.of("n7"), idFunction.of("n5")))
+                .addParameter("relationshipWeightProperty", "cost")
+                .addParameter("resultStreaming", "unordered")
+                .yields("index", "nodeIds", "totalCost", "path");
+
+        // pairs arrive in the order their searches finish, paths are built on the topology kept after the computation
+        var rows = new ArrayList<Map<String, Object>>();
+        runQueryWithRowConsumer(query, row -> {
+            assertThat(row.getPath("path").length()).isEqualTo(((List<?>) row.get("nodeIds")).size() - 1);
+            rows.add(Map.of(
+                    "index", row.getNumber("index").longValue(),
+                    "nodeIds", row.get("nodeIds"),
+                    "totalCost", row.getNumber("totalCost").doubleValue()
+            ));
+        });
+
+        assertThat(rows).containsExactlyInAnyOrder(
+                Map.of("index", 0L, "nodeIds", Arrays.stream(ids0).boxed().collect(Collectors.toList()), "totalCost", 11.0D),
+                Map.of("index", 1L, "nodeIds", Arrays.stream(ids1).boxed().collect(Collectors.toList()), "totalCost", 3.0D)
+        );
+    }
+
+    @Test
+    void shouldStreamDistancesWithoutPaths() {
+        var query = GdsCypher.call("graph")
+                .algo("semanticspace.gds.dijkstraMultiplePairs")
+                .streamMode()
+                .addParameter("sourceNodes", List.of(idFunction.of("n1")))
+                .addParameter("targetNodes", List.of(idFunction.of("n7")))
+                .addParameter("relationshipWeightProperty", "cost")
+                .addParameter("distanceOnly", true)
+                .yields();
+
+        var rows = new ArrayList<Map<String, Object>>();
+        runQueryWithRowConsumer(query, row -> {
+            rows.add(Map.of(
+                    "index", row.getNumber("index").longValue(),
+                    "rank", row.getNumber("rank").longValue(),
+                    "sourceNode", row.getNumber("sourceNode").longValue(),
+                    "targetNode", row.getNumber("targetNode").longValue(),
+                    "totalCost", row.getNumber("totalCost").doubleValue()
+            ));
+            // a distance only pair has no path in the graph
+            assertThat(row.get("nodeIds")).isNull();
+            assertThat(row.get("costs")).isNull();
+            assertThat(row.get("path")).isNull();
+        });
 
+        assertThat(rows).containsExactly(Map.of(
+                "index", 0L,
+                "rank", 0L,
+                "sourceNode", idFunction.of("n1"),
+                "targetNode", idFunction.of("n7"),
+                "totalCost", 11.0D
+        ));
+    }
 
+    @ParameterizedTest
+    @ValueSource(strings = {"none", "unordered"})
+    void shouldRankKShortestPaths(String resultStreaming) {
+        var query = GdsCypher.call("graph")
+                .algo("semanticspace.gds.dijkstraMultiplePairs")
+                .streamMode()
+                .addParameter("sourceNodes", List.of(idFunction.of("n1"), idFunction.of("n3")))
+                .addParameter("targetNodes", List.of(idFunction.of("n7"), idFunction.of("n5")))
+                .addParameter("relationshipWeightProperty", "cost")
+                .addParameter("k", 3)
+                .addParameter("resultStreaming", resultStreaming)
+                .yields("index", "rank", "totalCost");
+
+        var rows = new ArrayList<Map<String, Object>>();
+        runQueryWithRowConsumer(query, row -> rows.add(Map.of(
+                "index", row.getNumber("index").longValue(),
+                "rank", row.getNumber("rank").longValue(),
+                "totalCost", row.getNumber("totalCost").doubleValue()
+        )));
+
+        // n3 reaches n5 only directly and through n2
+        assertThat(rows).containsExactlyInAnyOrder(
+                Map.of("index", 0L, "rank", 0L, "totalCost", 11.0D),
+                Map.of("index", 0L, "rank", 1L, "totalCost", 15.0D),
+                Map.of("index", 0L, "rank", 2L, "totalCost", 20.0D),
+                Map.of("index", 1L, "rank", 0L, "totalCost", 3.0D),
+                Map.of("index", 1L, "rank", 1L, "totalCost", 11.0D)
+        );
+    }
 
     @Test
     void testLazyComputationLoggingFinishes() {
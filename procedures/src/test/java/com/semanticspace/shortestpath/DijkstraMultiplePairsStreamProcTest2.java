@@ -121,6 +121,7 @@ class DijkstraMultiplePairsStreamProcTest2 extends DijkstraMultiplePairsProcTest
             var expected = Arrays.asList(
                     Map.of(
                             "index", 0L,
+                            "rank", 0L,
                             "sourceNode", idFunction.of("SteveJobs"),
                             "targetNode", idFunction.of("Apple"),
                             "totalCost", 1.0D,
@@ -130,6 +131,7 @@ class DijkstraMultiplePairsStreamProcTest2 extends DijkstraMultiplePairsProcTest
                     ),
                     Map.of(
                             "index", 1L,
+                            "rank", 0L,
                             "sourceNode", idFunction.of("SteveJobs"),
                             "targetNode", idFunction.of("Microsoft"),
                             "totalCost", 4.0D,
@@ -139,6 +141,7 @@ class DijkstraMultiplePairsStreamProcTest2 extends DijkstraMultiplePairsProcTest
                     ),
                     Map.of(
                             "index", 2L,
+                            "rank", 0L,
                             "sourceNode", idFunction.of("SteveJobs"),
                             "targetNode", idFunction.of("Linux"),
                             "totalCost", 3.0D,
@@ -148,6 +151,7 @@ class DijkstraMultiplePairsStreamProcTest2 extends DijkstraMultiplePairsProcTest
                     ),
                     Map.of(
                             "index", 3L,
+                            "rank", 0L,
                             "sourceNode", idFunction.of("SteveJobs"),
                             "targetNode", idFunction.of("BarackObama"),
                             "totalCost", 2.0D,
@@ -157,6 +161,7 @@ class DijkstraMultiplePairsStreamProcTest2 extends DijkstraMultiplePairsProcTest
                     ),
                     Map.of(
                             "index", 4L,
+                            "rank", 0L,
                             "sourceNode", idFunction.of("SteveJobs"),
                             "targetNode", idFunction.of("ISS"),
                             "totalCost", 8.0D,